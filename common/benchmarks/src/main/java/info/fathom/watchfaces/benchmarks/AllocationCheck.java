@@ -0,0 +1,126 @@
+package info.fathom.watchfaces.benchmarks;
+
+import java.lang.management.ManagementFactory;
+import java.util.TimeZone;
+
+import info.fathom.watchfaces.simulation.StepClock;
+import info.fathom.watchfaces.simulation.WallClock;
+import info.fathom.watchfaces.simulation.coubertin.BubbleManager;
+import info.fathom.watchfaces.simulation.gaze.EyeMosaic;
+import info.fathom.watchfaces.simulation.isaac.Board;
+
+/**
+ * Runs the interactive frames of every face on this thread and fails if any of them
+ * allocates once warmed up. Each frame is what onDraw() does on the watch: read the clock,
+ * step the simulation and render it.
+ *
+ *   gradle :benchmarks:allocationCheck
+ *   java info.fathom.watchfaces.benchmarks.AllocationCheck [frames]
+ */
+public class AllocationCheck {
+
+    private static final int WARMUP_FRAMES = 300000;  // enough for the JIT to settle, rare branches included
+    private static final int DEFAULT_FRAMES = 10000;
+
+    abstract static class Face {
+        final String name;
+        final SyntheticSensors sensors = new SyntheticSensors();
+        final NullRenderSink sink = new NullRenderSink();
+        final WallClock.ManualTimeSource time = new WallClock.ManualTimeSource(1445000000000L);
+        final WallClock clock = new WallClock(time, TimeZone.getTimeZone("UTC"));
+
+        Face(String name_) {
+            name = name_;
+            clock.setOvernightResetHour(4);
+        }
+
+        void frame() {
+            time.advance(StepClock.toMillis(1));
+            clock.setToNow();
+            sensors.next();
+            step(StepClock.STEP_NANOS);
+        }
+
+        abstract void step(long deltaNanos);
+    }
+
+    static Face[] createFaces() {
+        return new Face[] {
+                new Face("isaac") {
+                    final Board board = new Board();
+                    {
+                        board.setRound(true);
+                        board.setMinute(30);
+                        board.initialize(320, 320);
+                    }
+
+                    @Override
+                    void step(long deltaNanos) {
+                        board.setMinute(clock.minute);
+                        board.setGravity(sensors.gravity[0], sensors.gravity[1]);
+                        board.advance(deltaNanos);
+                        board.render(sink, false);
+                    }
+                },
+
+                new Face("gaze") {
+                    final EyeMosaic mosaic = new EyeMosaic();
+                    {
+                        mosaic.setScreenSize(320, 320);
+                        GazeBenchmark.populate(mosaic, 21);
+                        mosaic.newGlance(21, 0, 1, 12, 30);
+                    }
+
+                    @Override
+                    void step(long deltaNanos) {
+                        mosaic.advance(deltaNanos);
+                        mosaic.render(sink);
+                    }
+                },
+
+                new Face("coubertin") {
+                    final BubbleManager bubbleManager = new BubbleManager();
+                    {
+                        bubbleManager.setScreenSize(320, 320);
+                        bubbleManager.setSensorValues(sensors.gravity, sensors.linearAcceleration);
+                        bubbleManager.updateSteps(8986);
+                    }
+
+                    @Override
+                    void step(long deltaNanos) {
+                        bubbleManager.advance(deltaNanos);
+                        bubbleManager.render(sink);
+                    }
+                }
+        };
+    }
+
+    public static void main(String[] args) {
+        int frames = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_FRAMES;
+
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        // Reading the counter may allocate itself, measure that once and discount it
+        long overhead = threads.getThreadAllocatedBytes(threadId);
+        overhead = threads.getThreadAllocatedBytes(threadId) - overhead;
+
+        boolean failed = false;
+        for (Face face : createFaces()) {
+            for (int i = 0; i < WARMUP_FRAMES; i++) face.frame();
+
+            long before = threads.getThreadAllocatedBytes(threadId);
+            for (int i = 0; i < frames; i++) face.frame();
+            long bytes = threads.getThreadAllocatedBytes(threadId) - before - overhead;
+
+            double perFrame = (double) Math.max(bytes, 0) / frames;
+            boolean ok = bytes <= 0;
+            failed |= !ok;
+            System.out.println((ok ? "ok   " : "FAIL ") + face.name + ": " + Math.max(bytes, 0) +
+                    " bytes in " + frames + " frames (" + perFrame + " per frame)");
+        }
+
+        if (failed) System.exit(1);
+    }
+}
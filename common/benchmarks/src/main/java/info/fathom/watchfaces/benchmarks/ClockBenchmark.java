@@ -0,0 +1,54 @@
+package info.fathom.watchfaces.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+import info.fathom.watchfaces.simulation.StepClock;
+import info.fathom.watchfaces.simulation.WallClock;
+
+/**
+ * The per-frame clock read every face does, on a faked clock advancing one 30fps frame
+ * per op, so minute boundaries and the overnight reset come round at their real rate.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClockBenchmark {
+
+    private static final long FRAME_MILLIS = StepClock.toMillis(1);
+
+    @Param({"UTC", "America/New_York", "Australia/Lord_Howe"})
+    String timeZone;
+
+    WallClock.ManualTimeSource source;
+    WallClock clock;
+
+    @Setup
+    public void setup() {
+        source = new WallClock.ManualTimeSource(1445000000000L);
+        clock = new WallClock(source, TimeZone.getTimeZone(timeZone));
+        clock.setOvernightResetHour(4);
+    }
+
+    @Benchmark
+    public int setToNow() {
+        source.advance(FRAME_MILLIS);
+        clock.setToNow();
+        return clock.minute;
+    }
+}
@@ -0,0 +1,77 @@
+package info.fathom.watchfaces.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import info.fathom.watchfaces.simulation.coubertin.BubbleManager;
+
+/**
+ * Coubertin Rings at different points of the day, the bubble count grows with the digits
+ * of the step total.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CoubertinBenchmark {
+
+    private static final int SETTLE_FRAMES = 120;  // enough for new bubbles to finish growing
+
+    @Param({"57", "1243", "8986", "24321"})
+    int steps;
+
+    BubbleManager bubbleManager;
+    SyntheticSensors sensors;
+    NullRenderSink sink;
+
+    @Setup
+    public void setup() {
+        sensors = new SyntheticSensors();
+        sink = new NullRenderSink();
+
+        bubbleManager = new BubbleManager();
+        bubbleManager.setScreenSize(320, 320);
+        bubbleManager.setSensorValues(sensors.gravity, sensors.linearAcceleration);
+        bubbleManager.updateSteps(steps);
+        for (int i = 0; i < SETTLE_FRAMES; i++) {
+            sensors.next();
+            bubbleManager.update();
+        }
+    }
+
+    // update() also moves every bubble, same as a frame on the watch
+    @Benchmark
+    public BubbleManager update() {
+        sensors.next();
+        bubbleManager.update();
+        return bubbleManager;
+    }
+
+    @Benchmark
+    public BubbleManager updatePositions() {
+        sensors.next();
+        bubbleManager.updatePositions();
+        return bubbleManager;
+    }
+
+    @Benchmark
+    public int render() {
+        sensors.next();
+        bubbleManager.update();
+        bubbleManager.render(sink);
+        return sink.calls;
+    }
+}
@@ -0,0 +1,56 @@
+package info.fathom.watchfaces.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import info.fathom.watchfaces.simulation.gaze.EyeMosaic;
+
+/**
+ * Gaze update() on a crowded mosaic with every eye animating, the worst case for easing
+ * the eye state arrays. An op is one eye for one frame, so the score is the per-eye cost:
+ * times the eye count for a frame.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EyeKernelBenchmark {
+
+    static final int EYES = 500;
+
+    EyeMosaic mosaic;
+    boolean wideOpen;
+
+    @Setup
+    public void setup() {
+        mosaic = new EyeMosaic();
+        mosaic.setScreenSize(320, 320);
+        GazeBenchmark.populate(mosaic, EYES);
+        mosaic.newGlance(EYES, 0, 1, 12, 30);
+    }
+
+    // Whenever they settle, all eyes go wide open or back, which keeps every one moving
+    @Benchmark
+    @OperationsPerInvocation(EYES)
+    public EyeMosaic update() {
+        if (mosaic.isSettled()) {
+            wideOpen = !wideOpen;
+            mosaic.newGlance(0, 0, wideOpen ? 3 : 1, 12, 30);
+        }
+        mosaic.update();
+        return mosaic;
+    }
+}
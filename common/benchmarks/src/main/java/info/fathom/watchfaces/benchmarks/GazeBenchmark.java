@@ -0,0 +1,73 @@
+package info.fathom.watchfaces.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import info.fathom.watchfaces.simulation.gaze.EyeMosaic;
+
+/**
+ * Gaze Effect with every eye open, from the stock 21-eye layout to crowded mosaics.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GazeBenchmark {
+
+    private static final int[] EYE_WIDTHS = { 49, 72, 97 };
+
+    @Param({"21", "100", "500"})
+    int eyeCount;
+
+    EyeMosaic mosaic;
+    NullRenderSink sink;
+
+    @Setup
+    public void setup() {
+        sink = new NullRenderSink();
+
+        mosaic = new EyeMosaic();
+        mosaic.setScreenSize(320, 320);
+        populate(mosaic, eyeCount);
+
+        // One big glance opens every eye, at a time of day with no special behaviour
+        mosaic.newGlance(eyeCount, 0, 1, 12, 30);
+    }
+
+    @Benchmark
+    public EyeMosaic update() {
+        mosaic.update();
+        return mosaic;
+    }
+
+    @Benchmark
+    public int render() {
+        mosaic.update();
+        mosaic.render(sink);
+        return sink.calls;
+    }
+
+    // Spreads eyes on a jittered grid over the 320x320 layout space used by the face
+    static void populate(EyeMosaic mosaic, int count) {
+        int cols = (int) Math.ceil(Math.sqrt(count));
+        float cell = 320f / cols;
+        for (int i = 0; i < count; i++) {
+            float x = (i % cols + 0.5f) * cell;
+            float y = (i / cols + 0.5f) * cell;
+            mosaic.addEye(x, y, EYE_WIDTHS[i % EYE_WIDTHS.length]);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package info.fathom.watchfaces.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import info.fathom.watchfaces.simulation.isaac.Board;
+
+/**
+ * Bouncing Isaac: cursor physics and triangle animations, one op per frame.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IsaacBenchmark {
+
+    @Param({"true", "false"})
+    boolean round;
+
+    Board board;
+    SyntheticSensors sensors;
+    NullRenderSink sink;
+
+    @Setup
+    public void setup() {
+        sensors = new SyntheticSensors();
+        sink = new NullRenderSink();
+
+        board = new Board();
+        board.setRound(round);
+        board.setMinute(30);
+        board.initialize(320, 320);
+    }
+
+    // Board.update() steps the cursor first, then the animating triangles
+    @Benchmark
+    public Board update() {
+        sensors.next();
+        board.setGravity(sensors.gravity[0], sensors.gravity[1]);
+        board.update();
+        return board;
+    }
+
+    @Benchmark
+    public int render() {
+        sensors.next();
+        board.setGravity(sensors.gravity[0], sensors.gravity[1]);
+        board.update();
+        board.render(sink, false);
+        return sink.calls;
+    }
+}
@@ -0,0 +1,91 @@
+package info.fathom.watchfaces.benchmarks;
+
+import info.fathom.watchfaces.simulation.RenderLayer;
+import info.fathom.watchfaces.simulation.RenderSink;
+import info.fathom.watchfaces.simulation.VectorPath;
+
+/**
+ * Swallows all draw calls, so render benchmarks only measure what the simulations do
+ * to issue them. Counts calls so the JIT can't drop them.
+ */
+class NullRenderSink implements RenderSink {
+
+    int calls;
+
+    @Override
+    public void setColor(int argb) { calls++; }
+
+    @Override
+    public void setAntiAlias(boolean antiAlias) { calls++; }
+
+    @Override
+    public void setFillStyle() { calls++; }
+
+    @Override
+    public void setStrokeStyle(float strokeWidth) { calls++; }
+
+    @Override
+    public void setLinearGradient(float x0, float y0, float x1, float y1, int color0, int color1) { calls++; }
+
+    @Override
+    public void clearShader() { calls++; }
+
+    @Override
+    public void setAtop(boolean atop) { calls++; }
+
+    @Override
+    public void setAdditive(boolean additive) { calls++; }
+
+    @Override
+    public void drawPath(VectorPath path) { calls += path.getVerbCount(); }
+
+    @Override
+    public void drawCircle(float cx, float cy, float radius) { calls++; }
+
+    @Override
+    public void drawText(String text, float cx, float cy, float textSize) { calls += text.length(); }
+
+    @Override
+    public void save() { calls++; }
+
+    @Override
+    public void restore() { calls++; }
+
+    @Override
+    public void translate(float dx, float dy) { calls++; }
+
+    @Override
+    public void scale(float sx, float sy) { calls++; }
+
+    @Override
+    public void clipPath(VectorPath path) { calls += path.getVerbCount(); }
+
+    @Override
+    public boolean beginLayer(RenderLayer layer, boolean clear) {
+        calls++;
+        boolean kept = layer.platformLayer != null;
+        layer.platformLayer = this;
+        return kept;
+    }
+
+    @Override
+    public void endLayer() { calls++; }
+
+    @Override
+    public void drawLayer(RenderLayer layer) { calls++; }
+
+    @Override
+    public void drawLayer(RenderLayer layer, int srcX, int srcY, int width, int height, int dstX, int dstY) { calls++; }
+
+    @Override
+    public void clearRect(int left, int top, int right, int bottom) { calls++; }
+
+    @Override
+    public void fadeLayer(RenderLayer layer, int alpha) { calls++; }
+
+    @Override
+    public void releaseLayer(RenderLayer layer) {
+        calls++;
+        layer.platformLayer = null;
+    }
+}
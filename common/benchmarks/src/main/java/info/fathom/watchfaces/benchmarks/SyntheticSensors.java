@@ -0,0 +1,37 @@
+package info.fathom.watchfaces.benchmarks;
+
+import java.util.Random;
+
+/**
+ * Stand-in for the accelerometer: a wrist slowly tilting back and forth plus some shake,
+ * run through the same low/high-pass split the watch faces use. Seeded, so every run
+ * feeds the simulations the same motion.
+ */
+class SyntheticSensors {
+
+    private static final float G = 9.81f;
+    private static final float ALPHA = 0.8f;  // low-pass factor, as in the faces
+    private static final float TILT_SPEED = 0.02f;  // radians per frame
+    private static final float SHAKE = 0.6f;  // m/s^2
+
+    final float[] gravity = new float[3];
+    final float[] linearAcceleration = new float[3];
+
+    private final Random random = new Random(42);
+    private float phase;
+
+    void next() {
+        phase += TILT_SPEED;
+        float rawX = G * (float) Math.sin(phase) + SHAKE * (float) random.nextGaussian();
+        float rawY = G * (float) Math.cos(0.7f * phase) + SHAKE * (float) random.nextGaussian();
+        float rawZ = G * 0.5f + SHAKE * (float) random.nextGaussian();
+
+        gravity[0] = ALPHA * gravity[0] + (1 - ALPHA) * rawX;
+        gravity[1] = ALPHA * gravity[1] + (1 - ALPHA) * rawY;
+        gravity[2] = ALPHA * gravity[2] + (1 - ALPHA) * rawZ;
+
+        linearAcceleration[0] = rawX - gravity[0];
+        linearAcceleration[1] = rawY - gravity[1];
+        linearAcceleration[2] = rawZ - gravity[2];
+    }
+}
@@ -0,0 +1,65 @@
+package info.fathom.watchfaces.simulation;
+
+/**
+ * The bits of android.graphics.Color the simulations use, colors are packed ARGB ints.
+ */
+public final class Colors {
+
+    public static final int BLACK = 0xFF000000;
+    public static final int GRAY  = 0xFF888888;
+    public static final int WHITE = 0xFFFFFFFF;
+
+    private Colors() {}
+
+    public static int argb(int alpha, int red, int green, int blue) {
+        return (alpha << 24) | (red << 16) | (green << 8) | blue;
+    }
+
+    public static int rgb(int red, int green, int blue) {
+        return argb(0xFF, red, green, blue);
+    }
+
+    public static int alpha(int color) {
+        return color >>> 24;
+    }
+
+    public static int red(int color) {
+        return (color >> 16) & 0xFF;
+    }
+
+    public static int green(int color) {
+        return (color >> 8) & 0xFF;
+    }
+
+    public static int blue(int color) {
+        return color & 0xFF;
+    }
+
+    // hue in [0...360), saturation and value in [0...1]
+    public static int HSVToColor(int alpha, float hue, float saturation, float value) {
+        float s = Math.max(0, Math.min(1, saturation));
+        float v = Math.max(0, Math.min(1, value));
+        int v255 = Math.round(v * 255);
+
+        if (s <= 0) {
+            return argb(alpha, v255, v255, v255);
+        }
+
+        float hx = (hue < 0 || hue >= 360) ? 0 : hue / 60;
+        int sector = (int) hx;
+        float f = hx - sector;
+        int p = Math.round(v * (1 - s) * 255);
+        int q = Math.round(v * (1 - s * f) * 255);
+        int t = Math.round(v * (1 - s * (1 - f)) * 255);
+
+        switch (sector) {
+            case 0:  return argb(alpha, v255, t, p);
+            case 1:  return argb(alpha, q, v255, p);
+            case 2:  return argb(alpha, p, v255, t);
+            case 3:  return argb(alpha, p, q, v255);
+            case 4:  return argb(alpha, t, p, v255);
+            default: return argb(alpha, v255, p, q);
+        }
+    }
+
+}
@@ -0,0 +1,106 @@
+package info.fathom.watchfaces.simulation;
+
+/**
+ * Times the phases of each drawn frame into one histogram per phase and mode.
+ * A phase may be lapped several times in a frame, e.g. building the text and then
+ * drawing it, the total goes in once endFrame() is called.
+ * <pre>
+ * long t = probes.start();
+ * board.advance(delta);
+ * t = probes.lap(FrameProbes.UPDATE, t);
+ * board.render(sink, false);
+ * probes.lap(FrameProbes.RENDER, t);
+ * probes.endFrame(false);
+ * </pre>
+ */
+public class FrameProbes {
+
+    public static final int UPDATE = 0;
+    public static final int RENDER = 1;
+    public static final int TEXT = 2;
+    static final int PHASE_COUNT = 3;
+    static final String[] PHASE_NAMES = { "update", "render", "text" };
+
+    public static final int INTERACTIVE = 0;
+    public static final int AMBIENT = 1;
+    static final int MODE_COUNT = 2;
+    static final String[] MODE_NAMES = { "interactive", "ambient" };
+
+    private final String name;
+    private final LogHistogram[][] histograms = new LogHistogram[MODE_COUNT][PHASE_COUNT];
+    private final long[] frameNanos = new long[PHASE_COUNT];
+    private final boolean[] frameLapped = new boolean[PHASE_COUNT];
+
+    public FrameProbes(String name_) {
+        name = name_;
+        for (int m = 0; m < MODE_COUNT; m++) {
+            for (int p = 0; p < PHASE_COUNT; p++) {
+                histograms[m][p] = new LogHistogram();
+            }
+        }
+    }
+
+    public long start() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Adds the time since the given start to the phase, returns now to start the next one.
+     */
+    public long lap(int phase, long since) {
+        long now = System.nanoTime();
+        frameNanos[phase] += now - since;
+        frameLapped[phase] = true;
+        return now;
+    }
+
+    public void endFrame(boolean ambient) {
+        LogHistogram[] mode = histograms[ambient ? AMBIENT : INTERACTIVE];
+        for (int p = 0; p < PHASE_COUNT; p++) {
+            if (frameLapped[p]) mode[p].record(frameNanos[p]);
+            frameNanos[p] = 0;
+            frameLapped[p] = false;
+        }
+    }
+
+    public LogHistogram getHistogram(int mode, int phase) {
+        return histograms[mode][phase];
+    }
+
+    /**
+     * Clears everything recorded, call at the start of a glance.
+     */
+    public void reset() {
+        for (int m = 0; m < MODE_COUNT; m++) {
+            for (int p = 0; p < PHASE_COUNT; p++) {
+                histograms[m][p].reset();
+            }
+        }
+    }
+
+    /**
+     * One line per phase and mode that recorded anything, times in microseconds.
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(name).append(" frame timings (us)");
+        for (int m = 0; m < MODE_COUNT; m++) {
+            for (int p = 0; p < PHASE_COUNT; p++) {
+                LogHistogram h = histograms[m][p];
+                if (h.getCount() == 0) continue;
+                sb.append('\n').append(MODE_NAMES[m]).append(' ').append(PHASE_NAMES[p])
+                        .append(": n=").append(h.getCount())
+                        .append(" mean=").append(micros(h.getMean()))
+                        .append(" p50=").append(micros(h.getPercentile(50)))
+                        .append(" p90=").append(micros(h.getPercentile(90)))
+                        .append(" p99=").append(micros(h.getPercentile(99)))
+                        .append(" max=").append(micros(h.getMax()));
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String micros(long nanos) {
+        return String.valueOf(Math.round(nanos / 100.0) / 10.0);
+    }
+}
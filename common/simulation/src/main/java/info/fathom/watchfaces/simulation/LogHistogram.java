@@ -0,0 +1,75 @@
+package info.fathom.watchfaces.simulation;
+
+/**
+ * Fixed-size histogram of durations in nanoseconds. Buckets double in width, with four
+ * linear sub-buckets each, so values keep ~25% resolution from 1ns to minutes without
+ * allocating when recording.
+ */
+public class LogHistogram {
+
+    static final int SUB_BUCKET_BITS = 2;
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS + SUB_BUCKETS;
+
+    private final long[] counts = new long[BUCKET_COUNT];
+    private long count;
+    private long total;
+    private long max;
+
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        counts[bucketOf(nanos)]++;
+        count++;
+        total += nanos;
+        if (nanos > max) max = nanos;
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) counts[i] = 0;
+        count = total = max = 0;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public long getMean() {
+        return count == 0 ? 0 : total / count;
+    }
+
+    /**
+     * Upper bound of the bucket holding the given percentile [0...100], 0 if empty.
+     */
+    public long getPercentile(double percentile) {
+        if (count == 0) return 0;
+        long rank = (long) Math.ceil(percentile / 100 * count);
+        if (rank < 1) rank = 1;
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts[i];
+            if (seen >= rank) return Math.min(upperBoundOf(i), max);
+        }
+        return max;
+    }
+
+    // Values below SUB_BUCKETS map one to one, above that the top bits pick the octave
+    // and the next SUB_BUCKET_BITS pick the slice within it
+    static int bucketOf(long nanos) {
+        if (nanos < SUB_BUCKETS) return (int) nanos;
+        int octave = 63 - Long.numberOfLeadingZeros(nanos);
+        int slice = (int) (nanos >>> (octave - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (octave - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + slice;
+    }
+
+    static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+        int octave = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long slice = bucket % SUB_BUCKETS;
+        long width = 1L << (octave - SUB_BUCKET_BITS);
+        return (1L << octave) + (slice + 1) * width - 1;
+    }
+}
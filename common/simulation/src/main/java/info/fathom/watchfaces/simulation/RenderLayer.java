@@ -0,0 +1,26 @@
+package info.fathom.watchfaces.simulation;
+
+/**
+ * A screen-sized offscreen buffer the simulation draws into once and composites every
+ * frame, see {@link RenderSink#beginLayer}. The simulation only holds on to it.
+ */
+public class RenderLayer {
+
+    public final int width, height;  // 0 for the size of the screen
+
+    public RenderLayer() {
+        this(0, 0);
+    }
+
+    /**
+     * A buffer of its own size, to hold sprites drawn in parts of it.
+     */
+    public RenderLayer(int width_, int height_) {
+        width = width_;
+        height = height_;
+    }
+
+    // Owned by the RenderSink, which keeps its platform bitmap for this layer here
+    public Object platformLayer;
+
+}
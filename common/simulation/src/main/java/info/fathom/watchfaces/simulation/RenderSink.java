@@ -0,0 +1,79 @@
+package info.fathom.watchfaces.simulation;
+
+/**
+ * The few drawing operations the simulations need, so they can run without android.graphics.
+ * Watch faces adapt this to a Canvas, benchmarks can plug in a sink that does nothing.
+ *
+ * Like a Canvas + Paint pair, the sink keeps a current color/style/shader that applies
+ * to every following draw call.
+ */
+public interface RenderSink {
+
+    void setColor(int argb);
+
+    void setAntiAlias(boolean antiAlias);
+
+    // Shapes are filled after this call (the default)
+    void setFillStyle();
+
+    // Shapes are outlined after this call, 0 draws hairlines
+    void setStrokeStyle(float strokeWidth);
+
+    // Overrides the color for fills until clearShader() is called
+    void setLinearGradient(float x0, float y0, float x1, float y1, int color0, int color1);
+
+    void clearShader();
+
+    // While set, fills keep the coverage of what they are drawn over: they only show where
+    // something was drawn before, which clips them to it without a clip path
+    void setAtop(boolean atop);
+
+    // While set, fills add their color to what they are drawn over instead of covering it,
+    // so shapes that abut, each anti-aliased on its side of the edge, add up to full
+    // coverage there instead of leaving a seam. Unsets setAtop() and the other way around
+    void setAdditive(boolean additive);
+
+    void drawPath(VectorPath path);
+
+    void drawCircle(float cx, float cy, float radius);
+
+    // Draws text horizontally and vertically centered on (cx, cy)
+    void drawText(String text, float cx, float cy, float textSize);
+
+    void save();
+
+    void restore();
+
+    void translate(float dx, float dy);
+
+    void scale(float sx, float sy);
+
+    void clipPath(VectorPath path);
+
+    // Sends the following draw calls into the layer until endLayer(), clearing it first if
+    // asked to. Returns false if what was drawn into it before is gone (first use, new
+    // screen size), in which case it's cleared and the caller must redraw all of it
+    boolean beginLayer(RenderLayer layer, boolean clear);
+
+    void endLayer();
+
+    // Composites the layer onto the screen, nothing if it was never drawn
+    void drawLayer(RenderLayer layer);
+
+    // Draws the width x height pixels of the layer at (srcX, srcY) with their top left
+    // corner at (dstX, dstY), for layers holding many sprites. Also into another layer
+    void drawLayer(RenderLayer layer, int srcX, int srcY, int width, int height, int dstX, int dstY);
+
+    // Erases to transparent, to draw part of a layer over again
+    void clearRect(int left, int top, int right, int bottom);
+
+    // Scales the alpha of everything drawn into the layer by alpha / 255, nothing if it
+    // was never drawn. Call it outside of beginLayer() / endLayer()
+    void fadeLayer(RenderLayer layer, int alpha);
+
+    // Frees the platform buffer behind the layer now instead of whenever the garbage
+    // collector gets to it, for layers the simulation is done with. Drawing into it again
+    // starts over with an empty one
+    void releaseLayer(RenderLayer layer);
+
+}
@@ -0,0 +1,45 @@
+package info.fathom.watchfaces.simulation;
+
+/**
+ * Turns real frame time into whole simulation steps. The simulations were tuned for
+ * one update() per frame at 30fps, so they keep that fixed step whatever the display
+ * rate is, and draw moving things interpolated between the last two steps.
+ */
+public class StepClock {
+
+    public static final long STEP_NANOS = 1000000000L / 30;
+    static final int MAX_STEPS = 4;  // catch up this much after a stall, drop the rest
+
+    private long accumulatedNanos;
+
+    /**
+     * Adds the time since the last frame and returns how many steps are due.
+     */
+    public int advance(long deltaNanos) {
+        accumulatedNanos += deltaNanos;
+        int steps = (int) Math.min(accumulatedNanos / STEP_NANOS, MAX_STEPS);
+        accumulatedNanos -= steps * STEP_NANOS;
+        if (steps == MAX_STEPS) accumulatedNanos %= STEP_NANOS;
+        return steps;
+    }
+
+    /**
+     * How far into the next step the clock is [0...1), to interpolate what is drawn
+     * between the last two steps.
+     */
+    public float getAlpha() {
+        return (float) accumulatedNanos / STEP_NANOS;
+    }
+
+    public void reset() {
+        accumulatedNanos = 0;
+    }
+
+    public static int toSteps(long millis) {
+        return (int) Math.min(millis * 1000000L / STEP_NANOS, Integer.MAX_VALUE);
+    }
+
+    public static long toMillis(int steps) {
+        return steps * STEP_NANOS / 1000000L;
+    }
+}
@@ -0,0 +1,135 @@
+package info.fathom.watchfaces.simulation;
+
+import java.util.Arrays;
+
+/**
+ * Platform independent path: a flat list of verbs and their coordinates, replayed by the
+ * RenderSink into whatever the platform uses. Every change bumps {@link #version}, so
+ * sinks can cache their converted path and only rebuild it when the geometry changed.
+ */
+public class VectorPath {
+
+    public static final int MOVE    = 0;  // x, y
+    public static final int LINE    = 1;  // x, y
+    public static final int QUAD    = 2;  // x1, y1, x2, y2
+    public static final int CLOSE   = 3;
+    public static final int CIRCLE  = 4;  // cx, cy, radius (clockwise)
+
+    private byte[] verbs;
+    private float[] coords;
+    private int verbCount, coordCount;
+    private boolean evenOdd;
+    private int version;
+
+    // Owned by the RenderSink, which keeps its converted copy of this path here
+    public Object platformPath;
+    public int platformVersion = -1;
+
+    public VectorPath() {
+        this(8, 16);
+    }
+
+    /**
+     * Sized up front, for paths rebuilt often enough that growing them would show.
+     */
+    public VectorPath(int verbCapacity, int coordCapacity) {
+        verbs = new byte[verbCapacity];
+        coords = new float[coordCapacity];
+    }
+
+    public void rewind() {
+        verbCount = 0;
+        coordCount = 0;
+        version++;
+    }
+
+    public void moveTo(float x, float y) {
+        addVerb(MOVE, 2);
+        coords[coordCount++] = x;
+        coords[coordCount++] = y;
+    }
+
+    public void lineTo(float x, float y) {
+        addVerb(LINE, 2);
+        coords[coordCount++] = x;
+        coords[coordCount++] = y;
+    }
+
+    public void quadTo(float x1, float y1, float x2, float y2) {
+        addVerb(QUAD, 4);
+        coords[coordCount++] = x1;
+        coords[coordCount++] = y1;
+        coords[coordCount++] = x2;
+        coords[coordCount++] = y2;
+    }
+
+    public void addCircle(float cx, float cy, float radius) {
+        addVerb(CIRCLE, 3);
+        coords[coordCount++] = cx;
+        coords[coordCount++] = cy;
+        coords[coordCount++] = radius;
+    }
+
+    public void close() {
+        addVerb(CLOSE, 0);
+    }
+
+    /**
+     * Appends the verbs of another path, to draw many shapes with a single call.
+     */
+    public void addPath(VectorPath path) {
+        if (verbCount + path.verbCount > verbs.length) {
+            verbs = Arrays.copyOf(verbs, Math.max(2 * verbs.length, verbCount + path.verbCount));
+        }
+        if (coordCount + path.coordCount > coords.length) {
+            coords = Arrays.copyOf(coords, Math.max(2 * coords.length, coordCount + path.coordCount));
+        }
+        System.arraycopy(path.verbs, 0, verbs, verbCount, path.verbCount);
+        System.arraycopy(path.coords, 0, coords, coordCount, path.coordCount);
+        verbCount += path.verbCount;
+        coordCount += path.coordCount;
+        version++;
+    }
+
+    public void setEvenOdd(boolean evenOdd_) {
+        evenOdd = evenOdd_;
+        version++;
+    }
+
+    public boolean isEvenOdd() {
+        return evenOdd;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public int getVerbCount() {
+        return verbCount;
+    }
+
+    public int getVerb(int index) {
+        return verbs[index];
+    }
+
+    // Coordinates of all verbs in order, only the first getCoordCount() are valid
+    public float[] getCoords() {
+        return coords;
+    }
+
+    public int getCoordCount() {
+        return coordCount;
+    }
+
+    private void addVerb(int verb, int coordsNeeded) {
+        if (verbCount == verbs.length) {
+            verbs = Arrays.copyOf(verbs, 2 * verbs.length);
+        }
+        if (coordCount + coordsNeeded > coords.length) {
+            coords = Arrays.copyOf(coords, Math.max(2 * coords.length, coordCount + coordsNeeded));
+        }
+        verbs[verbCount++] = (byte) verb;
+        version++;
+    }
+
+}
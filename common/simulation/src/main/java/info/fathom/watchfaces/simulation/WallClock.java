@@ -0,0 +1,186 @@
+package info.fathom.watchfaces.simulation;
+
+import java.util.TimeZone;
+
+/**
+ * Calendar fields for the current local time, cheap enough to refresh every frame.
+ * The fields are derived from epoch millis and a cached time zone offset, and only
+ * recomputed once the current minute is over or the time zone changes. The overnight
+ * reset is a precomputed deadline, override onReset() to act on it.
+ */
+public class WallClock {
+
+    public interface TimeSource {
+        long currentTimeMillis();
+    }
+
+    public static final TimeSource SYSTEM = new TimeSource() {
+        @Override
+        public long currentTimeMillis() {
+            return System.currentTimeMillis();
+        }
+    };
+
+    /**
+     * Only moves when told to, for faked debug times and for benchmarks.
+     */
+    public static class ManualTimeSource implements TimeSource {
+        private long millis;
+
+        public ManualTimeSource(long millis_) {
+            millis = millis_;
+        }
+
+        @Override
+        public long currentTimeMillis() {
+            return millis;
+        }
+
+        public void set(long millis_) {
+            millis = millis_;
+        }
+
+        public void advance(long millis_) {
+            millis += millis_;
+        }
+    }
+
+    static final long SECOND_IN_MILLIS = 1000;
+    static final long MINUTE_IN_MILLIS = 60 * SECOND_IN_MILLIS;
+    static final long HOUR_IN_MILLIS = 60 * MINUTE_IN_MILLIS;
+    static final long DAY_IN_MILLIS = 24 * HOUR_IN_MILLIS;
+
+    public int year, month, monthDay, hour, minute, second;  // month is 0-based, like Time
+
+    private final TimeSource source;
+    private TimeZone timeZone;
+    private long millis;
+    private long minuteStart, minuteEnd;  // the UTC range the fields are valid for
+
+    private int resetHour = -1;
+    private long resetDeadline = Long.MAX_VALUE;
+
+    public WallClock() {
+        this(SYSTEM, TimeZone.getDefault());
+    }
+
+    public WallClock(TimeSource source_, TimeZone timeZone_) {
+        source = source_;
+        timeZone = timeZone_;
+        computeFields(source.currentTimeMillis());
+    }
+
+    public void setToNow() {
+        long now = source.currentTimeMillis();
+        if (now >= minuteEnd || now < minuteStart) {
+            computeFields(now);
+        } else {
+            millis = now;
+            second = (int) ((now - minuteStart) / SECOND_IN_MILLIS);
+        }
+
+        if (now >= resetDeadline) {
+            resetDeadline = computeResetDeadline(now);
+            onReset();
+        }
+    }
+
+    /**
+     * Call on ACTION_TIMEZONE_CHANGED.
+     */
+    public void setTimeZone(TimeZone timeZone_) {
+        timeZone = timeZone_;
+        computeFields(source.currentTimeMillis());
+        if (resetHour >= 0) resetDeadline = computeResetDeadline(millis);
+    }
+
+    public void setOvernightResetHour(int hour_) {
+        resetHour = hour_;
+        resetDeadline = computeResetDeadline(source.currentTimeMillis());
+    }
+
+    public void onReset() {}
+
+    public long toMillis() {
+        return millis;
+    }
+
+    public long getResetDeadline() {
+        return resetDeadline;
+    }
+
+    public TimeSource getTimeSource() {
+        return source;
+    }
+
+    /**
+     * Epoch millis of a local time in the current zone, month is 0-based.
+     */
+    public long toMillis(int year_, int month_, int monthDay_, int hour_, int minute_, int second_) {
+        long local = daysFromCivil(year_, month_ + 1, monthDay_) * DAY_IN_MILLIS +
+                hour_ * HOUR_IN_MILLIS + minute_ * MINUTE_IN_MILLIS + second_ * SECOND_IN_MILLIS;
+        return toUtc(local);
+    }
+
+    private void computeFields(long now) {
+        millis = now;
+        long local = now + timeZone.getOffset(now);
+        long days = floorDiv(local, DAY_IN_MILLIS);
+        long millisOfDay = local - days * DAY_IN_MILLIS;
+
+        civilFromDays(days);
+        hour = (int) (millisOfDay / HOUR_IN_MILLIS);
+        minute = (int) (millisOfDay / MINUTE_IN_MILLIS % 60);
+        second = (int) (millisOfDay / SECOND_IN_MILLIS % 60);
+
+        minuteStart = now - millisOfDay % MINUTE_IN_MILLIS;
+        minuteEnd = minuteStart + MINUTE_IN_MILLIS;
+    }
+
+    // Next time the local clock reads resetHour:00, strictly after now
+    private long computeResetDeadline(long now) {
+        if (resetHour < 0) return Long.MAX_VALUE;
+        long local = now + timeZone.getOffset(now);
+        long deadline = local - floorMod(local, DAY_IN_MILLIS) + resetHour * HOUR_IN_MILLIS;
+        if (deadline <= local) deadline += DAY_IN_MILLIS;
+        return toUtc(deadline);
+    }
+
+    private long toUtc(long local) {
+        // The offset at the local time itself, so deadlines across DST changes land right
+        long guess = local - timeZone.getOffset(local);
+        return local - timeZone.getOffset(guess);
+    }
+
+    // Howard Hinnant's days <-> civil date algorithms, proleptic Gregorian, day 0 = 1970-01-01
+    private void civilFromDays(long days) {
+        long z = days + 719468;
+        long era = (z >= 0 ? z : z - 146096) / 146097;
+        long doe = z - era * 146097;
+        long yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+        long doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        long mp = (5 * doy + 2) / 153;
+        int m = (int) (mp < 10 ? mp + 3 : mp - 9);
+        year = (int) (yoe + era * 400 + (m <= 2 ? 1 : 0));
+        month = m - 1;
+        monthDay = (int) (doy - (153 * mp + 2) / 5 + 1);
+    }
+
+    static long daysFromCivil(int y, int m, int d) {
+        y -= m <= 2 ? 1 : 0;
+        long era = (y >= 0 ? y : y - 399) / 400;
+        long yoe = y - era * 400;
+        long doy = (153 * (m > 2 ? m - 3 : m + 9) + 2) / 5 + d - 1;
+        long doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return era * 146097 + doe - 719468;
+    }
+
+    private static long floorDiv(long x, long y) {
+        long q = x / y;
+        return (x % y != 0 && ((x ^ y) < 0)) ? q - 1 : q;
+    }
+
+    private static long floorMod(long x, long y) {
+        return x - floorDiv(x, y) * y;
+    }
+}
@@ -0,0 +1,225 @@
+package info.fathom.watchfaces.simulation.coubertin;
+
+import info.fathom.watchfaces.simulation.Colors;
+import info.fathom.watchfaces.simulation.RenderSink;
+import info.fathom.watchfaces.simulation.VectorPath;
+
+class Bubble {
+
+    private static final float TAU = (float) (2 * Math.PI);
+
+    private static final boolean BOUNCE_FROM_BORDER     = true;
+    private static final boolean DEPTH_BOUNCING         = true;
+
+    private static final float FRICTION_IN_PLANE        = 0.99f; // 0 - 1, 0 is total friction
+    private static final float FRICTION_DEPTH           = 0.95f; // 0 - 1, 0 is total friction
+    private static final float PLANE_ACCEL_FACTOR       = 0.25f; // when level, how much shake?
+    private static final float GRAVITY_FACTOR           = 0.80f; // how much does gravity weight in global forces
+    private static final float ANCHOR_SPRING_FACTOR     = 0.02f; // how much spring from lock position
+    private static final float DEPTH_ACCEL_FACTOR       = 0.40f;
+    private static final float DEPTH_SPRING_FACTOR      = 0.10f;
+    private static final float RANDOM_WEIGHT_FACTOR     = 0.75f; // how much variation between balls in the same category
+    private static final float TEXT_HEIGHT_FACTOR       = 0.20f; // as a factor of bubble radius
+    private static final float INNER_RING_OFFSET_FACTOR = 0.10f;
+    private static final float REST_VELOCITY            = 0.05f; // px per frame
+    private static final float REST_ACCELERATION        = 0.01f; // px per frame^2, so springs at their turning point don't count
+
+    BubbleCollection parent;
+    BubbleManager manager;
+
+    int value;
+    String valueStr;
+    float anchorX, anchorY;
+    float x, y;
+    float prevX, prevY, prevRadius;  // before the last update, to interpolate rendering
+    float gapAngle;
+    float velX, velY;
+
+    float accX, accY;
+    float screenW, relRadius;
+    float radius, weight, innerRingFactor;
+    float velR, accR;
+
+    boolean needsSizeUpdate = false;
+    float currentRadius = 0;
+    float targetRadius = 0;
+
+    boolean mustDie = false;
+    boolean isFeatured = false;
+    int featuredGlanceDuration;  // for how many glances is this bubble featured?
+
+    VectorPath path;
+
+    Bubble(BubbleCollection parent_, int value_, float radius_, float weight_,
+           float innerRingFactor_, boolean isFeatured_, int glanceDuration_) {
+        value = value_;
+        parent = parent_;
+        manager = parent.parent;
+        anchorX = (float) (manager.width * Math.random());
+        anchorY = (float) (manager.height * Math.random());
+        x = prevX = manager.centerX;
+        y = prevY = manager.centerY;
+        screenW = manager.width;  // this may have been initialized already, or be zero...
+        relRadius = radius_;
+        radius = screenW * relRadius;
+        weight = weight_ + (float) (weight_ * RANDOM_WEIGHT_FACTOR * Math.random());  // slight random weight variation
+        innerRingFactor = innerRingFactor_;
+        velX = velY = accX = accY = 0;
+        velR = accR = 0;
+
+        gapAngle = TAU * (float) Math.random();
+
+        isFeatured = isFeatured_;
+        if (isFeatured) {
+            valueStr = manager.stepFormatter.format(value);  // only featured bubbles show their value
+            manager.toDefeatureBuffer.add(this);
+        }
+        featuredGlanceDuration = glanceDuration_;
+
+        path = new VectorPath();
+        path.addCircle(0, 0, 1.0f);
+        path.close();
+        path.addCircle(INNER_RING_OFFSET_FACTOR * (float) Math.cos(gapAngle),
+                INNER_RING_OFFSET_FACTOR * (float) Math.sin(gapAngle),
+                innerRingFactor);
+        path.close();
+        path.setEvenOdd(true);
+    }
+
+    public void render(RenderSink sink, int color, float alpha) {
+        float rx = prevX + alpha * (x - prevX);
+        float ry = prevY + alpha * (y - prevY);
+        float rr = prevRadius + alpha * (currentRadius - prevRadius);
+
+        sink.setColor(color);
+        sink.save();
+        sink.translate(rx, ry);
+        sink.scale(rr, rr);
+        if (isFeatured) sink.drawCircle(0, 0, 1.0f);
+        sink.drawPath(path);
+        sink.restore();
+
+        // Doing this outside the transform to avoid weirdness with tiny heighted text
+        if (isFeatured) {
+            sink.setColor(Colors.WHITE);
+            sink.drawText(valueStr, rx, ry, 2 * TEXT_HEIGHT_FACTOR * rr);  // bubble size might be animated
+        }
+    }
+
+    // Uses whatever style the manager set up for ambient
+    public void renderAmbient(RenderSink sink) {
+        sink.save();
+        sink.translate(x, y);
+        sink.scale(currentRadius, currentRadius);
+        sink.drawPath(path);
+        sink.restore();
+    }
+
+    void savePosition() {
+        prevX = x;
+        prevY = y;
+        prevRadius = currentRadius;
+    }
+
+    boolean isAtRest() {
+        return !needsSizeUpdate &&
+                Math.abs(velX) < REST_VELOCITY && Math.abs(velY) < REST_VELOCITY &&
+                Math.abs(accX) < REST_ACCELERATION && Math.abs(accY) < REST_ACCELERATION &&
+                Math.abs(velR) < REST_VELOCITY && Math.abs(accR) < REST_ACCELERATION;
+    }
+
+    public boolean updateSize() {
+        currentRadius += (targetRadius - currentRadius) * BubbleManager.ANIMATION_RATE;
+        if (Math.abs(targetRadius - currentRadius) < 1) {
+            needsSizeUpdate = false;
+            if (mustDie) {
+                parent.killQueue.add(this);
+            }
+        }
+        return needsSizeUpdate;
+    }
+
+    public void updatePosition() {
+        float[] gravity = manager.gravity;
+        float[] linearAcceleration = manager.linearAcceleration;
+        int width = manager.width;
+        int height = manager.height;
+
+        accX = (PLANE_ACCEL_FACTOR * -linearAcceleration[0] * linearAcceleration[0]
+                - GRAVITY_FACTOR * gravity[0] + ANCHOR_SPRING_FACTOR * (anchorX - x)) / weight;
+        accY = (PLANE_ACCEL_FACTOR *  linearAcceleration[1] * linearAcceleration[1]
+                + GRAVITY_FACTOR * gravity[1] + ANCHOR_SPRING_FACTOR * (anchorY - y)) / weight;
+
+        velX += accX;
+        velY += accY;
+        velX *= FRICTION_IN_PLANE;
+        velY *= FRICTION_IN_PLANE;
+        x += velX;
+        y += velY;
+
+        if (DEPTH_BOUNCING && !needsSizeUpdate) {
+            accR = (DEPTH_ACCEL_FACTOR * linearAcceleration[2] + DEPTH_SPRING_FACTOR * (radius - currentRadius)) / 3;  // Z movement is equally weighted
+            velR += accR;
+            velR *= FRICTION_DEPTH;
+            currentRadius += velR;
+        }
+
+        if (BOUNCE_FROM_BORDER) {
+            if (x + radius > width) {
+                x = 2 * width - 2 * radius - x;
+                velX *= -1;
+            } else if (x < radius) {
+                x = 2 * radius - x;
+                velX *= -1;
+            }
+
+            if (y + radius > height) {
+                y = 2 * height - 2 * radius - y;
+                velY *= -1;
+            } else if (y < radius) {
+                y = 2 * radius - y;
+                velY *= -1;
+            }
+
+        } else {
+            if (x > width) {
+                x = width - (x - width);
+                velX *= -1;
+            } else if (x < 0) {
+                x = -x;
+                velX *= -1;
+            }
+
+            if (y > height) {
+                y = height - (y - height);
+                velY *= -1;
+            } else if (y < 0) {
+                y = -y;
+                velY *= -1;
+            }
+        }
+    }
+
+    public void grow() {
+        targetRadius = radius;
+        needsSizeUpdate = true;
+    }
+
+    public void kill() {
+        targetRadius = 0;
+        anchorX = manager.centerX;
+        anchorY = manager.centerY;
+        mustDie = true;
+        needsSizeUpdate = true;
+    }
+
+    public void resetMotion() {
+        velX = velY = accX = accY = velR = accR = 0;
+    }
+
+    public void setScreenWidth(float width_) {
+        screenW = width_;
+        radius = screenW * relRadius;
+        grow();
+    }
+}
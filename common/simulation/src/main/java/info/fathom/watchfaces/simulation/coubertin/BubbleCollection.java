@@ -0,0 +1,179 @@
+package info.fathom.watchfaces.simulation.coubertin;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import info.fathom.watchfaces.simulation.Colors;
+import info.fathom.watchfaces.simulation.RenderSink;
+
+class BubbleCollection {
+    private static final float COLOR_INTERPOLATION_RATE = 0.15f;
+
+    BubbleManager parent;
+    List<Bubble> bubbles;
+    List<Bubble> killQueue;
+    int liveCount;  // bubbles on screen that are not shrinking away
+    int stepSize;
+    float radius;
+    float weight;
+    float innerRingFactor;
+    boolean needsUpdate;
+    boolean isEmpty;
+
+    int color;
+    boolean animatedColor;
+    int currentColor, targetColor;
+
+    BubbleCollection(BubbleManager parent_, int stepSize_, float radius_, float weight_,
+                     int color_, float innerRingFactor_, boolean animatedColor_) {
+        stepSize = stepSize_;
+        parent = parent_;
+        radius = radius_;
+        weight = weight_;
+        innerRingFactor = innerRingFactor_;
+        bubbles = new ArrayList<>();
+        killQueue = new ArrayList<>();
+        isEmpty = true;
+
+        color = color_;
+        animatedColor = animatedColor_;
+        currentColor = color;
+        targetColor = color;
+    }
+
+    public void render(RenderSink sink, float alpha) {
+        // Indexed loops here, an iterator per frame is garbage on the watch
+        for (int i = 0; i < bubbles.size(); i++) {
+            bubbles.get(i).render(sink, currentColor, alpha);
+        }
+    }
+
+    void savePositions() {
+        for (int i = 0; i < bubbles.size(); i++) {
+            bubbles.get(i).savePosition();
+        }
+    }
+
+    public boolean update() {
+        needsUpdate = false;
+        for (int i = 0; i < bubbles.size(); i++) {
+            Bubble bub = bubbles.get(i);
+            if (bub.needsSizeUpdate) needsUpdate |= bub.updateSize();
+        }
+
+        // Must kill remainder objects in independent loop to about iterator errors
+        for (int i = killQueue.size() - 1; i >= 0; i--) {
+            bubbles.remove(killQueue.get(i));
+        }
+        killQueue.clear();
+        isEmpty = bubbles.size() == 0;
+
+        return needsUpdate;
+    }
+
+    boolean isSettled() {
+        for (int i = 0; i < bubbles.size(); i++) {
+            if (!bubbles.get(i).isAtRest()) return false;
+        }
+        return true;
+    }
+
+    public void updatePositions() {
+        if (animatedColor && !isEmpty) {
+            int prevColor = currentColor;
+            currentColor = interpolateColor(currentColor, targetColor, COLOR_INTERPOLATION_RATE);
+            if (currentColor == prevColor) {
+                targetColor = BubbleManager.GROUP_COLORS[(int) ((BubbleManager.GROUP_COUNT - 1) * Math.random())];  // avoid using the smallest bubble's color
+            }
+        }
+        for (int i = 0; i < bubbles.size(); i++) {
+            bubbles.get(i).updatePosition();
+        }
+    }
+
+    // Grows or retires bubbles until liveCount matches the target
+    void setCount(int count_, boolean shouldFeature, boolean showSplashScreen) {
+        add(count_ - liveCount, shouldFeature, showSplashScreen, 0);
+    }
+
+    private void add(int count_, boolean shouldFeature, boolean showSplashScreen, int glanceDuration_) {
+        if (count_ < 0) {
+            remove(-count_);
+            return;
+        }
+
+        for (int i = 0; i < count_; i++) {
+            int newVal = ++liveCount * stepSize;
+            Bubble b = new Bubble(this, newVal, radius, weight, innerRingFactor,
+                    shouldFeature && i == count_ - 1, glanceDuration_);  // @JAMES: Only the last bubble in the group gets featured
+            b.grow();
+            bubbles.add(b);
+            isEmpty = false;
+        }
+
+        if (showSplashScreen) {
+            parent.triggerMilestone(stepSize, color);
+        }
+    }
+
+    // Retires the newest live bubbles, so remaining values still read 1...liveCount
+    private void remove(int count_) {
+        for (int i = bubbles.size() - 1; i >= 0 && count_ > 0; i--) {
+            Bubble b = bubbles.get(i);
+            if (b.mustDie) continue;
+            b.kill();
+            liveCount--;
+            count_--;
+        }
+        isEmpty = bubbles.size() == 0;
+    }
+
+    Bubble getLatest() {
+        for (int i = bubbles.size() - 1; i >= 0; i--) {
+            if (!bubbles.get(i).mustDie) return bubbles.get(i);
+        }
+        return null;
+    }
+
+    void clear() {
+        bubbles.clear();
+        killQueue.clear();
+        liveCount = 0;
+        isEmpty = true;
+    }
+
+    void resetMotion() {
+        for (Bubble bub : bubbles) {
+            bub.resetMotion();
+        }
+    }
+
+    public void setScreenWidth(float width_) {
+        for (Bubble bub : bubbles) {
+            bub.setScreenWidth(width_);
+        }
+    }
+
+    public void reset() {
+        remove(liveCount);
+    }
+
+    private int interpolateColor(int sourceColor, int targetColor, float parameter) {
+        int sA = (sourceColor >> 24) & 0xFF;
+        int sR = (sourceColor >> 16) & 0xFF;
+        int sG = (sourceColor >> 8) & 0xFF;
+        int sB = (sourceColor) & 0xFF;
+
+        int tA = (targetColor >> 24) & 0xFF;
+        int tR = (targetColor >> 16) & 0xFF;
+        int tG = (targetColor >> 8) & 0xFF;
+        int tB = (targetColor) & 0xFF;
+
+        int currA = sA + Math.round(parameter * (tA - sA));
+        int currR = sR + Math.round(parameter * (tR - sR));
+        int currG = sG + Math.round(parameter * (tG - sG));
+        int currB = sB + Math.round(parameter * (tB - sB));
+
+        return Colors.argb(currA, currR, currG, currB);
+    }
+}
@@ -0,0 +1,337 @@
+package info.fathom.watchfaces.simulation.coubertin;
+
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.List;
+
+import info.fathom.watchfaces.simulation.Colors;
+import info.fathom.watchfaces.simulation.RenderSink;
+import info.fathom.watchfaces.simulation.StepClock;
+
+/**
+ * Coubertin: the day's step count as nested tiers of bubbles floating around the screen,
+ * pushed by gravity and shaken by linear acceleration.
+ */
+public class BubbleManager {
+
+    /**
+     * Notified when the step count crosses a BIG, MBIG or XBIG bubble milestone.
+     */
+    public interface MilestoneListener {
+        void onMilestone(int steps, int color);
+    }
+
+    final static float ANIMATION_RATE   = 0.25f;
+
+    private final static boolean SHOW_BUBBLE_VALUE_TAGS = false;
+
+    private final static int STEP_RATIO_XBIG    = 10000;
+    private final static int STEP_RATIO_MBIG    = 5000;
+    private final static int STEP_RATIO_BIG     = 1000;     // a BIG bubble represents this many steps
+    private final static int STEP_RATIO_MEDIUM  = 100;
+    private final static int STEP_RATIO_SMALL   = 10;
+    private final static int STEP_RATIO_XSMALL  = 1;
+
+    // Radii as a factor of screen width
+    private final static float RADIUS_XBIG    = 0.37500f;
+    private final static float RADIUS_MBIG    = 0.25000f;
+    private final static float RADIUS_BIG     = 0.12500f;
+    private final static float RADIUS_MEDIUM  = 0.06250f;
+    private final static float RADIUS_SMALL   = 0.03125f;
+    private final static float RADIUS_XSMALL  = 0.01562f;
+
+    private final static float WEIGHT_XBIG      = 2;
+    private final static float WEIGHT_MBIG      = 2;
+    private final static float WEIGHT_BIG       = 2;
+    private final static float WEIGHT_MEDIUM    = 3;
+    private final static float WEIGHT_SMALL     = 3;
+    private final static float WEIGHT_XSMALL    = 3;
+
+    public final static int[] GROUP_COLORS = {
+            Colors.argb(204, 255, 255, 0),  // XBIG
+            Colors.argb(204, 237, 41, 122),  // MBIG
+            Colors.argb(204, 140, 199, 64),  // BIG
+            Colors.argb(204, 0, 173, 240),  // MEDIUM
+            Colors.argb(204, 242, 102, 33),  // SMALL
+            Colors.argb(204, 128, 130, 133)   // XSMALL
+    };
+
+    public final static int GROUP_COUNT = GROUP_COLORS.length;
+
+    private final static float INNER_RING_RADIUS_FACTOR_XBIG   = 0.82f;
+    private final static float INNER_RING_RADIUS_FACTOR_MBIG   = 0.80f;
+    private final static float INNER_RING_RADIUS_FACTOR_BIG    = 0.78f;
+    private final static float INNER_RING_RADIUS_FACTOR_MEDIUM = 0.75f;
+    private final static float INNER_RING_RADIUS_FACTOR_SMALL  = 0.70f;
+    private final static float INNER_RING_RADIUS_FACTOR_XSMALL = 0.65f;
+
+    // Sensor changes smaller than this don't get settled bubbles moving noticeably
+    private final static float WAKE_GRAVITY_DELTA = 0.05f;          // m/s^2, shifts rest positions ~2px
+    private final static float WAKE_LINEAR_ACCELERATION = 0.10f;    // m/s^2
+
+
+    private BubbleCollection bubblesXBig, bubblesBig, bubblesMBig,
+            bubblesMedium, bubblesSmall, bubblesXSmall;
+
+    private Bubble lastBubble;  // last created bubble with the greatest value
+
+    private int prevSteps, currentSteps;
+    private int updateKeyframe;  // 1 = decompose the new step count, 2 = animate sizes, 0 = idle
+
+    int width, height;
+    float centerX, centerY;
+    float[] gravity = new float[3];
+    float[] linearAcceleration = new float[3];
+
+    float settledGravityX, settledGravityY;  // gravity when the bubbles came to rest
+    StepClock clock = new StepClock();
+
+    MilestoneListener milestoneListener;
+    DecimalFormat stepFormatter = new DecimalFormat("##,###");
+
+    List<Bubble> toDefeatureBuffer = new ArrayList<>();
+
+    public BubbleManager() {
+        bubblesXBig = new BubbleCollection(this, STEP_RATIO_XBIG, RADIUS_XBIG,
+                WEIGHT_XBIG, GROUP_COLORS[0], INNER_RING_RADIUS_FACTOR_XBIG, true);
+        bubblesMBig = new BubbleCollection(this, STEP_RATIO_MBIG, RADIUS_MBIG,
+                WEIGHT_MBIG, GROUP_COLORS[1], INNER_RING_RADIUS_FACTOR_MBIG, false);
+        bubblesBig = new BubbleCollection(this, STEP_RATIO_BIG, RADIUS_BIG,
+                WEIGHT_BIG, GROUP_COLORS[2], INNER_RING_RADIUS_FACTOR_BIG, false);
+        bubblesMedium = new BubbleCollection(this, STEP_RATIO_MEDIUM, RADIUS_MEDIUM,
+                WEIGHT_MEDIUM, GROUP_COLORS[3], INNER_RING_RADIUS_FACTOR_MEDIUM, false);
+        bubblesSmall = new BubbleCollection(this, STEP_RATIO_SMALL, RADIUS_SMALL,
+                WEIGHT_SMALL, GROUP_COLORS[4], INNER_RING_RADIUS_FACTOR_SMALL, false);
+        bubblesXSmall = new BubbleCollection(this, STEP_RATIO_XSMALL, RADIUS_XSMALL,
+                WEIGHT_XSMALL, GROUP_COLORS[5], INNER_RING_RADIUS_FACTOR_XSMALL, false);
+
+        prevSteps = 0;
+        currentSteps = 0;
+
+        updateKeyframe = 0;  // do not update
+    }
+
+    public void setMilestoneListener(MilestoneListener listener_) {
+        milestoneListener = listener_;
+    }
+
+    /**
+     * The arrays are kept by reference, the sensor listener can keep writing into them.
+     */
+    public void setSensorValues(float[] gravity_, float[] linearAcceleration_) {
+        gravity = gravity_;
+        linearAcceleration = linearAcceleration_;
+    }
+
+    public void setScreenSize(int width_, int height_) {
+        width = width_;
+        height = height_;
+        centerX = width / 2f;
+        centerY = height / 2f;
+
+        bubblesXBig.setScreenWidth(width);
+        bubblesMBig.setScreenWidth(width);
+        bubblesBig.setScreenWidth(width);
+        bubblesMedium.setScreenWidth(width);
+        bubblesSmall.setScreenWidth(width);
+        bubblesXSmall.setScreenWidth(width);
+    }
+
+    public void render(RenderSink sink) {
+        sink.setAntiAlias(true);
+        sink.setFillStyle();
+        float alpha = clock.getAlpha();
+        bubblesXSmall.render(sink, alpha);
+        bubblesSmall.render(sink, alpha);
+        bubblesMedium.render(sink, alpha);
+        bubblesBig.render(sink, alpha);
+        bubblesMBig.render(sink, alpha);
+        bubblesXBig.render(sink, alpha);
+    }
+
+    public void renderAmbient(RenderSink sink) {
+        if (lastBubble == null) return;
+
+        sink.setAntiAlias(false);
+        sink.setStrokeStyle(0);
+        sink.setColor(Colors.WHITE);
+        lastBubble.renderAmbient(sink);
+    }
+
+    /**
+     * True when no bubble is growing, shrinking or moving.
+     */
+    public boolean isSettled() {
+        return updateKeyframe == 0 &&
+                bubblesXBig.isSettled() &&
+                bubblesMBig.isSettled() &&
+                bubblesBig.isSettled() &&
+                bubblesMedium.isSettled() &&
+                bubblesSmall.isSettled() &&
+                bubblesXSmall.isSettled();
+    }
+
+    /**
+     * True if the sensors changed enough since the bubbles settled to move them again.
+     * The gravity they settled under is the one of the last update() that left them settled.
+     */
+    public boolean isDisturbed() {
+        return Math.abs(gravity[0] - settledGravityX) > WAKE_GRAVITY_DELTA ||
+                Math.abs(gravity[1] - settledGravityY) > WAKE_GRAVITY_DELTA ||
+                Math.abs(linearAcceleration[0]) > WAKE_LINEAR_ACCELERATION ||
+                Math.abs(linearAcceleration[1]) > WAKE_LINEAR_ACCELERATION ||
+                Math.abs(linearAcceleration[2]) > WAKE_LINEAR_ACCELERATION;
+    }
+
+    /**
+     * Runs as many update() steps as are due after deltaNanos of real time.
+     */
+    public void advance(long deltaNanos) {
+        for (int steps = clock.advance(deltaNanos); steps > 0; steps--) {
+            update();
+        }
+    }
+
+    public void update() {
+        bubblesXBig.savePositions();
+        bubblesMBig.savePositions();
+        bubblesBig.savePositions();
+        bubblesMedium.savePositions();
+        bubblesSmall.savePositions();
+        bubblesXSmall.savePositions();
+
+        switch (updateKeyframe) {
+            // Grow or retire whatever changed between the on-screen and target tiers
+            case 1:
+                decomposeSteps();
+                updateKeyframe++;
+                break;
+            case 2:
+                // Non short-circuit or, all tiers must animate on the same frame
+                boolean continueUpdating =
+                        bubblesXBig.update() |
+                        bubblesMBig.update() |
+                        bubblesBig.update() |
+                        bubblesMedium.update() |
+                        bubblesSmall.update() |
+                        bubblesXSmall.update();
+                if (!continueUpdating) updateKeyframe = 0;  // stop animation transition
+                break;
+
+            default:
+                break;
+        }
+
+        updatePositions();
+
+        if (isSettled()) {
+            settledGravityX = gravity[0];
+            settledGravityY = gravity[1];
+        }
+    }
+
+    /**
+     * Computes how many bubbles each tier should hold straight from currentSteps
+     * (largest tier first, the remainder trickles down), and only creates or retires
+     * the difference with what is on screen. A big catch-up of steps after a long
+     * screen-off costs the same as a single new ring, instead of spawning one small
+     * bubble per ten steps and cascading them up over several keyframes.
+     */
+    private void decomposeSteps() {
+        int xBigCount   =  currentSteps / STEP_RATIO_XBIG;
+        int mBigCount   = (currentSteps % STEP_RATIO_XBIG)   / STEP_RATIO_MBIG;
+        int bigCount    = (currentSteps % STEP_RATIO_MBIG)   / STEP_RATIO_BIG;
+        int mediumCount = (currentSteps % STEP_RATIO_BIG)    / STEP_RATIO_MEDIUM;
+        int smallCount  = (currentSteps % STEP_RATIO_MEDIUM) / STEP_RATIO_SMALL;
+        int xSmallCount = (currentSteps % STEP_RATIO_SMALL)  / STEP_RATIO_XSMALL;
+
+        // Smaller tiers first, so the biggest milestone crossed gets the last word on the splash screen
+        bubblesXSmall.setCount(xSmallCount, false, false);
+        bubblesSmall.setCount(smallCount, false, false);
+        bubblesMedium.setCount(mediumCount, false, false);
+        bubblesBig.setCount(bigCount, SHOW_BUBBLE_VALUE_TAGS,
+                crossedMilestone(STEP_RATIO_BIG));
+        bubblesMBig.setCount(mBigCount, SHOW_BUBBLE_VALUE_TAGS,
+                crossedMilestone(STEP_RATIO_MBIG));
+        bubblesXBig.setCount(xBigCount, SHOW_BUBBLE_VALUE_TAGS,
+                crossedMilestone(STEP_RATIO_XBIG) ||  // 10k
+                crossedMilestone(2 * STEP_RATIO_XBIG));  // 20k
+    }
+
+    private boolean crossedMilestone(int steps) {
+        return prevSteps < steps && currentSteps >= steps;
+    }
+
+    public void updateSteps(int currentSteps_) {
+        prevSteps = currentSteps;
+        currentSteps = currentSteps_;
+        updateKeyframe = 1;  // trigger size update chain
+    }
+
+    public void updatePositions() {
+        bubblesXBig.updatePositions();
+        bubblesMBig.updatePositions();
+        bubblesBig.updatePositions();
+        bubblesMedium.updatePositions();
+        bubblesSmall.updatePositions();
+        bubblesXSmall.updatePositions();
+    }
+
+    public void resetMotion() {
+        bubblesXBig.resetMotion();
+        bubblesMBig.resetMotion();
+        bubblesBig.resetMotion();
+        bubblesMedium.resetMotion();
+        bubblesSmall.resetMotion();
+        bubblesXSmall.resetMotion();
+    }
+
+    public void newGlance() {
+    }
+
+    public void byeGlance() {
+        for (Bubble bubble : toDefeatureBuffer) {
+            if (--bubble.featuredGlanceDuration <= 0) {
+                bubble.isFeatured = false;
+            }
+        }
+        for (int i = toDefeatureBuffer.size() - 1; i >= 0; i--) {
+            if (!toDefeatureBuffer.get(i).isFeatured) toDefeatureBuffer.remove(i);
+        }
+    }
+
+    public void updateLatestBubble() {
+        lastBubble = getLatestBubble();
+    }
+
+    private Bubble getLatestBubble() {
+        if (bubblesXBig.liveCount != 0) return bubblesXBig.getLatest();
+        if (bubblesMBig.liveCount != 0) return bubblesMBig.getLatest();
+        if (bubblesBig.liveCount != 0) return bubblesBig.getLatest();
+        if (bubblesMedium.liveCount != 0) return bubblesMedium.getLatest();
+        if (bubblesSmall.liveCount != 0) return bubblesSmall.getLatest();
+        if (bubblesXSmall.liveCount != 0) return bubblesXSmall.getLatest();
+
+        return null;
+    }
+
+    // Drops every bubble with no transition and starts counting from zero steps
+    public void reset() {
+        clearBubbles();
+        prevSteps = 0;
+        currentSteps = 0;
+    }
+
+    public void clearBubbles() {
+        bubblesXBig.clear();
+        bubblesMBig.clear();
+        bubblesBig.clear();
+        bubblesMedium.clear();
+        bubblesSmall.clear();
+        bubblesXSmall.clear();
+    }
+
+    void triggerMilestone(int steps, int color) {
+        if (milestoneListener != null) milestoneListener.onMilestone(steps, color);
+    }
+}
@@ -0,0 +1,308 @@
+package info.fathom.watchfaces.simulation.gaze;
+
+import info.fathom.watchfaces.simulation.Colors;
+import info.fathom.watchfaces.simulation.RenderSink;
+import info.fathom.watchfaces.simulation.VectorPath;
+
+class Eye {
+
+    // Constants
+
+    static final int   EYE_COLOR                = Colors.rgb(252,245,245);
+    static final int   EYELID_COLOR             = Colors.BLACK;
+    static final int   PUPIL_COLOR              = Colors.BLACK;
+    static final float EYELINER_WIDTH           = 2.0f;
+    static final float BLINK_SPEED              = 0.40f;
+    static final int   ANIM_END_THRESHOLD       = 1;                // pixel distance to stop animation
+    static final float HEIGHT_RATIO             = 0.50f;            // height/width ratio
+    static final float IRIS_RATIO               = 0.40f;            // irisDiameter/width ratio
+    static final float PUPIL_RATIO              = 0.22f;            // pupilDiameter/width ratio
+    static final float WIDE_OPEN_RATIO          = 0.65f;
+    static final float HORIZONTAL_LOOK_RATIO    = 0.45f;            // how far the pupil will travel laterally in relation to width/2
+    static final float VERTICAL_LOOK_RATIO      = 0.30f;            // idem
+    static final float PUPIL_SPEED_HORIZONTAL   = 0.50f;
+    static final float PUPIL_SPEED_RADIUS       = 0.15f;
+    static final float PUPIL_DILATION_SIZE      = 1.20f;
+    static final float PUPIL_CONTRACTION_SIZE   = 0.80f;
+    static final float IRIS_OFFSET_RATIO        = 0.058f;
+
+    static final int   SIDE_LOOK_DURATION       = 50;               // in frames
+    static final int   SIDE_LOOK_RANDOM_VAR_ADD = 20;               // on top of the base, in frames
+
+
+    EyeMosaic parent;
+
+    int id;
+    float x, y;
+    float width, height;
+    float irisRadius, irisOffset;
+    float pupilRadius;
+
+    // Aperture, pupil position (relative to the eye) and radius, their targets and the
+    // tiredness factor are in the mosaic's state arrays at this eye's id
+    int pupilPositionH;   // 0 = left, 1 = center, 2 = right
+    int pupilPositionV;   // 0 = up, 1 = center, 2 = bottom
+
+    int irisColor;
+
+    // Where the mosaic's EyeAtlas puts this eye together, and what it looked like then
+    int widthIndex;
+    int cell = -1;  // in the EyeAtlas, -1 while it has none
+    int cellX, cellY, cellHeight;
+    boolean cellDrawn;
+    int cellLevel, cellIrisColor;
+    float cellPupilX, cellPupilY, cellPupilRadius;
+
+    boolean isActive;
+    boolean blinking, lookingSideways, cuckooing, isStaringAtTarget;
+    boolean sideLookOver;  // its time ran out while the eye was still on its way, see arrive()
+    boolean isWideOpen;
+
+    Eye(EyeMosaic parent_, int id_, float x_, float y_, float width_) {
+        parent = parent_;
+
+        id = id_;
+        x = x_ * parent.width / 320;
+        y = y_ * parent.height / 320;
+        width = width_;
+        height = HEIGHT_RATIO * width;
+        irisRadius = 0.5f * IRIS_RATIO * width;
+        pupilRadius = 0.5f * PUPIL_RATIO * width;
+        parent.targetPupilRadius[id] = parent.pupilRadius[id] = pupilRadius;
+        irisColor = randomColor();
+
+        // calculate the offset of the iris one time per new eye
+        irisOffset = irisRadius * IRIS_OFFSET_RATIO;
+
+        parent.aperture[id] = 0;
+        parent.targetAperture[id] = height;  // @TODO should this be 0?
+
+        parent.tiredness[id] = parent.tirednessFactor;
+
+        pupilPositionH = 1;
+        parent.pupilX[id] = parent.targetPupilX[id] = 0;
+        pupilPositionV = 1;
+        parent.pupilY[id] = parent.targetPupilY[id] = 0;
+
+        isActive = false;
+        blinking = false;
+        lookingSideways = false;
+        isStaringAtTarget = false;
+    }
+
+    // Uses whatever style the mosaic set up for ambient, the EyeAtlas draws interactive eyes
+    void renderAmbient(RenderSink sink) {
+        VectorPath eyelid = parent.atlas.getEyelid(this);
+        sink.save();
+        sink.translate(x, y);
+        sink.save();
+        sink.clipPath(eyelid);
+        float pupilX = parent.pupilX[id], pupilY = parent.pupilY[id] - irisOffset;
+        sink.drawCircle(0, 0, 0.5f * width);
+        sink.drawCircle(pupilX, pupilY, irisRadius);
+        sink.drawCircle(pupilX, pupilY, parent.pupilRadius[id]);
+        sink.restore();
+        sink.drawPath(eyelid);
+        sink.restore();
+    }
+
+
+    // The mosaic eased the aperture and pupil all the way to their targets
+    void arrive() {
+        unregisterUpdate();
+
+        if (blinking) {
+            if (parent.targetAperture[id] == 0) {
+                open();  // restart animation (and blinking remains true)
+            } else {
+                blinking = false;
+            }
+        }
+
+        if (sideLookOver) lookBack();
+
+        if (cuckooing) {
+            if (pupilPositionH == 0) lookRight();
+            else if (pupilPositionH == 2) lookLeft();
+        }
+    }
+
+    // Centered on (0, 0), the lids reach aperture / 2 above and below it
+    static void traceEyelid(VectorPath path, float width, float aperture) {
+        path.rewind();
+        path.moveTo(-0.5f * width, 0);
+        path.quadTo(0, -aperture, 0.5f * width, 0);
+        path.quadTo(0,  aperture, -0.5f * width, 0);
+        path.close();
+    }
+
+    void activate() {
+        parent.tiredness[id] = parent.tirednessFactor;
+        isActive = true;
+        newIrisColor();
+        open();
+    }
+
+    // hard deactivate with no transition
+    void deactivate() {
+        isActive = false;
+        unregisterUpdate();
+        parent.timers.cancel(id);
+        parent.atlas.freeCell(this);
+        blinking = false;
+        lookingSideways = false;
+        sideLookOver = false;
+        isWideOpen = false;
+        parent.aperture[id] = 0;
+        parent.targetAperture[id] = height;  // @TODO should this be 0?
+        pupilPositionH = 1;
+        parent.pupilX[id] = 0;
+        parent.targetPupilX[id] = 0;
+        parent.tiredness[id] = 1;
+    }
+
+    // hard reset with no transition
+    void reset() {
+        deactivate();
+        isActive = true;
+        parent.aperture[id] = height;
+    }
+
+    void open() {
+        parent.targetAperture[id] = height * parent.tiredness[id];
+        parent.targetPupilRadius[id] = pupilRadius;
+        registerUpdate();
+    }
+
+    void close() {
+        parent.targetAperture[id] = 0;
+        parent.targetPupilRadius[id] = PUPIL_DILATION_SIZE * pupilRadius;
+        registerUpdate();
+    }
+
+    void blink() {
+        close();
+        blinking = true;
+    }
+
+    void openWide() {
+        parent.targetAperture[id] = WIDE_OPEN_RATIO * width * parent.tiredness[id];
+        parent.targetPupilRadius[id] = PUPIL_CONTRACTION_SIZE * pupilRadius;
+        isWideOpen = true;
+        registerUpdate();
+    }
+
+    void lookCenter() {
+        lookCenterHorizontal();
+        lookCenterVertical();
+    }
+
+    void sideLookTrigger() {
+        if (!cuckooing) {
+            lookingSideways = true;
+            sideLookOver = false;
+            parent.timers.set(id, SIDE_LOOK_DURATION + (int) (SIDE_LOOK_RANDOM_VAR_ADD * Math.random()));
+        }
+    }
+
+    // The timer of sideLookTrigger() ran out, cuckooing eyes keep swinging. An eye still
+    // animating looks back once it got there instead of turning around mid-swing
+    void endSideLook() {
+        if (parent.updating.contains(id)) sideLookOver = true;
+        else lookBack();
+    }
+
+    private void lookBack() {
+        sideLookOver = false;
+        lookingSideways = false;
+        if (!cuckooing) lookCenter();
+    }
+
+    void lookLeft() {
+        parent.targetPupilX[id] = -HORIZONTAL_LOOK_RATIO * width / 2;
+        pupilPositionH = 0;
+        sideLookTrigger();
+        registerUpdate();
+    }
+
+    void lookCenterHorizontal() {
+        parent.targetPupilX[id] = 0;
+        pupilPositionH = 1;
+        registerUpdate();
+    }
+
+    void lookRight() {
+        parent.targetPupilX[id] = HORIZONTAL_LOOK_RATIO * width / 2;
+        pupilPositionH = 2;
+        sideLookTrigger();
+        registerUpdate();
+    }
+
+    void lookUp() {
+        parent.targetPupilY[id] = - VERTICAL_LOOK_RATIO * height / 2;
+        pupilPositionV = 0;
+        sideLookTrigger();
+        registerUpdate();
+    }
+
+    void lookCenterVertical() {
+        parent.targetPupilY[id] = 0;
+        pupilPositionV = 0;
+        registerUpdate();
+    }
+
+    void lookDown() {
+        parent.targetPupilY[id] = VERTICAL_LOOK_RATIO * height / 2;
+        pupilPositionV = 0;
+        sideLookTrigger();
+        registerUpdate();
+    }
+
+    boolean stareAtScreenPoint(float screenX, float screenY) {  // Absolute pixel coordinates
+        float angle = (float) Math.atan2(screenY - y, screenX - x);
+        float dx = 0.5f * HORIZONTAL_LOOK_RATIO * width * (float) Math.cos(angle);
+        float dy = 0.5f * VERTICAL_LOOK_RATIO * height * (float) Math.sin(angle);
+        stareAt(dx, dy);
+
+        return true;
+    }
+
+    void stareAt(float targetPupilX_, float targetPupilY_) {
+        parent.targetPupilX[id] = targetPupilX_;
+        parent.targetPupilY[id] = targetPupilY_;
+        isStaringAtTarget = true;
+        sideLookTrigger();
+        registerUpdate();
+    }
+
+    void startCuckooing() {
+        cuckooing = true;
+        if (Math.random() < 0.5) lookLeft();
+        else lookRight();
+    }
+
+    void stopCuckooing() {
+        cuckooing = false;
+        lookCenter();
+    }
+
+    void newIrisColor() {
+        irisColor = randomColor();
+    }
+
+    int randomColor() {
+        return EyeMosaic.EYE_COLORS[(int) (EyeMosaic.EYE_COLOR_COUNT * Math.random())];
+    }
+
+    void registerUpdate() {
+        parent.updating.add(id);
+    }
+
+    void unregisterUpdate() {
+        parent.updating.remove(id);
+    }
+
+    void updateTiredness(float value_) {
+        parent.tiredness[id] = value_;
+    }
+}
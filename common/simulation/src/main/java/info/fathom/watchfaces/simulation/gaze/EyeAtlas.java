@@ -0,0 +1,295 @@
+package info.fathom.watchfaces.simulation.gaze;
+
+import java.util.Arrays;
+
+import info.fathom.watchfaces.simulation.RenderLayer;
+import info.fathom.watchfaces.simulation.RenderSink;
+import info.fathom.watchfaces.simulation.VectorPath;
+
+/**
+ * Draws the eyes from bitmaps instead of clipping three circles to every eyelid every frame.
+ *
+ * A sprite layer holds the lids of each eye width at APERTURE_LEVELS apertures, from shut
+ * to wide open: the white of the eye and the eyeliner apart. Every active eye has a cell in
+ * a second layer where it is put together from them, the iris and pupil drawn atop the white
+ * so they stay inside the lids. Only eyes that changed since are put together again, the
+ * screen gets one bitmap draw per eye.
+ *
+ * Eyes going inactive hand their cell back for the next eye of the same width, so the cell
+ * layer only grows to the most eyes ever open at once. Layers that are replaced are
+ * released right away, their bitmaps aren't left waiting for the garbage collector.
+ *
+ * The eyelid paths of the sprites are kept for ambient mode, eyes of the same width share
+ * them instead of tracing their lids on every step of a blink.
+ */
+class EyeAtlas {
+
+    static final int APERTURE_LEVELS = 27;  // of WIDE_OPEN_RATIO, levels 20 (open) and 10 (tired) are exact
+    static final int PAD = 2;  // px around the lids, for the eyeliner and its anti-aliasing
+    static final int LAYER_WIDTH = 1024;
+
+    EyeMosaic parent;
+
+    private float[] widths = new float[4];
+    private int widthCount;
+    private int[] spriteX, spriteY, spriteHeight;  // the white at (x, y), the eyeliner right of it
+    private VectorPath[] eyelids;  // per sprite, centered on (0, 0)
+    private RenderLayer sprites, cells;
+    private int spritesHeight;
+    private boolean spritesDrawn;
+    private int laidOutEyes = -1;
+
+    // Cells packed so far, in use or free. The free ones of each width are linked through
+    // nextFreeCell from freeCells[width index], -1 at the end
+    private int[] cellX = new int[8], cellY = new int[8], nextFreeCell = new int[8];
+    private int cellCount;
+    private int[] freeCells = new int[4];
+
+    // Shelf packing into a layer, each row as high as its highest box. Past layOut(), where
+    // the next new cell goes
+    private int packX, packY, rowHeight, packedX, packedY;
+
+    EyeAtlas(EyeMosaic parent_) {
+        parent = parent_;
+    }
+
+    /**
+     * The lids of the eye at its aperture level.
+     */
+    VectorPath getEyelid(Eye eye) {
+        if (laidOutEyes != parent.eyeCount) layOut(parent.eyes, parent.eyeCount);
+        return eyelids[eye.widthIndex * APERTURE_LEVELS + levelOf(eye)];
+    }
+
+    void render(RenderSink sink) {
+        EyeSet activeEyes = parent.activeEyes;
+        Eye[] eyes = parent.eyes;
+        int eyeCount = parent.eyeCount;
+        if (laidOutEyes != eyeCount) layOut(eyes, eyeCount);
+
+        if (sprites == null || sprites.height != spritesHeight) {
+            if (sprites != null) sink.releaseLayer(sprites);
+            sprites = new RenderLayer(LAYER_WIDTH, spritesHeight);
+            spritesDrawn = false;
+        }
+        if (!spritesDrawn) {
+            sink.beginLayer(sprites, true);
+            drawSprites(sink);
+            sink.endLayer();
+            spritesDrawn = true;
+        }
+
+        for (int id = activeEyes.next(0); id >= 0; id = activeEyes.next(id + 1)) {
+            if (eyes[id].cell < 0) takeCell(eyes[id]);
+        }
+        int cellsHeight = packY + rowHeight;
+        if (cellsHeight > 0 && (cells == null || cells.height < cellsHeight)) {
+            // Twice as high at least, eyes opening one by one don't replace it every time
+            if (cells != null) {
+                cellsHeight = Math.max(cellsHeight, 2 * cells.height);
+                sink.releaseLayer(cells);
+            }
+            cells = new RenderLayer(LAYER_WIDTH, cellsHeight);
+            for (int i = 0; i < eyeCount; i++) eyes[i].cellDrawn = false;
+        }
+
+        boolean stale = false;
+        for (int id = activeEyes.next(0); id >= 0; id = activeEyes.next(id + 1)) {
+            Eye eye = eyes[id];
+            if (!isCurrent(eye, levelOf(eye))) stale = true;
+        }
+        if (stale) {
+            if (!sink.beginLayer(cells, false)) {
+                for (int i = 0; i < eyeCount; i++) eyes[i].cellDrawn = false;
+            }
+            for (int id = activeEyes.next(0); id >= 0; id = activeEyes.next(id + 1)) {
+                Eye eye = eyes[id];
+                int level = levelOf(eye);
+                if (!isCurrent(eye, level)) drawCell(sink, eye, level);
+            }
+            sink.endLayer();
+        }
+
+        // Id order, so overlapping eyes stack the same way every frame
+        for (int id = activeEyes.next(0); id >= 0; id = activeEyes.next(id + 1)) {
+            Eye eye = eyes[id];
+            sink.drawLayer(cells, eye.cellX, eye.cellY, boxWidth(eye.width), eye.cellHeight,
+                    Math.round(eye.x - PAD - 0.5f * eye.width), Math.round(eye.y - 0.5f * eye.cellHeight));
+        }
+    }
+
+    // Takes back the cell of an eye going inactive, for the next one of its width
+    void freeCell(Eye eye) {
+        if (eye.cell < 0) return;
+        nextFreeCell[eye.cell] = freeCells[eye.widthIndex];
+        freeCells[eye.widthIndex] = eye.cell;
+        eye.cell = -1;
+        eye.cellDrawn = false;
+    }
+
+    // A free cell of the eye's width, or a new one packed after the others
+    private void takeCell(Eye eye) {
+        int cell = freeCells[eye.widthIndex];
+        if (cell >= 0) {
+            freeCells[eye.widthIndex] = nextFreeCell[cell];
+        } else {
+            if (cellCount == cellX.length) {
+                cellX = Arrays.copyOf(cellX, 2 * cellCount);
+                cellY = Arrays.copyOf(cellY, 2 * cellCount);
+                nextFreeCell = Arrays.copyOf(nextFreeCell, 2 * cellCount);
+            }
+            cell = cellCount++;
+            pack(boxWidth(eye.width), eye.cellHeight);
+            cellX[cell] = packedX;
+            cellY[cell] = packedY;
+        }
+        eye.cell = cell;
+        eye.cellX = cellX[cell];
+        eye.cellY = cellY[cell];
+        eye.cellDrawn = false;
+    }
+
+    // Packs the sprites for the widths of the eyes and starts the cells over, the layers
+    // are replaced to fit on the next render()
+    private void layOut(Eye[] eyes, int eyeCount) {
+        widthCount = 0;
+        for (int i = 0; i < eyeCount; i++) {
+            Eye eye = eyes[i];
+            int w = 0;
+            while (w < widthCount && widths[w] != eye.width) w++;
+            if (w == widthCount) {
+                if (widthCount == widths.length) widths = Arrays.copyOf(widths, 2 * widthCount);
+                widths[widthCount++] = eye.width;
+            }
+            eye.widthIndex = w;
+        }
+
+        int spriteCount = widthCount * APERTURE_LEVELS;
+        spriteX = new int[spriteCount];
+        spriteY = new int[spriteCount];
+        spriteHeight = new int[spriteCount];
+        eyelids = new VectorPath[spriteCount];
+        startPacking();
+        for (int w = 0; w < widthCount; w++) {
+            for (int level = 0; level < APERTURE_LEVELS; level++) {
+                int s = w * APERTURE_LEVELS + level;
+                spriteHeight[s] = boxHeight(aperture(widths[w], level));
+                eyelids[s] = new VectorPath();
+                Eye.traceEyelid(eyelids[s], widths[w], aperture(widths[w], level));
+                pack(2 * boxWidth(widths[w]), spriteHeight[s]);
+                spriteX[s] = packedX;
+                spriteY[s] = packedY;
+            }
+        }
+        spritesHeight = packY + rowHeight;
+        spritesDrawn = false;
+
+        startPacking();
+        cellCount = 0;
+        if (freeCells.length < widthCount) freeCells = new int[widthCount];
+        Arrays.fill(freeCells, -1);
+        for (int i = 0; i < eyeCount; i++) {
+            Eye eye = eyes[i];
+            eye.cellHeight = boxHeight(aperture(eye.width, APERTURE_LEVELS - 1));
+            eye.cell = -1;
+            eye.cellDrawn = false;
+        }
+        laidOutEyes = eyeCount;
+    }
+
+    private void startPacking() {
+        packX = packY = rowHeight = 0;
+    }
+
+    private void pack(int width, int height) {
+        if (packX + width > LAYER_WIDTH) {
+            packX = 0;
+            packY += rowHeight;
+            rowHeight = 0;
+        }
+        packedX = packX;
+        packedY = packY;
+        packX += width;
+        rowHeight = Math.max(rowHeight, height);
+    }
+
+    private void drawSprites(RenderSink sink) {
+        sink.setAntiAlias(true);
+        for (int w = 0; w < widthCount; w++) {
+            float width = widths[w];
+            int boxWidth = boxWidth(width);
+            for (int level = 0; level < APERTURE_LEVELS; level++) {
+                int s = w * APERTURE_LEVELS + level;
+                VectorPath lids = eyelids[s];
+
+                sink.save();
+                sink.translate(spriteX[s] + PAD + 0.5f * width, spriteY[s] + 0.5f * spriteHeight[s]);
+                if (level > 0) {
+                    sink.setFillStyle();
+                    sink.setColor(Eye.EYE_COLOR);
+                    sink.drawPath(lids);
+                }
+                sink.translate(boxWidth, 0);
+                sink.setStrokeStyle(Eye.EYELINER_WIDTH);
+                sink.setColor(Eye.EYELID_COLOR);
+                sink.drawPath(lids);
+                sink.restore();
+            }
+        }
+        sink.setFillStyle();
+    }
+
+    // The white, then the iris and pupil only where it is, then the eyeliner over them. The
+    // iris never reaches past the box of the widest aperture, so it can't touch other cells
+    private void drawCell(RenderSink sink, Eye eye, int level) {
+        int s = eye.widthIndex * APERTURE_LEVELS + level;
+        int boxWidth = boxWidth(eye.width);
+        int spriteTop = eye.cellY + (eye.cellHeight - spriteHeight[s]) / 2;
+        float centerX = eye.cellX + PAD + 0.5f * eye.width;
+        float centerY = eye.cellY + 0.5f * eye.cellHeight;
+
+        sink.clearRect(eye.cellX, eye.cellY, eye.cellX + boxWidth, eye.cellY + eye.cellHeight);
+        sink.drawLayer(sprites, spriteX[s], spriteY[s], boxWidth, spriteHeight[s], eye.cellX, spriteTop);
+        sink.setFillStyle();
+        sink.setAtop(true);
+        sink.setColor(eye.irisColor);
+        float pupilX = centerX + parent.pupilX[eye.id];
+        float pupilY = centerY + parent.pupilY[eye.id] - eye.irisOffset;
+        sink.drawCircle(pupilX, pupilY, eye.irisRadius);
+        sink.setColor(Eye.PUPIL_COLOR);
+        sink.drawCircle(pupilX, pupilY, parent.pupilRadius[eye.id]);
+        sink.setAtop(false);
+        sink.drawLayer(sprites, spriteX[s] + boxWidth, spriteY[s], boxWidth, spriteHeight[s], eye.cellX, spriteTop);
+
+        eye.cellDrawn = true;
+        eye.cellLevel = level;
+        eye.cellIrisColor = eye.irisColor;
+        eye.cellPupilX = parent.pupilX[eye.id];
+        eye.cellPupilY = parent.pupilY[eye.id];
+        eye.cellPupilRadius = parent.pupilRadius[eye.id];
+    }
+
+    private boolean isCurrent(Eye eye, int level) {
+        return eye.cellDrawn && eye.cellLevel == level && eye.cellIrisColor == eye.irisColor &&
+                eye.cellPupilX == parent.pupilX[eye.id] && eye.cellPupilY == parent.pupilY[eye.id] &&
+                eye.cellPupilRadius == parent.pupilRadius[eye.id];
+    }
+
+    private int levelOf(Eye eye) {
+        int level = Math.round(parent.aperture[eye.id] / (Eye.WIDE_OPEN_RATIO * eye.width) * (APERTURE_LEVELS - 1));
+        return Math.max(0, Math.min(APERTURE_LEVELS - 1, level));
+    }
+
+    private static float aperture(float width, int level) {
+        return Eye.WIDE_OPEN_RATIO * width * level / (APERTURE_LEVELS - 1);
+    }
+
+    private static int boxWidth(float width) {
+        return (int) Math.ceil(width) + 2 * PAD;
+    }
+
+    // Even, so a sprite sits on whole pixels in the middle of any cell
+    private static int boxHeight(float aperture) {
+        return 2 * (int) Math.ceil(0.5f * aperture) + 2 * PAD;
+    }
+}
@@ -0,0 +1,458 @@
+package info.fathom.watchfaces.simulation.gaze;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import info.fathom.watchfaces.simulation.Colors;
+import info.fathom.watchfaces.simulation.RenderSink;
+import info.fathom.watchfaces.simulation.StepClock;
+
+/**
+ * Gaze Effect: a mosaic of eyes that open up as the watch gets looked at, and blink,
+ * look around, cuckoo or stare depending on the time of the day. Interactive frames draw
+ * them from the sprites of an EyeAtlas.
+ *
+ * What animates every frame is kept apart from the Eye objects, in parallel arrays indexed
+ * by eye id: update() eases every animating eye in one loop over them, and only calls into
+ * the eyes that got where they were going. Which eyes are active or animating is kept in
+ * EyeSets, so turning eyes on and off doesn't search lists either. Keeps mosaics of
+ * hundreds of eyes cheap.
+ *
+ * Nothing runs on frames where nothing happens: the next random blink or look is drawn
+ * ahead of time, and eyes that wait, like the ones looking sideways, do it on EyeTimers
+ * instead of animating. Until either is due the frame timer can sleep.
+ */
+public class EyeMosaic {
+
+    static final int[] EYE_COLORS = {
+            Colors.rgb(255, 102, 51),
+            Colors.rgb(0, 153, 255),
+            Colors.rgb(125, 114, 163),
+            Colors.rgb(114, 41, 255),
+            Colors.rgb(238, 42, 123),
+            Colors.rgb(0, 167, 157),
+            Colors.rgb(117, 76, 41),
+            Colors.rgb(141, 198, 63),
+            Colors.rgb(196, 154, 108),
+            Colors.rgb(128, 130, 133)
+    };
+    static final int   EYE_COLOR_COUNT = EYE_COLORS.length;
+
+    private static final float BLINK_TO_GLANCE_CHANCE_RATIO = 0.50f;                        // percent possibility of a blink event happening as compared to amount of glances
+    private static final long  EYE_POPOUT_BASE_THRESHOLD = TimeUnit.MINUTES.toMillis(5);    // baseline threshold over which eyes will start popping out
+    private static final long  EYE_POPOUT_PERIOD = TimeUnit.MINUTES.toMillis(3);            // beyond baseline, an eye will pop out every N millis
+    private static final int   EYES_WIDE_OPEN_GLANCE_TRIGGER = 3;                           // how many consecutive glances are needed to trigger all eyes wide open
+
+    private static final int   BLINK_CHANCE_FACTOR = 5;
+    private static final float MAX_TIRED_RATIO          = 0.50f;            // how much it closes when max tired
+    private static final int   TIRED_HOUR_START         = 21;
+    private static final int   TIRED_HOUR_END           = 23;               // Note: must be before midnight
+    private static final int   WAKEUP_HOUR_START        = 7;                // Note: must be after midnight
+    private static final int   WAKEUP_HOUR_END          = 9;
+
+    int width, height;
+    int accelerateRate = 1;  // DEBUG: each glance has xN times the effect
+
+    float blinkChance;
+    int framesToNextAction;  // idle frames before the next random blink/look
+    StepClock clock = new StepClock();
+
+    Eye[] eyes;
+    int eyeCount;
+
+    // Per eye id, grown along with eyes
+    float[] aperture, targetAperture;
+    float[] pupilX, targetPupilX, pupilY, targetPupilY;  // relative to the eye
+    float[] pupilRadius, targetPupilRadius;
+    float[] tiredness;
+
+    EyeSet updating = new EyeSet();  // animating eyes
+    private int[] arrived;  // scratch, ids of the eyes done animating this step
+
+    EyeSet activeEyes = new EyeSet();
+    EyeSet inactiveEyes = new EyeSet();
+    EyeTimers timers = new EyeTimers();
+
+    Eye lastEye;  // last eye that was activated
+    EyeAtlas atlas = new EyeAtlas(this);
+
+    boolean areWideOpen;
+    boolean areCuckooing;
+    boolean areStaringAtTarget;
+
+    float tirednessFactor;
+
+    public EyeMosaic() {
+        eyes = new Eye[8];
+        eyeCount = 0;
+        allocateState(eyes.length);
+        blinkChance = 0;
+        framesToNextAction = Integer.MAX_VALUE;
+        areCuckooing = false;
+        lastEye = null;
+
+        tirednessFactor = 1;
+    }
+
+    public void setScreenSize(int width_, int height_) {
+        width = width_;
+        height = height_;
+    }
+
+    public void setAccelerateRate(int rate) {
+        accelerateRate = rate;
+    }
+
+    public int getEyeCount() {
+        return eyeCount;
+    }
+
+    /**
+     * True when no eye is animating. The next random blink or look, or an eye looking
+     * back, may still be due, see {@link #getFramesToNextAction()}.
+     */
+    public boolean isSettled() {
+        return updating.size() == 0;
+    }
+
+    public int getFramesToNextAction() {
+        int frames = activeEyes.size() > 0 ? framesToNextAction : Integer.MAX_VALUE;
+        return Math.min(frames, timers.getIdleSteps());
+    }
+
+    /**
+     * Accounts for frames that were never drawn while the mosaic was settled,
+     * so random actions keep their pace while the frame timer sleeps.
+     */
+    public void skipFrames(int frames) {
+        if (frames <= 0) return;
+        if (framesToNextAction != Integer.MAX_VALUE) {
+            framesToNextAction = Math.max(0, framesToNextAction - frames);
+        }
+
+        // Timers late by a frame or so fire now, past SLOTS steps the wheel is empty
+        for (int steps = Math.min(frames, EyeTimers.SLOTS); steps > 0; steps--) {
+            fireTimers();
+        }
+    }
+
+    private void fireTimers() {
+        timers.step();
+        for (int id = timers.poll(); id >= 0; id = timers.poll()) {
+            eyes[id].endSideLook();
+        }
+    }
+
+    /**
+     * Runs as many update() steps as are due after deltaNanos of real time.
+     */
+    public void advance(long deltaNanos) {
+        for (int steps = clock.advance(deltaNanos); steps > 0; steps--) {
+            update();
+        }
+    }
+
+    public void update() {
+        fireTimers();
+
+        // trigger a random eye to blink
+        if (activeEyes.size() > 0) {
+            if (framesToNextAction > 0) {
+                if (framesToNextAction != Integer.MAX_VALUE) framesToNextAction--;
+            } else {
+                rollNextAction();
+                Eye eye = eyes[activeEyes.get((int) (activeEyes.size() * Math.random()))];
+
+                // Random actions
+                if (!eye.isWideOpen && !eye.cuckooing && !eye.isStaringAtTarget) {
+                    double r = Math.random();
+                    if (r < 0.17) {
+                        eye.lookLeft();
+                    } else if (r < 0.33) {
+                        eye.lookCenterHorizontal();
+                    } else if (r < 0.50) {
+                        eye.lookRight();
+                    } else {
+                        eye.blink();  // may affect an already blinking eye but not a wide open one
+                    }
+
+                    r = Math.random();
+                    if (r < 0.17) {
+                        eye.lookUp();
+                    } else if (r < 0.33) {
+                        eye.lookCenterVertical();
+                    } else if (r < 0.50) {
+                        eye.lookDown();
+                    }
+
+                }
+            }
+        }
+
+        // Ease all animating eyes towards their targets, tired eyes slower
+        int arrivedCount = 0;
+        for (int i = updating.next(0); i >= 0; i = updating.next(i + 1)) {
+            float tired = tiredness[i];
+            aperture[i] = ease(aperture[i], targetAperture[i], Eye.BLINK_SPEED * tired);
+            pupilX[i] = ease(pupilX[i], targetPupilX[i], Eye.PUPIL_SPEED_HORIZONTAL * tired);
+            pupilY[i] = ease(pupilY[i], targetPupilY[i], Eye.PUPIL_SPEED_HORIZONTAL * tired);
+            pupilRadius[i] = ease(pupilRadius[i], targetPupilRadius[i], Eye.PUPIL_SPEED_RADIUS * tired);
+
+            if (aperture[i] == targetAperture[i] && pupilX[i] == targetPupilX[i] &&
+                    pupilY[i] == targetPupilY[i] && pupilRadius[i] == targetPupilRadius[i]) {
+                arrived[arrivedCount++] = i;
+            }
+        }
+
+        // Completed animations pick what's next, or leave the updating set
+        for (int k = 0; k < arrivedCount; k++) {
+            eyes[arrived[k]].arrive();
+        }
+    }
+
+    private static float ease(float current, float target, float speed) {
+        float diff = target - current;
+        return Math.abs(diff) < Eye.ANIM_END_THRESHOLD ? target : current + speed * diff;
+    }
+
+    public void render(RenderSink sink) {
+        sink.setAntiAlias(true);
+        atlas.render(sink);
+    }
+
+    public void renderAmbient(RenderSink sink) {
+        if (lastEye == null) return;
+
+        sink.setAntiAlias(false);
+        sink.setStrokeStyle(1f);
+        sink.setColor(Colors.WHITE);
+        lastEye.renderAmbient(sink);
+    }
+
+    /**
+     * Call on every new glance at the watch.
+     * @return true if this glance triggered all eyes wide open, so the
+     *         consecutive glance count should start over
+     */
+    public boolean newGlance(int glanceInc, long glanceDiff, int consecutiveGlances,
+                             int hour, int minute) {
+        boolean wideOpenTriggered = false;
+
+        // Reset wide open state from prev newGlance
+        if (areWideOpen) {
+            for (int id = activeEyes.next(0); id >= 0; id = activeEyes.next(id + 1)) {
+                Eye eye = eyes[id];
+                eye.isWideOpen = false;
+                eye.open();
+            }
+            areWideOpen = false;
+        }
+
+        // Add/drop eyes  @TODO rely on glanceInc for these computations
+        // Must eyes start popping out?
+        if (glanceDiff > EYE_POPOUT_BASE_THRESHOLD) {
+            int popoutCount = (int) ((glanceDiff - EYE_POPOUT_BASE_THRESHOLD) / EYE_POPOUT_PERIOD);
+            deactivateRandomEye(popoutCount * accelerateRate);
+            increaseBlinkChance(-BLINK_TO_GLANCE_CHANCE_RATIO * accelerateRate);
+
+        // Or should they be added
+        } else {
+            if (accelerateRate > 1) {
+                activateRandomEye(accelerateRate);
+                increaseBlinkChance(BLINK_TO_GLANCE_CHANCE_RATIO * accelerateRate);
+            } else {
+                activateRandomEye(glanceInc);
+                increaseBlinkChance(BLINK_TO_GLANCE_CHANCE_RATIO * glanceInc);
+            }
+        }
+
+        // Stop cuckooing?
+        if (areCuckooing) {
+            if (minute != 0) {
+                for (int id = activeEyes.next(0); id >= 0; id = activeEyes.next(id + 1)) {
+                    Eye eye = eyes[id];
+                    eye.stopCuckooing();
+                }
+                areCuckooing = false;
+            }
+
+        // Should cuckoo?
+        } else if (minute == 0 && !areStaringAtTarget) {  // trigger cuckooing on the hour
+            areCuckooing = true;
+            for (int id = activeEyes.next(0); id >= 0; id = activeEyes.next(id + 1)) {
+                Eye eye = eyes[id];
+                eye.lookCenter();
+                eye.startCuckooing();
+            }
+        }
+
+        boolean makeAWish = (hour == 11 || hour == 23) && minute == 11;
+
+        // Trigger eyes wide open?
+        if (!areCuckooing && !areStaringAtTarget && !makeAWish &&
+                consecutiveGlances >= EYES_WIDE_OPEN_GLANCE_TRIGGER) {
+            for (int id = activeEyes.next(0); id >= 0; id = activeEyes.next(id + 1)) {
+                Eye eye = eyes[id];
+                eye.lookCenter();
+                eye.openWide();
+            }
+            areWideOpen = true;
+            wideOpenTriggered = true;  // @TERRENCE: do wide open once and reset
+        }
+
+        // Reset staring
+        if (areStaringAtTarget) {
+            for (int id = activeEyes.next(0); id >= 0; id = activeEyes.next(id + 1)) {
+                Eye eye = eyes[id];
+                eye.isStaringAtTarget = false;
+                eye.lookCenter();
+            }
+            areStaringAtTarget = false;
+        }
+
+        // Should stare?
+        if (makeAWish) {
+            lookAtScreenTarget(0.706f, 0.378f);
+        }
+
+        return wideOpenTriggered;
+    }
+
+    // Creates inactive eyes to be activated later, coordinates are on a 320x320 screen
+    public void addEye(float x_, float y_, float width_) {
+        eyes[eyeCount] = new Eye(this, eyeCount, x_, y_, width_);
+        inactiveEyes.add(eyeCount);
+        eyeCount++;
+
+        // double the array size if necessary
+        if (eyeCount == eyes.length) {
+            eyes = Arrays.copyOf(eyes, 2 * eyes.length);
+            allocateState(eyes.length);
+        }
+    }
+
+    // Keeps the state of the eyes there are so far
+    private void allocateState(int capacity) {
+        aperture = copyOf(aperture, capacity);
+        targetAperture = copyOf(targetAperture, capacity);
+        pupilX = copyOf(pupilX, capacity);
+        targetPupilX = copyOf(targetPupilX, capacity);
+        pupilY = copyOf(pupilY, capacity);
+        targetPupilY = copyOf(targetPupilY, capacity);
+        pupilRadius = copyOf(pupilRadius, capacity);
+        targetPupilRadius = copyOf(targetPupilRadius, capacity);
+        tiredness = copyOf(tiredness, capacity);
+        arrived = copyOf(arrived, capacity);
+        updating.ensureCapacity(capacity);
+        activeEyes.ensureCapacity(capacity);
+        inactiveEyes.ensureCapacity(capacity);
+        timers.ensureCapacity(capacity);
+    }
+
+    private static float[] copyOf(float[] array, int capacity) {
+        return array == null ? new float[capacity] : Arrays.copyOf(array, capacity);
+    }
+
+    private static int[] copyOf(int[] array, int capacity) {
+        return array == null ? new int[capacity] : Arrays.copyOf(array, capacity);
+    }
+
+    public void activateRandomEye(int count) {
+        for (int i = 0; i < count; i++) {
+            if (inactiveEyes.size() == 0) return;
+            Eye eye = eyes[inactiveEyes.get((int) (inactiveEyes.size() * Math.random()))];
+            eye.activate();
+            activeEyes.add(eye.id);
+            inactiveEyes.remove(eye.id);
+            lastEye = eye;
+        }
+
+    }
+
+    public void deactivateRandomEye(int count) {
+        for (int i = 0; i < count; i++) {
+            if (activeEyes.size() == 0) return;
+            Eye eye = eyes[activeEyes.get((int) (activeEyes.size() * Math.random()))];
+            eye.deactivate();
+            inactiveEyes.add(eye.id);
+            activeEyes.remove(eye.id);
+
+            // The set doesn't know the order they came in, any remaining eye will do
+            if (eye == lastEye) {
+                lastEye = activeEyes.size() > 0 ? eyes[activeEyes.get(activeEyes.size() - 1)] : null;
+            }
+        }
+    }
+
+
+    void increaseBlinkChance(float increment) {
+        blinkChance += increment;
+        if (blinkChance < 0) blinkChance = 0;
+        rollNextAction();
+    }
+
+    // Rolling a per-frame chance until it hits is the same as drawing the wait from a
+    // geometric distribution once, which tells in advance how long the mosaic can sleep
+    void rollNextAction() {
+        double chance = eyeCount == 0 ? 0 : blinkChance / (eyeCount * BLINK_CHANCE_FACTOR);
+        if (chance <= 0) {
+            framesToNextAction = Integer.MAX_VALUE;
+        } else if (chance >= 1) {
+            framesToNextAction = 0;
+        } else {
+            double frames = Math.floor(Math.log(1 - Math.random()) / Math.log(1 - chance));
+            framesToNextAction = frames >= Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) frames;
+        }
+    }
+
+
+    public void reset() {
+        for (int id = activeEyes.next(0); id >= 0; id = activeEyes.next(id + 1)) {
+            Eye eye = eyes[id];
+            eye.deactivate();
+            inactiveEyes.add(id);
+        }
+        blinkChance = 0;
+        framesToNextAction = Integer.MAX_VALUE;
+//        inactiveEyes.clear();   // @TODO WAS THIS RIGHT???
+        activeEyes.clear();
+        updating.clear();
+        timers.clear();
+        lastEye = null;
+    }
+
+    public void updateTiredness(int hour, int minute) {
+        tirednessFactor = 1;
+
+        // Closing
+        if (hour >= TIRED_HOUR_START && hour < TIRED_HOUR_END) {
+            tirednessFactor = 1 - (hour + minute / 60f - TIRED_HOUR_START)
+                    * (1 - MAX_TIRED_RATIO) / (TIRED_HOUR_END - TIRED_HOUR_START);
+
+        // Closed
+        } else if (hour >= TIRED_HOUR_END || hour < WAKEUP_HOUR_START) {
+            tirednessFactor = MAX_TIRED_RATIO;
+
+        // Opening
+        } else if (hour >= WAKEUP_HOUR_START && hour < WAKEUP_HOUR_END) {
+            tirednessFactor = MAX_TIRED_RATIO + (hour + minute / 60f - WAKEUP_HOUR_START)
+                    * (1 - MAX_TIRED_RATIO) / (WAKEUP_HOUR_END - WAKEUP_HOUR_START);
+        }
+
+        for (int id = activeEyes.next(0); id >= 0; id = activeEyes.next(id + 1)) {
+            Eye eye = eyes[id];
+            eye.updateTiredness(tirednessFactor);
+        }
+    }
+
+    void lookAtScreenTarget(float normX, float normY) {  // normalized screen coordinates
+        areStaringAtTarget = true;
+        float targetX = normX * width;
+        float targetY = normY * height;
+        for (int id = activeEyes.next(0); id >= 0; id = activeEyes.next(id + 1)) {
+            Eye eye = eyes[id];
+            eye.stareAtScreenPoint(targetX, targetY);
+        }
+    }
+
+}
@@ -0,0 +1,76 @@
+package info.fathom.watchfaces.simulation.gaze;
+
+import java.util.Arrays;
+
+/**
+ * A set of eye ids, one bit per id. Adding, removing and testing an eye don't search
+ * a list, and going through the members skips whole words of absent ones:
+ *
+ *     for (int id = set.next(0); id >= 0; id = set.next(id + 1)) ...
+ *
+ * Members come out in id order. Picking one by index counts bits a word at a time,
+ * a handful of words even for hundreds of eyes.
+ */
+class EyeSet {
+
+    private long[] words = new long[1];
+    private int size;
+
+    // Room for ids below capacity, keeping the members
+    void ensureCapacity(int capacity) {
+        int count = (capacity + 63) >>> 6;
+        if (count > words.length) words = Arrays.copyOf(words, count);
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean contains(int id) {
+        return (words[id >>> 6] & 1L << id) != 0;
+    }
+
+    void add(int id) {
+        long word = words[id >>> 6];
+        if ((word & 1L << id) != 0) return;
+        words[id >>> 6] = word | 1L << id;
+        size++;
+    }
+
+    void remove(int id) {
+        long word = words[id >>> 6];
+        if ((word & 1L << id) == 0) return;
+        words[id >>> 6] = word & ~(1L << id);
+        size--;
+    }
+
+    void clear() {
+        Arrays.fill(words, 0);
+        size = 0;
+    }
+
+    // The first member at or after id, -1 if there is none
+    int next(int id) {
+        int w = id >>> 6;
+        if (w >= words.length) return -1;
+        long word = words[w] & -1L << id;
+        while (word == 0) {
+            if (++w == words.length) return -1;
+            word = words[w];
+        }
+        return (w << 6) + Long.numberOfTrailingZeros(word);
+    }
+
+    // The index-th member in id order, index below size()
+    int get(int index) {
+        int w = 0;
+        int count = Long.bitCount(words[0]);
+        while (index >= count) {
+            index -= count;
+            count = Long.bitCount(words[++w]);
+        }
+        long word = words[w];
+        for (; index > 0; index--) word &= word - 1;  // drops the lowest bit
+        return (w << 6) + Long.numberOfTrailingZeros(word);
+    }
+}
@@ -0,0 +1,88 @@
+package info.fathom.watchfaces.simulation.gaze;
+
+import java.util.Arrays;
+
+/**
+ * A timer per eye id, counted in update() steps, on a timing wheel: a slot for each of
+ * the next SLOTS steps, holding a linked list of the eyes due then. Setting, cancelling
+ * and firing a timer is O(1), and a step with nothing due looks at one empty slot. Lets
+ * eyes wait for something without animating just to count frames down.
+ */
+class EyeTimers {
+
+    static final int SLOTS = 128;  // a power of two, longer than any delay
+    private static final int MASK = SLOTS - 1;
+
+    private final int[] heads = new int[SLOTS];  // first eye id of each slot, -1 if none
+    private int[] next, prev;  // per eye id, -1 at the ends of the list
+    private int[] slots;  // per eye id, -1 if its timer isn't set
+    private int step;
+    private int count;
+
+    EyeTimers() {
+        Arrays.fill(heads, -1);
+        ensureCapacity(8);
+    }
+
+    // Room for ids below capacity, keeping their timers
+    void ensureCapacity(int capacity) {
+        int old = slots == null ? 0 : slots.length;
+        if (capacity <= old) return;
+        next = old == 0 ? new int[capacity] : Arrays.copyOf(next, capacity);
+        prev = old == 0 ? new int[capacity] : Arrays.copyOf(prev, capacity);
+        slots = old == 0 ? new int[capacity] : Arrays.copyOf(slots, capacity);
+        Arrays.fill(slots, old, capacity, -1);
+    }
+
+    /**
+     * Fires the timer of the eye after delay steps, kept to [1...SLOTS), instead of when
+     * it was due if it was set already.
+     */
+    void set(int id, int delay) {
+        cancel(id);
+        int slot = (step + Math.max(1, Math.min(delay, SLOTS - 1))) & MASK;
+        int head = heads[slot];
+        next[id] = head;
+        prev[id] = -1;
+        if (head >= 0) prev[head] = id;
+        heads[slot] = id;
+        slots[id] = slot;
+        count++;
+    }
+
+    void cancel(int id) {
+        int slot = slots[id];
+        if (slot < 0) return;
+        if (prev[id] >= 0) next[prev[id]] = next[id];
+        else heads[slot] = next[id];
+        if (next[id] >= 0) prev[next[id]] = prev[id];
+        slots[id] = -1;
+        count--;
+    }
+
+    void clear() {
+        Arrays.fill(heads, -1);
+        Arrays.fill(slots, -1);
+        count = 0;
+    }
+
+    // Moves on to the next step, whose timers poll() then hands out
+    void step() {
+        step++;
+    }
+
+    // Takes one eye whose timer is due this step off the wheel, -1 when there are no more
+    int poll() {
+        int id = heads[step & MASK];
+        if (id >= 0) cancel(id);
+        return id;
+    }
+
+    // Steps that can go by before a timer is due, Integer.MAX_VALUE if none is set
+    int getIdleSteps() {
+        if (count == 0) return Integer.MAX_VALUE;
+        int steps = 0;
+        while (heads[(step + steps + 1) & MASK] < 0) steps++;
+        return steps;
+    }
+}
@@ -0,0 +1,483 @@
+package info.fathom.watchfaces.simulation.isaac;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import info.fathom.watchfaces.simulation.Colors;
+import info.fathom.watchfaces.simulation.RenderSink;
+import info.fathom.watchfaces.simulation.VectorPath;
+
+/**
+ * The baked triangles cut into non-overlapping convex cells, each filled once with the
+ * color the triangles over it blend to. Adding a triangle splits the cells it crosses,
+ * removing one only recolors them, so the bake layer is drawn without overdraw.
+ *
+ * Cells know the triangles over them as a bitmask of Triangle.slot, triangles with a slot
+ * past 63 can't be tracked and make the arrangement invalid until clear(). Cells come from
+ * a fixed pool, running out of it does the same.
+ *
+ * On a round screen triangles are clipped to it as they come in, a corner vertex reaches
+ * far off the circle. tracePath() gives the live ones the same clipped outline.
+ */
+class Arrangement {
+
+    static final int   MAX_CELLS = 1024;
+    static final int   MAX_VERTICES = 24;
+    static final int   MAX_SLOTS = 64;
+    static final float MIN_AREA = 0.25f;  // slivers below a quarter pixel are dropped
+    static final int   COMPACT_CELLS = 256;  // below this, fragmentation isn't worth a rebuild
+    static final float EPSILON = 0.001f;
+    static final int   SCREEN_SIDES = 16;  // of the polygon standing in for a round screen
+
+    static class Cell {
+        final float[] xs = new float[MAX_VERTICES];
+        final float[] ys = new float[MAX_VERTICES];
+        int n;
+        long mask;  // slots of the triangles covering it
+        int color;
+        float minX, minY, maxX, maxY;
+
+        void copyFrom(Cell other) {
+            System.arraycopy(other.xs, 0, xs, 0, other.n);
+            System.arraycopy(other.ys, 0, ys, 0, other.n);
+            n = other.n;
+            updateBounds();
+        }
+
+        // Coincident vertices are merged, a zero length edge has no sides to clip by
+        boolean add(float x, float y) {
+            if (n > 0 && isNear(x, y, n - 1)) return true;
+            if (n == MAX_VERTICES) return false;
+            xs[n] = x;
+            ys[n] = y;
+            n++;
+            return true;
+        }
+
+        void close() {
+            if (n > 1 && isNear(xs[n - 1], ys[n - 1], 0)) n--;
+        }
+
+        boolean isNear(float x, float y, int i) {
+            return Math.abs(x - xs[i]) < EPSILON && Math.abs(y - ys[i]) < EPSILON;
+        }
+
+        float area() {
+            float a = 0;
+            for (int i = 0, j = n - 1; i < n; j = i++) {
+                a += xs[j] * ys[i] - xs[i] * ys[j];
+            }
+            return 0.5f * a;
+        }
+
+        void orient() {
+            if (area() >= 0) return;
+            for (int i = 0, j = n - 1; i < j; i++, j--) {
+                float x = xs[i], y = ys[i];
+                xs[i] = xs[j];
+                ys[i] = ys[j];
+                xs[j] = x;
+                ys[j] = y;
+            }
+        }
+
+        void updateBounds() {
+            minX = minY = Float.MAX_VALUE;
+            maxX = maxY = -Float.MAX_VALUE;
+            for (int i = 0; i < n; i++) {
+                minX = Math.min(minX, xs[i]);
+                maxX = Math.max(maxX, xs[i]);
+                minY = Math.min(minY, ys[i]);
+                maxY = Math.max(maxY, ys[i]);
+            }
+        }
+
+        boolean overlaps(Cell other) {
+            return minX < other.maxX && other.minX < maxX && minY < other.maxY && other.minY < maxY;
+        }
+    }
+
+    List<Cell> cells = new ArrayList<>(MAX_CELLS);
+    private final Cell[] pool = new Cell[MAX_CELLS];
+    private List<Cell> spareCells = new ArrayList<>(MAX_CELLS);
+    private int rebuiltCells;  // cell count right after the last rebuild()
+    private boolean valid = true;
+
+    // Scratch polygons
+    private final Cell[] pieces = { new Cell(), new Cell() };
+    private final Cell inter = new Cell(), work = new Cell(), clipIn = new Cell(), clipOut = new Cell();
+    private List<Cell> uncovered = new ArrayList<>(MAX_CELLS);
+    private List<Cell> uncoveredNext = new ArrayList<>(MAX_CELLS);
+
+    private final Cell screen = new Cell();
+    private boolean clipsToScreen;
+
+    // Scratch for render(), the cells of each color as one path
+    private final VectorPath[] regions = new VectorPath[MAX_CELLS];
+    private final int[] regionColors = new int[MAX_CELLS];
+
+    Arrangement() {
+        // All up front, the high-water mark keeps creeping up for a long time otherwise
+        for (int i = 0; i < MAX_CELLS; i++) pool[i] = new Cell();
+        clear();
+    }
+
+    /**
+     * Clips the triangles added from now on to a round screen, or stops clipping them.
+     */
+    void setScreen(boolean isRound, float centerX, float centerY, float radius) {
+        clipsToScreen = isRound;
+        if (!isRound) return;
+
+        // Circumscribed, counterclockwise like the cells: only fill past the circle is cut
+        float r = radius / (float) Math.cos(Math.PI / SCREEN_SIDES);
+        screen.n = 0;
+        for (int i = 0; i < SCREEN_SIDES; i++) {
+            double angle = 2 * Math.PI * i / SCREEN_SIDES;
+            screen.add(centerX + r * (float) Math.cos(angle), centerY + r * (float) Math.sin(angle));
+        }
+        screen.updateBounds();
+    }
+
+    boolean isValid() {
+        return valid;
+    }
+
+    // Also takes back the cells an add() that ran out of them left half split
+    void clear() {
+        cells.clear();
+        uncovered.clear();
+        uncoveredNext.clear();
+        spareCells.clear();
+        for (int i = 0; i < MAX_CELLS; i++) spareCells.add(pool[i]);
+        rebuiltCells = 0;
+        valid = true;
+    }
+
+    /**
+     * Splits the cells under the triangle and adds its uncovered part, order is the board's
+     * triangle list, oldest first, which decides how colors blend.
+     */
+    boolean add(Triangle t, List<Triangle> order) {
+        if (!valid) return false;
+        if (t.slot >= MAX_SLOTS) {
+            valid = false;
+            return false;
+        }
+
+        long bit = 1L << t.slot;
+        int count = toScreenPieces(t);
+        for (int i = 0; i < count; i++) {
+            if (!addPiece(pieces[i], bit)) {
+                valid = false;
+                return false;
+            }
+        }
+        for (int i = 0; i < cells.size(); i++) {
+            Cell c = cells.get(i);
+            if ((c.mask & bit) != 0) recolor(c, order);
+        }
+        return true;
+    }
+
+    /**
+     * Takes the triangle out of every cell, cells nothing covers anymore are dropped.
+     */
+    void remove(Triangle t, List<Triangle> order) {
+        if (!valid || t.slot >= MAX_SLOTS) return;
+        long bit = 1L << t.slot;
+        for (int i = cells.size() - 1; i >= 0; i--) {
+            Cell c = cells.get(i);
+            if ((c.mask & bit) == 0) continue;
+            c.mask &= ~bit;
+            if (c.mask == 0) {
+                // Cells don't overlap, their order doesn't matter
+                cells.set(i, cells.get(cells.size() - 1));
+                cells.remove(cells.size() - 1);
+                spareCells.add(c);
+            } else {
+                recolor(c, order);
+            }
+        }
+    }
+
+    /**
+     * Starts over with the baked triangles in order, which also merges cells split along
+     * edges of triangles removed since.
+     */
+    void rebuild(List<Triangle> order) {
+        clear();
+        for (int i = 0; i < order.size(); i++) {
+            Triangle t = order.get(i);
+            if (t.baked && !add(t, order)) break;
+        }
+        rebuiltCells = cells.size();
+    }
+
+    /**
+     * Removals leave cells split along edges of triangles that are gone, true when there
+     * are enough of them that rebuilding from scratch is worth it.
+     */
+    boolean isFragmented() {
+        return cells.size() > COMPACT_CELLS && cells.size() > 2 * rebuiltCells;
+    }
+
+    // Anti-aliased like the triangles. Cells abut, painted over each other the pixels on a
+    // shared edge would let the empty layer show through, a seam. Added up instead, each
+    // cell puts in its share of the pixel. Cells of one color go in one path, a region of
+    // a color is mostly several cells cut along lines no triangle edge follows
+    void render(RenderSink sink) {
+        int regionCount = 0;
+        for (int i = 0; i < cells.size(); i++) {
+            Cell c = cells.get(i);
+            int r = 0;
+            while (r < regionCount && regionColors[r] != c.color) r++;
+            if (r == regionCount) {
+                if (regions[r] == null) regions[r] = new VectorPath();
+                regions[r].rewind();
+                regionColors[r] = c.color;
+                regionCount++;
+            }
+            VectorPath path = regions[r];
+            path.moveTo(c.xs[0], c.ys[0]);
+            for (int v = 1; v < c.n; v++) path.lineTo(c.xs[v], c.ys[v]);
+            path.close();
+        }
+
+        sink.setFillStyle();
+        sink.setAdditive(true);  // onto a cleared layer
+        for (int r = 0; r < regionCount; r++) {
+            sink.setColor(regionColors[r]);
+            sink.drawPath(regions[r]);
+        }
+        sink.setAdditive(false);
+    }
+
+    private boolean addPiece(Cell piece, long bit) {
+        Cell first = obtain();
+        if (first == null) return false;
+        first.copyFrom(piece);
+        uncovered.clear();
+        uncovered.add(first);
+
+        int existing = cells.size();
+        for (int i = 0; i < existing; i++) {
+            Cell c = cells.get(i);
+            if (!c.overlaps(piece)) continue;
+            if (!intersect(c, piece, inter) || inter.area() < MIN_AREA) continue;
+
+            // What's outside the piece keeps the cell's triangles, what's inside gets this one too
+            if (!subtract(c, piece, c.mask, cells)) return false;
+            c.copyFrom(inter);
+            c.mask |= bit;
+
+            // And that part isn't uncovered anymore
+            uncoveredNext.clear();
+            for (int k = 0; k < uncovered.size(); k++) {
+                Cell u = uncovered.get(k);
+                if (u.overlaps(inter) && !subtract(u, inter, 0, uncoveredNext)) return false;
+                if (!u.overlaps(inter)) uncoveredNext.add(u);
+                else spareCells.add(u);
+            }
+            List<Cell> swap = uncovered;
+            uncovered = uncoveredNext;
+            uncoveredNext = swap;
+        }
+
+        for (int k = 0; k < uncovered.size(); k++) {
+            Cell u = uncovered.get(k);
+            u.mask = bit;
+            cells.add(u);
+        }
+        uncovered.clear();
+        return true;
+    }
+
+    // Blends the triangles over the cell, oldest first, into one unpremultiplied color
+    private static void recolor(Cell c, List<Triangle> order) {
+        float a = 0, r = 0, g = 0, b = 0;
+        for (int k = 0; k < order.size(); k++) {
+            Triangle t = order.get(k);
+            if (t.slot >= MAX_SLOTS || (c.mask & (1L << t.slot)) == 0) continue;
+            int color = t.currentColor;
+            float sa = Colors.alpha(color) / 255f;
+            a = sa + a * (1 - sa);
+            r = Colors.red(color) * sa + r * (1 - sa);
+            g = Colors.green(color) * sa + g * (1 - sa);
+            b = Colors.blue(color) * sa + b * (1 - sa);
+        }
+        c.color = a == 0 ? 0 : Colors.argb(Math.round(255 * a),
+                Math.round(r / a), Math.round(g / a), Math.round(b / a));
+    }
+
+    /**
+     * Sets the path to the triangle's fill as its convex pieces on screen, for drawing it
+     * live the same as it is baked.
+     */
+    void tracePath(Triangle t, VectorPath path) {
+        int count = toScreenPieces(t);
+        path.rewind();
+        for (int i = 0; i < count; i++) {
+            Cell p = pieces[i];
+            path.moveTo(p.xs[0], p.ys[0]);
+            for (int v = 1; v < p.n; v++) path.lineTo(p.xs[v], p.ys[v]);
+            path.close();
+        }
+    }
+
+    // Both convex, the screen adds at most one vertex per side to a piece
+    private int toScreenPieces(Triangle t) {
+        int count = toPieces(t);
+        if (!clipsToScreen) return count;
+
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            if (intersect(pieces[i], screen, pieces[kept]) && pieces[kept].area() >= MIN_AREA) kept++;
+        }
+        return kept;
+    }
+
+    // The triangle's fill as at most two convex pieces. With a corner vertex it is a
+    // quadrilateral, which the bounce order can make concave or bow-tied; the path fills
+    // non-zero, so both lobes of a bow tie count
+    private int toPieces(Triangle t) {
+        if (!t.containsCornerBounce) {
+            return setPiece(0, t.start.x, t.start.y, t.middle.x, t.middle.y, t.end.x, t.end.y);
+        }
+
+        float ax = t.start.x, ay = t.start.y;
+        float bx = t.cornerX, by = t.cornerY;
+        float cx = t.middle.x, cy = t.middle.y;
+        float dx = t.end.x, dy = t.end.y;
+
+        float zb = cross(ax, ay, bx, by, cx, cy);
+        float zc = cross(bx, by, cx, cy, dx, dy);
+        float zd = cross(cx, cy, dx, dy, ax, ay);
+        float za = cross(dx, dy, ax, ay, bx, by);
+        if ((zb >= 0 && zc >= 0 && zd >= 0 && za >= 0) || (zb <= 0 && zc <= 0 && zd <= 0 && za <= 0)) {
+            Cell p = pieces[0];
+            p.n = 0;
+            p.add(ax, ay);
+            p.add(bx, by);
+            p.add(cx, cy);
+            p.add(dx, dy);
+            p.close();
+            p.orient();
+            p.updateBounds();
+            return p.area() < MIN_AREA ? 0 : 1;
+        }
+
+        // Bow tie, split where the crossing edges meet
+        float s = segmentIntersection(ax, ay, bx, by, cx, cy, dx, dy);
+        if (s >= 0) {
+            float xx = ax + s * (bx - ax), xy = ay + s * (by - ay);
+            int count = setPiece(0, xx, xy, bx, by, cx, cy);
+            return count + setPiece(count, xx, xy, dx, dy, ax, ay);
+        }
+        s = segmentIntersection(bx, by, cx, cy, dx, dy, ax, ay);
+        if (s >= 0) {
+            float xx = bx + s * (cx - bx), xy = by + s * (cy - by);
+            int count = setPiece(0, ax, ay, bx, by, xx, xy);
+            return count + setPiece(count, xx, xy, cx, cy, dx, dy);
+        }
+
+        // Concave, cut along the diagonal from the reflex vertex
+        float area = (ax * by - bx * ay) + (bx * cy - cx * by) + (cx * dy - dx * cy) + (dx * ay - ax * dy);
+        boolean reflexAtBOrD = zb * area < 0 || zd * area < 0;
+        if (reflexAtBOrD) {
+            int count = setPiece(0, ax, ay, bx, by, dx, dy);
+            return count + setPiece(count, bx, by, cx, cy, dx, dy);
+        } else {
+            int count = setPiece(0, ax, ay, bx, by, cx, cy);
+            return count + setPiece(count, ax, ay, cx, cy, dx, dy);
+        }
+    }
+
+    private int setPiece(int index, float x0, float y0, float x1, float y1, float x2, float y2) {
+        Cell p = pieces[index];
+        p.n = 0;
+        p.add(x0, y0);
+        p.add(x1, y1);
+        p.add(x2, y2);
+        p.close();
+        p.orient();
+        p.updateBounds();
+        return p.area() < MIN_AREA ? 0 : 1;
+    }
+
+    // Parameter along p0-p1 where it crosses p2-p3, -1 if it doesn't
+    private static float segmentIntersection(float x0, float y0, float x1, float y1,
+                                             float x2, float y2, float x3, float y3) {
+        float rx = x1 - x0, ry = y1 - y0, sx = x3 - x2, sy = y3 - y2;
+        float denom = rx * sy - ry * sx;
+        if (denom == 0) return -1;
+        float t = ((x2 - x0) * sy - (y2 - y0) * sx) / denom;
+        float u = ((x2 - x0) * ry - (y2 - y0) * rx) / denom;
+        return t > 0 && t < 1 && u > 0 && u < 1 ? t : -1;
+    }
+
+    private static float cross(float x0, float y0, float x1, float y1, float x2, float y2) {
+        return (x1 - x0) * (y2 - y1) - (y1 - y0) * (x2 - x1);
+    }
+
+    // Both convex and counterclockwise (positive area), clips a by every edge of b
+    private boolean intersect(Cell a, Cell b, Cell out) {
+        work.copyFrom(a);
+        for (int i = 0, j = b.n - 1; i < b.n; j = i++) {
+            if (!clip(work, b.xs[j], b.ys[j], b.xs[i], b.ys[i], true, clipIn)) return false;
+            work.copyFrom(clipIn);
+            if (work.n < 3) return false;
+        }
+        out.copyFrom(work);
+        return true;
+    }
+
+    // Adds the convex pieces of a outside of b to out, all with the given mask
+    private boolean subtract(Cell a, Cell b, long mask, List<Cell> out) {
+        work.copyFrom(a);
+        for (int i = 0, j = b.n - 1; i < b.n; j = i++) {
+            if (!clip(work, b.xs[j], b.ys[j], b.xs[i], b.ys[i], false, clipOut)) return false;
+            if (clipOut.n >= 3 && clipOut.area() >= MIN_AREA) {
+                Cell piece = obtain();
+                if (piece == null) return false;
+                piece.copyFrom(clipOut);
+                piece.mask = mask;
+                piece.color = a.color;
+                out.add(piece);
+            }
+            if (!clip(work, b.xs[j], b.ys[j], b.xs[i], b.ys[i], true, clipIn)) return false;
+            work.copyFrom(clipIn);
+            if (work.n < 3) break;
+        }
+        return true;
+    }
+
+    // Sutherland-Hodgman against the line through (x0, y0)-(x1, y1), keeping the left side
+    // (inside of a counterclockwise polygon) or the right one
+    private static boolean clip(Cell src, float x0, float y0, float x1, float y1, boolean left, Cell dst) {
+        dst.n = 0;
+        float ex = x1 - x0, ey = y1 - y0;
+        for (int i = 0; i < src.n; i++) {
+            int j = i + 1 == src.n ? 0 : i + 1;
+            float di = ex * (src.ys[i] - y0) - ey * (src.xs[i] - x0);
+            float dj = ex * (src.ys[j] - y0) - ey * (src.xs[j] - x0);
+            if (!left) {
+                di = -di;
+                dj = -dj;
+            }
+            if (di >= 0 && !dst.add(src.xs[i], src.ys[i])) return false;
+            if ((di > 0 && dj < 0) || (di < 0 && dj > 0)) {
+                float s = di / (di - dj);
+                if (!dst.add(src.xs[i] + s * (src.xs[j] - src.xs[i]),
+                        src.ys[i] + s * (src.ys[j] - src.ys[i]))) return false;
+            }
+        }
+        dst.close();
+        dst.updateBounds();
+        return true;
+    }
+
+    private Cell obtain() {
+        return spareCells.isEmpty() ? null : spareCells.remove(spareCells.size() - 1);
+    }
+}
@@ -0,0 +1,468 @@
+package info.fathom.watchfaces.simulation.isaac;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import info.fathom.watchfaces.simulation.Colors;
+import info.fathom.watchfaces.simulation.RenderLayer;
+import info.fathom.watchfaces.simulation.RenderSink;
+import info.fathom.watchfaces.simulation.StepClock;
+import info.fathom.watchfaces.simulation.VectorPath;
+
+/**
+ * Bouncing Isaac: a cursor rolling on the screen with gravity, every wall bounce spans
+ * a new translucent triangle with the last two bounces.
+ *
+ * Triangles that finished animating never change again until they are killed, so they
+ * are drawn once into a bake layer and every frame blits that plus the few live ones.
+ * The layer is filled from their planar arrangement, each pixel once with the color the
+ * triangles over it blend to.
+ *
+ * In history mode the triangles pushed off the board don't fade out, they are drawn into
+ * a history layer that is never cleared until reset(), only faded every so often. The
+ * day's motion piles up there at the cost of one blit, with the same few live triangles.
+ */
+public class Board {
+
+    static final int     MAX_TRIANGLE_COUNT = 15;
+    static final int     COLOR_TRIANGLE_ALPHA = 100;
+    static final int     CURSOR_TIP_ALPHA = 200;
+    static final int     RANGE_HUE = 165;
+    static final int     TRIANGLE_POOL_SIZE = 3 * MAX_TRIANGLE_COUNT;  // a full board plus the ones fading out
+
+    // Spawn governor: a bounce this soon and this close after the last one moves that one
+    // instead of spanning a triangle, and only so many triangles fade out at once, the
+    // oldest dying one is dropped outright past that. Keeps a shaken watch's frames bounded
+    static final int     BOUNCE_MERGE_STEPS = 3;
+    static final float   BOUNCE_MERGE_DISTANCE = 12;  // px
+    static final int     MAX_DYING_TRIANGLES = 5;
+
+    // History mode: every so often by the wall clock the history layer is faded by this
+    // much, the oldest triangles dim out after some hours whether the board moved or not.
+    // Fading by more than a few percent at once also lets faint pixels round down to
+    // nothing instead of lingering
+    static final long    HISTORY_FADE_MILLIS = 20 * 60 * 1000;
+    static final int     HISTORY_FADE_ALPHA = 230;
+
+    int width, height;
+    float centerX, centerY, radius;
+    boolean isRound;
+
+    Cursor cursor;
+    float cursorProjectionX, cursorProjectionY;  // for gradient fills
+    float gravityX, gravityY;  // low-passed accelerometer, updated by the watch face
+
+    // Last three bounces, oldest first. Rotated in place, the oldest is overwritten
+    final Bounce[] bounces = { new Bounce(), new Bounce(), new Bounce() };
+    int bounceCount;
+
+    // Triangles are compacted in one pass per update() instead of removed one by one
+    List<Triangle> triangles = new ArrayList<>(TRIANGLE_POOL_SIZE);  // painting order, oldest first
+    List<Triangle> triangleUpdateBuffer = new ArrayList<>(TRIANGLE_POOL_SIZE);
+    List<Triangle> spareTriangles = new ArrayList<>(TRIANGLE_POOL_SIZE);  // dead ones, recycled by addBounce()
+    int retiredCount;  // triangles flagged retired since the last compaction
+    int dyingCount;  // killed and still fading out
+    int stepCount, lastBounceStep;
+    List<Triangle> bakeQueue = new ArrayList<>(TRIANGLE_POOL_SIZE);  // settled, not in the layer yet
+    int triangleCounter = 0;
+    int triangleSlotCount = 0;
+
+    int minute;  // current minute of the hour, drives the hue range of new triangles
+    int currentR, currentG, currentB;
+    int triangleColorNew;
+
+    VectorPath cursorPath;
+
+    // All outlines as one path for ambient mode, redrawn every minute but only rebuilt when
+    // a triangle comes or goes. Each adds up to four verbs on six coordinates
+    VectorPath outlinePath = new VectorPath(4 * TRIANGLE_POOL_SIZE, 6 * TRIANGLE_POOL_SIZE);
+    boolean outlineDirty = true;
+    StepClock clock = new StepClock();
+
+    RenderLayer bakeLayer = new RenderLayer();
+    Arrangement arrangement = new Arrangement();
+    boolean bakeDirty;  // a baked triangle left
+
+    boolean historyMode;
+    RenderLayer historyLayer = new RenderLayer();
+    List<Triangle> historyQueue = new ArrayList<>(TRIANGLE_POOL_SIZE);  // pushed off, not in the layer yet
+    boolean historyClear;  // erase the layer on the next frame
+    int historyFades;  // due since the last frame
+    long historyFadedMillis = -1;  // wall clock time the last fade was due at, -1 before setTime()
+
+    public Board() {}
+
+    public void initialize(int screenW, int screenH) {
+        width = screenW;
+        height = screenH;
+        centerX = width / 2;
+        centerY = height / 2;
+        radius = width / 2;
+        cursor = new Cursor(this);
+        arrangement.setScreen(isRound, centerX, centerY, radius);
+
+        cursorPath = new VectorPath();
+
+        // Allocated up front, so bouncing doesn't
+        for (int i = spareTriangles.size(); i < TRIANGLE_POOL_SIZE; i++) {
+            spareTriangles.add(new Triangle(this));
+        }
+
+        triangleColorNew = generateTriangleColor();
+        reset();
+    }
+
+    public void setRound(boolean isRound_) {
+        isRound = isRound_;
+        arrangement.setScreen(isRound, centerX, centerY, radius);
+    }
+
+    public void setGravity(float gravityX_, float gravityY_) {
+        gravityX = gravityX_;
+        gravityY = gravityY_;
+    }
+
+    /**
+     * Keeps the triangles pushed off the board in a fading history layer until the next
+     * reset() instead of fading them out.
+     */
+    public void setHistoryMode(boolean historyMode_) {
+        historyMode = historyMode_;
+        if (!historyMode) {
+            // The ones waiting for the layer just go
+            for (int i = 0; i < historyQueue.size(); i++) historyQueue.get(i).retire();
+            historyQueue.clear();
+        }
+    }
+
+    public void setMinute(int minute_) {
+        minute = minute_;
+    }
+
+    /**
+     * The wall clock time, epoch millis, the history layer fades by. Fades fall due with
+     * it, not with update() steps, which stop while the board is settled or the screen off.
+     */
+    public void setTime(long millis_) {
+        // Nothing fades from before the history started, or across the clock being set back
+        if (!historyMode || historyFadedMillis < 0 || millis_ < historyFadedMillis) {
+            historyFadedMillis = millis_;
+            return;
+        }
+        long due = (millis_ - historyFadedMillis) / HISTORY_FADE_MILLIS;
+        historyFadedMillis += due * HISTORY_FADE_MILLIS;
+        historyFades = (int) Math.min(historyFades + due, 255);  // faded out long before
+    }
+
+    public void reset() {
+
+        cursor.moveTo(0.50f * width, 0.01f * height);
+        clock.reset();
+
+        for (int i = 0; i < triangles.size(); i++) {
+            spareTriangles.add(triangles.get(i));
+        }
+        triangles.clear();
+        triangleUpdateBuffer.clear();
+        retiredCount = 0;
+        dyingCount = 0;
+        bakeQueue.clear();
+        arrangement.clear();
+        bakeDirty = true;
+        outlineDirty = true;
+        historyQueue.clear();
+        historyClear = true;
+        historyFades = 0;
+        historyFadedMillis = -1;
+
+        // Initialize three bounces for an initial triangle cursor
+        bounceCount = 0;
+        addBounce(0, 0);  // bogus initialization bounce
+        addBounce(1, 0);
+        addBounce(width, 1);  // the 1's are a small trick to avoid closed outline
+    }
+
+    /**
+     * True when another update() would not change anything on screen: no triangle is
+     * animating and the cursor is still, on a watch held flat enough not to get it rolling.
+     */
+    public boolean isSettled() {
+        return cursor == null || (triangleUpdateBuffer.isEmpty() && cursor.isAtRest());
+    }
+
+    /**
+     * Runs as many update() steps as are due after deltaNanos of real time.
+     */
+    public void advance(long deltaNanos) {
+        for (int steps = clock.advance(deltaNanos); steps > 0; steps--) {
+            update();
+        }
+    }
+
+    public void update() {
+        stepCount++;
+        cursor.update();
+
+        // Indexed loops, an iterator per frame is garbage on the watch. The ones that stop
+        // updating are dropped by shifting the rest down in the same pass
+        int kept = 0;
+        for (int i = 0; i < triangleUpdateBuffer.size(); i++) {
+            Triangle t = triangleUpdateBuffer.get(i);
+            if (t.retired) continue;  // dropped by the governor
+            if (t.update()) {
+                triangleUpdateBuffer.set(kept++, t);
+            } else if (!t.mustDie) {
+                bakeQueue.add(t);
+            }
+        }
+        truncate(triangleUpdateBuffer, kept);
+
+        if (retiredCount > 0) {
+            kept = 0;
+            for (int i = 0; i < triangles.size(); i++) {
+                Triangle t = triangles.get(i);
+                if (t.retired) {
+                    spareTriangles.add(t);
+                } else {
+                    triangles.set(kept++, t);
+                }
+            }
+            truncate(triangles, kept);
+            retiredCount = 0;
+            outlineDirty = true;
+        }
+    }
+
+    // Removing from the end shifts nothing, unlike subList().clear() it allocates nothing
+    private static void truncate(List<Triangle> list, int size) {
+        for (int i = list.size() - 1; i >= size; i--) list.remove(i);
+    }
+
+    public void render(RenderSink sink, boolean ambientMode) {
+        // @TODO background is drawn before this call, change this at some point
+
+        if (ambientMode) {
+            sink.setAntiAlias(false);
+            sink.setStrokeStyle(1.0f);
+            sink.setColor(Colors.GRAY);
+            if (outlineDirty) {
+                outlinePath.rewind();
+                for (int i = 0; i < triangles.size(); i++) {
+                    outlinePath.addPath(triangles.get(i).pathOutline);
+                }
+                outlineDirty = false;
+            }
+            sink.drawPath(outlinePath);
+
+        } else {
+            sink.setAntiAlias(true);
+            sink.setFillStyle();
+            if (historyMode) {
+                updateHistoryLayer(sink);
+                sink.drawLayer(historyLayer);
+            }
+            updateBakeLayer(sink);
+
+            // The layer goes where its oldest triangle is, exact as long as the baked ones
+            // are one run of the list, which they mostly are: the live ones are the newest
+            // fading in and the oldest fading out
+            boolean layerDrawn = false;
+            for (int i = 0; i < triangles.size(); i++) {
+                Triangle t = triangles.get(i);
+                if (t.retired) continue;  // in the history layer already
+                if (!t.baked) {
+                    t.render(sink);
+                } else if (!layerDrawn) {
+                    sink.drawLayer(bakeLayer);
+                    layerDrawn = true;
+                }
+            }
+
+            renderTriangleCursor(sink, clock.getAlpha());
+        }
+
+    }
+
+    // Adds the triangles that settled since last frame to the arrangement and redraws the
+    // layer from it, every pixel is filled once however many triangles overlap there
+    void updateBakeLayer(RenderSink sink) {
+        if (!bakeDirty && bakeQueue.isEmpty()) return;
+
+        for (int i = 0; i < bakeQueue.size(); i++) {
+            Triangle t = bakeQueue.get(i);
+            if (t.mustDie) continue;  // killed before it got baked
+            t.baked = true;
+            arrangement.add(t, triangles);
+        }
+        bakeQueue.clear();
+
+        if (!arrangement.isValid() || arrangement.isFragmented()) arrangement.rebuild(triangles);
+
+        sink.beginLayer(bakeLayer, true);
+        if (arrangement.isValid()) {
+            arrangement.render(sink);
+        } else {
+            // Too much for the arrangement, fall back to painting them in order
+            for (int i = 0; i < triangles.size(); i++) {
+                Triangle t = triangles.get(i);
+                if (t.baked) t.render(sink);
+            }
+        }
+        sink.endLayer();
+        bakeDirty = false;
+    }
+
+    // Fades what the layer holds as often as due, then draws the triangles pushed off the
+    // board since last frame on top and retires them. A layer lost to a new screen size
+    // starts over empty, there's nothing to redraw it from
+    void updateHistoryLayer(RenderSink sink) {
+        if (historyFades > 0 && !historyClear) {
+            int alpha = 255;
+            for (int i = 0; i < historyFades && alpha > 0; i++) alpha = alpha * HISTORY_FADE_ALPHA / 255;
+            sink.fadeLayer(historyLayer, alpha);
+        }
+        historyFades = 0;
+        if (historyQueue.isEmpty() && !historyClear) return;
+
+        sink.beginLayer(historyLayer, historyClear);
+        for (int i = 0; i < historyQueue.size(); i++) {
+            Triangle t = historyQueue.get(i);
+            t.render(sink);
+            t.retire();
+        }
+        sink.endLayer();
+        historyQueue.clear();
+        historyClear = false;
+    }
+
+    void renderTriangleCursor(RenderSink sink, float alpha) {
+        float cursorX = cursor.renderX(alpha);
+        float cursorY = cursor.renderY(alpha);
+
+        Bounce a = bounces[1];
+        Bounce b = bounces[2];
+
+        // Two points on the circle and one inside it, nothing to clip on a round screen
+        cursorPath.rewind();
+        cursorPath.moveTo(a.x, a.y);
+        cursorPath.lineTo(cursorX, cursorY);
+        cursorPath.lineTo(b.x, b.y);
+
+        // gradient fill on projection, the cursor's foot on a-b is a + (d.p / d.d) d, no
+        // length needed. The colors only change with the minute, so the sink keeps moving
+        // the same shader onto these endpoints
+        float dx = b.x - a.x;
+        float dy = b.y - a.y;
+        float dd = dx * dx + dy * dy;
+        float s = dd == 0 ? 0 : (dx * (cursorX - a.x) + dy * (cursorY - a.y)) / dd;
+        cursorProjectionX = a.x + s * dx;
+        cursorProjectionY = a.y + s * dy;
+        sink.setLinearGradient(cursorX, cursorY,
+                cursorProjectionX, cursorProjectionY,
+                Colors.argb(CURSOR_TIP_ALPHA, currentR, currentG, currentB),
+                Colors.argb(COLOR_TRIANGLE_ALPHA, currentR, currentG, currentB));
+        sink.drawPath(cursorPath);
+        sink.clearShader();
+    }
+
+    void addBounce(int xpos, int ypos) {
+        // A cursor resting on a wall bounces on the same side every frame, skip those
+        if (bounceCount > 2) {
+            if (Bounce.sideOf(this, xpos, ypos) == bounces[2].side) return;
+
+            // Jittering in a corner, the newest bounce takes the latest contact so the next
+            // triangle starts where the cursor is, not where it first hit
+            float dx = xpos - bounces[2].x, dy = ypos - bounces[2].y;
+            if (stepCount - lastBounceStep < BOUNCE_MERGE_STEPS &&
+                    dx * dx + dy * dy < BOUNCE_MERGE_DISTANCE * BOUNCE_MERGE_DISTANCE) {
+                bounces[2].set(this, xpos, ypos);
+                lastBounceStep = stepCount;
+                return;
+            }
+        }
+        lastBounceStep = stepCount;
+
+        // Otherwise, add it to the array, rotating the oldest round to the end to keep it
+        // down to three elements
+        Bounce bounce;
+        if (bounceCount > 2) {
+            bounce = bounces[0];
+            bounces[0] = bounces[1];
+            bounces[1] = bounces[2];
+            bounces[2] = bounce;
+        } else {
+            bounce = bounces[bounceCount++];
+        }
+        bounce.set(this, xpos, ypos);
+
+        if (bounceCount > 2) {
+            Triangle t = spareTriangles.isEmpty() ?
+                    new Triangle(this) : spareTriangles.remove(spareTriangles.size() - 1);
+            t.set(bounces[0], bounces[1], bounces[2],
+                    cursorProjectionX, cursorProjectionY);
+            triangles.add(t);
+            outlineDirty = true;
+//            triangleUpdateBuffer.add(t);  // added to Triangle.constructor
+
+            if (triangles.size() > MAX_TRIANGLE_COUNT) {
+                // Remove however many triangles above the limit
+                int criminals = triangles.size() - MAX_TRIANGLE_COUNT;
+                for (int i = 0; i < criminals; i++) {
+                    Triangle condemned = triangles.get(i);
+                    if (!condemned.mustDie && historyMode) {
+                        condemned.sendToHistory();
+                    } else if (!condemned.mustDie) {
+                        if (dyingCount >= MAX_DYING_TRIANGLES) retireOldestDying();
+                        // One still fading in is already updating, don't add it twice
+                        if (!condemned.needsUpdate) triangleUpdateBuffer.add(condemned);
+                        condemned.kill();  // if it wasn't flagged before
+                    }
+                }
+            }
+
+            // After triangle was created with current color, generate a new one
+            triangleColorNew = generateTriangleColor();
+        }
+    }
+
+    // Skips the rest of its fade, update() drops it from the buffers
+    void retireOldestDying() {
+        for (int i = 0; i < triangles.size(); i++) {
+            Triangle t = triangles.get(i);
+            if (t.mustDie && !t.retired && !t.historic) {
+                t.retire();
+                return;
+            }
+        }
+    }
+
+    int generateTriangleColor() {
+        // start range at the minute of the hour mapped to the total hue, minus half the range
+        int totalHue = 360;
+        int startHue = (minute * 6) - (RANGE_HUE / 2);
+        int endHue   = startHue + RANGE_HUE;
+
+        // find random number between the range
+        int randomHue = randomRange(startHue, endHue);
+
+        // adjust the random number
+        if (randomHue < 0) {
+            randomHue += totalHue;
+        } else if (randomHue > totalHue) {
+            randomHue -= totalHue;
+        }
+
+        int currentTriangleColor = Colors.HSVToColor(COLOR_TRIANGLE_ALPHA, (float) randomHue, 1.0f, 1.0f);
+        currentR = Colors.red(currentTriangleColor);
+        currentG = Colors.green(currentTriangleColor);
+        currentB = Colors.blue(currentTriangleColor);
+
+        return currentTriangleColor;
+    }
+
+    int randomRange(int min, int max) {
+        int range = (max - min) + 1;
+        return (int)(Math.random() * range) + min;
+    }
+
+}
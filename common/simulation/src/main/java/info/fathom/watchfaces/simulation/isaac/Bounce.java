@@ -0,0 +1,51 @@
+package info.fathom.watchfaces.simulation.isaac;
+
+class Bounce {
+
+    final static double TAU_MINUS_3_8 = -0.75 * Math.PI;
+    final static double TAU_MINUS_1_8 = -0.25 * Math.PI;
+    final static double TAU_PLUS_1_8 = 0.25 * Math.PI;
+    final static double TAU_PLUS_3_8 = 0.75 * Math.PI;
+
+    int x, y;
+    int side;  // 0 for top... 3 for left (clockwise)
+    int color;
+
+    Bounce() {}
+
+    Bounce(Board board, int x_, int y_) {
+        set(board, x_, y_);
+    }
+
+    void set(Board board, int x_, int y_) {
+        x = x_;
+        y = y_;
+        side = sideOf(board, x, y);
+        color = board.triangleColorNew;
+    }
+
+    void set(Bounce other) {
+        x = other.x;
+        y = other.y;
+        side = other.side;
+        color = other.color;
+    }
+
+    static int sideOf(Board board, int x, int y) {
+        if (board.isRound) {
+            double angle = Math.atan2(y - board.centerY, x - board.centerX);
+            if (angle > TAU_MINUS_3_8 && angle <= TAU_MINUS_1_8) return 0;
+            else if (angle > TAU_MINUS_1_8 && angle <= TAU_PLUS_1_8) return 1;
+            else if (angle > TAU_PLUS_1_8 && angle <= TAU_PLUS_3_8) return 2;
+            else return 3;
+
+        } else {
+            if (x == 0)                 return 3;
+            else if (x == board.width)  return 1;
+            else if (y == 0)            return 0;
+            else if (y == board.height) return 2;
+            return 0;
+        }
+    }
+
+}
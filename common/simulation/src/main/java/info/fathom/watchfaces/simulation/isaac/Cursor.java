@@ -0,0 +1,143 @@
+package info.fathom.watchfaces.simulation.isaac;
+
+class Cursor {
+
+    private static final float FRICTION = 1.0f;
+    private static final float ACCEL_FACTOR = 0.40f;
+    private static final float REST_VELOCITY = 0.10f;       // px per frame
+    private static final float REST_ACCELERATION = 0.02f;   // px per frame^2
+    private static final int   MAX_CONTACTS_PER_STEP = 4;   // the rest of a step past this is clamped
+    private static final float CONTACT_EPSILON = 0.001f;    // px
+//    private static final float FRICTION = 0.80f;
+//    private static final float ACCEL_FACTOR = 0.45f;
+
+    Board parent;
+    float x, y;
+    float prevX, prevY;  // position before the last update, to interpolate rendering
+    float velX, velY;
+
+    Cursor(Board parent_) {
+        parent = parent_;
+
+        x = 0.50f * parent.width;
+        y = 0.01f * parent.height;
+        prevX = x;
+        prevY = y;
+        velX = velY = 0;
+    }
+
+    void moveTo(float x_, float y_) {
+        x = prevX = x_;
+        y = prevY = y_;
+    }
+
+    float renderX(float alpha) {
+        return prevX + alpha * (x - prevX);
+    }
+
+    float renderY(float alpha) {
+        return prevY + alpha * (y - prevY);
+    }
+
+    boolean isAtRest() {
+        float accX = ACCEL_FACTOR * parent.gravityX;
+        float accY = ACCEL_FACTOR * parent.gravityY;
+        return velX * velX + velY * velY < REST_VELOCITY * REST_VELOCITY &&
+                accX * accX + accY * accY < REST_ACCELERATION * REST_ACCELERATION;
+    }
+
+    void update() {
+        prevX = x;
+        prevY = y;
+        velX += ACCEL_FACTOR * -parent.gravityX;
+        velY += ACCEL_FACTOR * parent.gravityY;
+        velX *= FRICTION;
+        velY *= FRICTION;
+
+        // Swept along the step: move to the earliest wall contact, bounce there and go on
+        // with what is left of the step, so corners and several walls in one step all
+        // bounce in order and a fast cursor can't skip past the edge
+        float remaining = 1;
+        for (int contacts = 0; contacts < MAX_CONTACTS_PER_STEP; contacts++) {
+            float t = parent.isRound ? timeToCircle(remaining) : timeToWalls(remaining);
+            if (t > remaining) break;
+
+            x += t * velX;
+            y += t * velY;
+            remaining -= t;
+            boolean bounced = parent.isRound ? bounceOffCircle() : bounceOffWalls();
+            if (!bounced) break;  // grazing, nothing to reflect
+            parent.addBounce(Math.round(x), Math.round(y));
+        }
+        x += remaining * velX;
+        y += remaining * velY;
+
+        // Out of budget, or rounding, left it outside
+        if (parent.isRound) {
+            float dx = x - parent.centerX, dy = y - parent.centerY;
+            float r = (float) Math.sqrt(dx * dx + dy * dy);
+            if (r > parent.radius) {
+                x = parent.centerX + dx * parent.radius / r;
+                y = parent.centerY + dy * parent.radius / r;
+            }
+        } else {
+            x = Math.max(0, Math.min(parent.width, x));
+            y = Math.max(0, Math.min(parent.height, y));
+        }
+    }
+
+    // Fraction of the step until the next wall the cursor is heading for, past the end
+    // of the step if none is in reach
+    private float timeToWalls(float remaining) {
+        float t = remaining + 1;
+        if (velX > 0) t = Math.min(t, (parent.width - x) / velX);
+        else if (velX < 0) t = Math.min(t, -x / velX);
+        if (velY > 0) t = Math.min(t, (parent.height - y) / velY);
+        else if (velY < 0) t = Math.min(t, -y / velY);
+        return Math.max(t, 0);
+    }
+
+    // Reflects off every wall the cursor is on and heading into, both of them in a corner
+    private boolean bounceOffWalls() {
+        boolean bounced = false;
+        if ((velX > 0 && x >= parent.width - CONTACT_EPSILON) || (velX < 0 && x <= CONTACT_EPSILON)) {
+            velX = -velX;
+            bounced = true;
+        }
+        if ((velY > 0 && y >= parent.height - CONTACT_EPSILON) || (velY < 0 && y <= CONTACT_EPSILON)) {
+            velY = -velY;
+            bounced = true;
+        }
+        return bounced;
+    }
+
+    // Fraction of the step until the cursor reaches the circle moving outwards, the larger
+    // root of |p + t v - c| = radius
+    private float timeToCircle(float remaining) {
+        double dx = x - parent.centerX;
+        double dy = y - parent.centerY;
+        double a = velX * velX + velY * velY;
+        if (a == 0) return remaining + 1;
+        double b = 2 * (velX * dx + velY * dy);
+        double c = dx * dx + dy * dy - parent.radius * parent.radius;
+        double disc = b * b - 4 * a * c;
+        if (disc < 0) return c > 0 ? 0 : remaining + 1;  // only outside, bounce right here
+        double t = (-b + Math.sqrt(disc)) / (2 * a);
+        if (t < 0) return c > 0 && b > 0 ? 0 : remaining + 1;
+        return (float) t;
+    }
+
+    // Mirrors the velocity on the tangent at the contact point, if heading out
+    private boolean bounceOffCircle() {
+        float nx = x - parent.centerX;
+        float ny = y - parent.centerY;
+        float nn = nx * nx + ny * ny;
+        float vn = velX * nx + velY * ny;
+        if (nn == 0 || vn <= 0) return false;
+        float k = 2 * vn / nn;
+        velX -= k * nx;
+        velY -= k * ny;
+        return true;
+    }
+
+}
@@ -0,0 +1,253 @@
+package info.fathom.watchfaces.simulation.isaac;
+
+import info.fathom.watchfaces.simulation.Colors;
+import info.fathom.watchfaces.simulation.RenderSink;
+import info.fathom.watchfaces.simulation.VectorPath;
+
+class Triangle {
+
+    private final static float VERTICES_ANIM_SPEED = 0.25f;
+    private final static int   VERTICES_ANIM_END_THRESHOLD = 5;
+    private final static float COLOR_ANIM_SPEED = 0.10f;
+
+    int id;
+    int slot;  // fixed for the life of this object, while id changes on every reuse
+    Board parent;
+
+    Bounce start, middle, end, corner;
+    VectorPath pathFull, pathOutline;
+    boolean animateVertices, animateColor;
+    boolean needsUpdate;
+    boolean containsCornerBounce = false;
+    float cornerX, cornerY;
+
+    int baseColor, currentColor, targetColor;
+    int currA, currR, currG, currB;
+    int currentTipAlpha;
+
+    float gradEndX, gradEndY;  // gradient target passed by Cursor
+    boolean animateGradient;
+
+    boolean mustDie;
+    boolean retired;  // faded out, the board moves it to its spares on the next compaction
+    boolean baked;  // drawn into the board's bake layer instead of every frame
+    boolean historic;  // goes into the board's history layer on the next frame instead of fading out
+
+    // Triangles are recycled by the Board, set() makes this one span a new bounce
+    Triangle(Board parent_) {
+        parent = parent_;
+        slot = parent.triangleSlotCount++;
+        start = new Bounce();
+        middle = new Bounce();
+        end = new Bounce();
+        corner = new Bounce();
+        pathFull = new VectorPath(2 * (Arrangement.MAX_VERTICES + 1), 4 * Arrangement.MAX_VERTICES);
+        pathOutline = new VectorPath();
+    }
+
+    void set(Bounce start_, Bounce middle_, Bounce end_, float gradEndX_, float gradEndY_) {
+        id = parent.triangleCounter++;
+
+        // Copies, the board reuses its bounces
+        if (start_.side == 0 && middle_.side == 3) {
+            start.set(middle_);
+            middle.set(start_);
+        } else if (start_.side < middle_.side) {
+            start.set(start_);
+            middle.set(middle_);
+        } else if (start_.side == 3 && middle_.side == 0) {
+            start.set(start_);
+            middle.set(middle_);
+        } else {
+            start.set(middle_);
+            middle.set(start_);
+        }
+        end.set(end_);
+
+        containsCornerBounce = middle.side - start.side != 2;
+        animateVertices = false;
+        mustDie = false;
+        retired = false;
+        baked = false;
+        historic = false;
+        if (containsCornerBounce) {
+            setCornerBounce();
+            animateVertices = true;
+            cornerX = Math.min(start.x, middle.x) + 0.5f * Math.abs(start.x - middle.x);
+            cornerY = Math.min(start.y, middle.y) + 0.5f * Math.abs(start.y - middle.y);
+        }
+
+        tracePathFull();
+
+        pathOutline.rewind();
+        pathOutline.moveTo(start.x, start.y);
+        pathOutline.lineTo(end.x, end.y);
+        pathOutline.lineTo(middle.x, middle.y);
+        if (!containsCornerBounce) pathOutline.close();
+
+        baseColor = parent.triangleColorNew;
+        currentColor = targetColor = baseColor;
+        animateColor = false;
+        interpolateColor(currentColor, targetColor, 1);  // initialize currentARGBs
+
+        // start off a gradient fill
+        gradEndX = gradEndX_;
+        gradEndY = gradEndY_;
+        currentTipAlpha = Board.CURSOR_TIP_ALPHA;
+        animateGradient = true;  // kick off transition from the beginning
+
+        needsUpdate = true;
+        parent.triangleUpdateBuffer.add(this);
+    }
+
+    // On a round screen the corner vertex is far off it, the fill is clipped to the circle
+    // here instead of every frame. Vertices on the circle need nothing
+    private void tracePathFull() {
+        if (containsCornerBounce && parent.isRound) {
+            parent.arrangement.tracePath(this, pathFull);
+            return;
+        }
+        pathFull.rewind();
+        pathFull.moveTo(start.x, start.y);
+        if (containsCornerBounce) pathFull.lineTo(cornerX, cornerY);
+        pathFull.lineTo(middle.x, middle.y);
+        pathFull.lineTo(end.x, end.y);
+    }
+
+    public boolean update() {
+
+        if (animateVertices) {
+            float diffX = corner.x - cornerX,
+                    diffY = corner.y - cornerY;
+
+            if (Math.abs(diffX) < VERTICES_ANIM_END_THRESHOLD && Math.abs(diffY) < VERTICES_ANIM_END_THRESHOLD) {
+                cornerX = corner.x;
+                cornerY = corner.y;
+                animateVertices = false;
+
+            } else {
+                cornerX += VERTICES_ANIM_SPEED * diffX;
+                cornerY += VERTICES_ANIM_SPEED * diffY;
+            }
+
+            tracePathFull();
+        }
+
+        if (animateColor) {
+            int prevColor = currentColor;
+            currentColor = interpolateColor(currentColor, targetColor, COLOR_ANIM_SPEED);
+
+            if (prevColor == currentColor) {
+                animateColor = false;
+                if (mustDie) retire();
+            }
+        }
+
+        if (animateGradient) {
+            int prevAlpha = currentTipAlpha;
+            currentTipAlpha += COLOR_ANIM_SPEED * (Board.COLOR_TRIANGLE_ALPHA - currentTipAlpha);
+
+            if (prevAlpha == currentTipAlpha) {
+                animateGradient = false;
+            }
+        }
+
+        needsUpdate = animateVertices || animateColor || animateGradient;
+        return needsUpdate;
+    }
+
+    public void render(RenderSink sink) {
+        if (animateGradient) {
+            // The tip -> base alpha ramp, as the base color with a fade to nothing over it.
+            // Only the strength of the fade changes as the tip settles, which the sink
+            // draws with the same shader every frame
+            int base = Board.COLOR_TRIANGLE_ALPHA;
+            int fade = Math.round(255f * (currentTipAlpha - base) / (255 - base));
+            sink.setColor(Colors.argb(base, currR, currG, currB));
+            sink.drawPath(pathFull);
+            if (fade > 0) {
+                sink.setLinearGradient(end.x, end.y,
+                        gradEndX, gradEndY,
+                        Colors.argb(fade, currR, currG, currB),
+                        Colors.argb(0, currR, currG, currB));
+                sink.drawPath(pathFull);
+                sink.clearShader();
+            }
+
+        } else {
+            sink.setColor(currentColor);
+            sink.drawPath(pathFull);
+        }
+    }
+
+    public void kill() {
+        unbake();
+        mustDie = true;
+        parent.dyingCount++;
+        targetColor = Colors.argb(0, currR, currG, currB);
+        animateColor = true;
+        needsUpdate = true;
+    }
+
+    // Leaves the live ones as it looks now, the board draws it into its history layer once
+    void sendToHistory() {
+        unbake();
+        mustDie = true;
+        historic = true;
+        animateVertices = animateColor = animateGradient = false;
+        needsUpdate = false;
+        parent.historyQueue.add(this);
+    }
+
+    void retire() {
+        retired = true;
+        parent.retiredCount++;
+        if (!historic) parent.dyingCount--;
+    }
+
+    private void unbake() {
+        if (baked) {
+            baked = false;
+            parent.arrangement.remove(this, parent.triangles);
+            parent.bakeDirty = true;  // drawn live until it's gone, the layer gets redrawn without it
+        }
+    }
+
+    private int interpolateColor(int sourceColor, int targetColor, float parameter) {
+        int sA = (sourceColor >> 24) & 0xFF;
+        int sR = (sourceColor >> 16) & 0xFF;
+        int sG = (sourceColor >> 8) & 0xFF;
+        int sB = (sourceColor) & 0xFF;
+
+        int tA = (targetColor >> 24) & 0xFF;
+        int tR = (targetColor >> 16) & 0xFF;
+        int tG = (targetColor >> 8) & 0xFF;
+        int tB = (targetColor) & 0xFF;
+
+        currA = sA + (int) (parameter * (tA - sA));
+        currR = sR + (int) (parameter * (tR - sR));
+        currG = sG + (int) (parameter * (tG - sG));
+        currB = sB + (int) (parameter * (tB - sB));
+
+        return Colors.argb(currA, currR, currG, currB);
+    }
+
+    private void setCornerBounce() {
+        switch (start.side) {
+            case 0:
+                corner.set(parent, parent.width, 0);
+                break;
+            case 1:
+                corner.set(parent, parent.width, parent.height);
+                break;
+            case 2:
+                corner.set(parent, 0, parent.height);
+                break;
+            case 3:
+            default:
+                corner.set(parent, 0, 0);
+                break;
+        }
+    }
+
+}
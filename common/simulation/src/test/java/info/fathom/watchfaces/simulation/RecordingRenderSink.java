@@ -0,0 +1,56 @@
+package info.fathom.watchfaces.simulation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Draws nothing, keeps what was done to layers for tests to look at.
+ */
+public class RecordingRenderSink implements RenderSink {
+
+    public final List<Integer> fades = new ArrayList<>();  // alpha of each fadeLayer()
+    public final List<RenderLayer> released = new ArrayList<>();
+    public int liveLayers;  // drawn into and not released
+
+    @Override public void setColor(int argb) {}
+    @Override public void setAntiAlias(boolean antiAlias) {}
+    @Override public void setFillStyle() {}
+    @Override public void setStrokeStyle(float strokeWidth) {}
+    @Override public void setLinearGradient(float x0, float y0, float x1, float y1, int color0, int color1) {}
+    @Override public void clearShader() {}
+    @Override public void setAtop(boolean atop) {}
+    @Override public void setAdditive(boolean additive) {}
+    @Override public void drawPath(VectorPath path) {}
+    @Override public void drawCircle(float cx, float cy, float radius) {}
+    @Override public void drawText(String text, float cx, float cy, float textSize) {}
+    @Override public void save() {}
+    @Override public void restore() {}
+    @Override public void translate(float dx, float dy) {}
+    @Override public void scale(float sx, float sy) {}
+    @Override public void clipPath(VectorPath path) {}
+
+    @Override
+    public boolean beginLayer(RenderLayer layer, boolean clear) {
+        boolean kept = layer.platformLayer != null;
+        if (!kept) liveLayers++;
+        layer.platformLayer = layer;
+        return kept;
+    }
+
+    @Override public void endLayer() {}
+    @Override public void drawLayer(RenderLayer layer) {}
+    @Override public void drawLayer(RenderLayer layer, int srcX, int srcY, int width, int height, int dstX, int dstY) {}
+    @Override public void clearRect(int left, int top, int right, int bottom) {}
+
+    @Override
+    public void fadeLayer(RenderLayer layer, int alpha) {
+        fades.add(alpha);
+    }
+
+    @Override
+    public void releaseLayer(RenderLayer layer) {
+        released.add(layer);
+        if (layer.platformLayer != null) liveLayers--;
+        layer.platformLayer = null;
+    }
+}
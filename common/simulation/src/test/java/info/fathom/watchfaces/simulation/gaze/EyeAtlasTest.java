@@ -0,0 +1,90 @@
+package info.fathom.watchfaces.simulation.gaze;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import info.fathom.watchfaces.simulation.RecordingRenderSink;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class EyeAtlasTest {
+
+    private static final int[] EYE_WIDTHS = { 49, 72, 97 };
+    private static final int EYES = 100;
+
+    private EyeMosaic mosaic;
+    private RecordingRenderSink sink;
+
+    @Before
+    public void setUp() {
+        mosaic = new EyeMosaic();
+        mosaic.setScreenSize(320, 320);
+        for (int i = 0; i < EYES; i++) {
+            mosaic.addEye(32 * (i % 10) + 16, 32 * (i / 10) + 16, EYE_WIDTHS[i % EYE_WIDTHS.length]);
+        }
+        sink = new RecordingRenderSink();
+    }
+
+    @Test
+    public void givesCellsToActiveEyesOnly() {
+        mosaic.activateRandomEye(5);
+        mosaic.render(sink);
+        assertCellsOfActiveEyes(5);
+
+        mosaic.deactivateRandomEye(2);
+        mosaic.render(sink);
+        assertCellsOfActiveEyes(3);
+    }
+
+    @Test
+    public void reusesTheCellsOfEyesGoneInactive() {
+        mosaic.activateRandomEye(EYES);
+        mosaic.render(sink);
+        int released = sink.released.size();
+
+        for (int round = 0; round < 10; round++) {
+            mosaic.reset();
+            mosaic.activateRandomEye(EYES);
+            mosaic.render(sink);
+        }
+        assertCellsOfActiveEyes(EYES);
+        for (int i = 0; i < EYES; i++) assertTrue(mosaic.eyes[i].cell < EYES);
+        assertEquals(released, sink.released.size());
+    }
+
+    @Test
+    public void releasesTheLayersItReplaces() {
+        mosaic.activateRandomEye(1);
+        mosaic.render(sink);
+        assertEquals(2, sink.liveLayers);
+
+        // More cells than the layer holds, then a width the sprites don't have
+        mosaic.activateRandomEye(EYES);
+        mosaic.render(sink);
+        assertFalse(sink.released.isEmpty());
+        assertEquals(2, sink.liveLayers);
+
+        mosaic.addEye(160, 160, 120);
+        mosaic.render(sink);
+        assertEquals(2, sink.liveLayers);
+        assertCellsOfActiveEyes(EYES);
+    }
+
+    // Active eyes have a cell each, no two the same, inactive ones have none
+    private void assertCellsOfActiveEyes(int count) {
+        assertEquals(count, mosaic.activeEyes.size());
+        boolean[] taken = new boolean[mosaic.eyeCount];
+        for (int i = 0; i < mosaic.eyeCount; i++) {
+            Eye eye = mosaic.eyes[i];
+            if (!mosaic.activeEyes.contains(i)) {
+                assertEquals(-1, eye.cell);
+                continue;
+            }
+            assertTrue(eye.cell >= 0);
+            assertFalse(taken[eye.cell]);
+            taken[eye.cell] = true;
+        }
+    }
+}
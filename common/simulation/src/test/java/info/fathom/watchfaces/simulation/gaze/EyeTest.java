@@ -0,0 +1,84 @@
+package info.fathom.watchfaces.simulation.gaze;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class EyeTest {
+
+    private EyeMosaic mosaic;
+    private Eye eye;
+
+    @Before
+    public void setUp() {
+        mosaic = new EyeMosaic();
+        mosaic.setScreenSize(320, 320);
+        mosaic.addEye(160, 160, 97);
+        mosaic.activateRandomEye(1);
+        eye = mosaic.eyes[0];
+        while (!mosaic.isSettled()) mosaic.update();
+    }
+
+    @Test
+    public void looksBackAfterLookingSidewaysForAWhile() {
+        eye.lookLeft();
+        boolean arrived = false;
+        for (int step = 1; step <= 1000; step++) {
+            mosaic.update();
+            if (!mosaic.updating.contains(eye.id)) arrived = true;
+            if (mosaic.targetPupilX[eye.id] == 0) {
+                assertTrue("still turning", arrived);
+                assertTrue("looked back after " + step, step >= Eye.SIDE_LOOK_DURATION);
+                assertTrue("looked back after " + step, step <= Eye.SIDE_LOOK_DURATION + Eye.SIDE_LOOK_RANDOM_VAR_ADD);
+                return;
+            }
+        }
+        throw new AssertionError("never looked back");
+    }
+
+    @Test
+    public void waitsForThePupilWhenTheLookRunsOutMidSwing() {
+        eye.lookLeft();
+        float left = mosaic.targetPupilX[eye.id];
+        mosaic.timers.set(eye.id, 1);
+
+        for (int step = 0; step < 1000; step++) {
+            mosaic.update();
+            if (mosaic.targetPupilX[eye.id] == 0) {
+                assertEquals(left, mosaic.pupilX[eye.id], 0);  // got there this step
+                assertTrue(mosaic.updating.contains(eye.id));  // and is on its way back
+                assertFalse(eye.lookingSideways);
+                return;
+            }
+        }
+        throw new AssertionError("never looked back");
+    }
+
+    @Test
+    public void startsTheSideLookOverOnAnotherLook() {
+        eye.lookLeft();
+        for (int i = 0; i < Eye.SIDE_LOOK_DURATION - 1; i++) mosaic.update();
+
+        // Not back to the center from the left one, the right one gets its whole time
+        eye.lookRight();
+        for (int i = 0; i < Eye.SIDE_LOOK_DURATION - 1; i++) mosaic.update();
+        assertTrue(eye.lookingSideways);
+        assertEquals(2, eye.pupilPositionH);
+    }
+
+    @Test
+    public void sleepsWhileLookingSideways() {
+        eye.lookLeft();
+        int steps = 0;
+        while (!mosaic.isSettled()) {
+            mosaic.update();
+            steps++;
+        }
+        int idle = mosaic.getFramesToNextAction();
+        assertTrue(idle < Integer.MAX_VALUE);
+        assertTrue(steps + idle >= Eye.SIDE_LOOK_DURATION - 1);
+    }
+}
@@ -0,0 +1,178 @@
+package info.fathom.watchfaces.simulation.isaac;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import info.fathom.watchfaces.simulation.Colors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ArrangementTest {
+
+    private Board board;
+    private Arrangement arrangement;
+    private List<Triangle> order;
+
+    @Before
+    public void setUp() {
+        board = new Board();
+        arrangement = new Arrangement();
+        order = new ArrayList<>();
+    }
+
+    @Test
+    public void splitsCellsWhereTrianglesOverlap() {
+        Triangle a = add(0, 0, 200, 0, 0, 200, Colors.argb(100, 255, 0, 0));
+        Triangle b = add(100, 0, 300, 0, 100, 200, Colors.argb(100, 0, 0, 255));
+
+        assertEquals(bit(a) | bit(b), maskAt(120, 20));
+        assertEquals(bit(a), maskAt(50, 50));
+        assertEquals(bit(b), maskAt(200, 50));
+        assertEquals(0, maskAt(170, 170));
+
+        // Cells don't overlap and cover the union of the triangles
+        assertEquals(20000 + 20000 - 5000, totalArea(), 1);
+        assertEquals(overColor(a.currentColor, b.currentColor), colorAt(120, 20));
+    }
+
+    @Test
+    public void keepsCellsUnderATriangleThatCoversThemWhole() {
+        Triangle small = add(40, 40, 80, 40, 40, 80, Colors.argb(100, 255, 0, 0));
+        Triangle big = add(0, 0, 300, 0, 0, 300, Colors.argb(100, 0, 255, 0));
+
+        int both = 0;
+        for (int i = 0; i < arrangement.cells.size(); i++) {
+            Arrangement.Cell c = arrangement.cells.get(i);
+            if (c.mask == (bit(small) | bit(big))) {
+                both++;
+                assertEquals(800, c.area(), 0.01);
+            }
+        }
+        assertEquals(1, both);
+        assertEquals(45000, totalArea(), 1);
+    }
+
+    @Test
+    public void dropsDegenerateSlivers() {
+        Triangle a = add(0, 0, 200, 0, 0, 200, Colors.argb(100, 255, 0, 0));
+
+        // Collinear, and only touching the first one along its long edge
+        add(-50, 50, 50, 50, 150, 50, Colors.argb(100, 0, 255, 0));
+        Triangle b = add(200, 0, 0, 200, 201, 200, Colors.argb(100, 0, 0, 255));
+        assertTrue(arrangement.isValid());
+        assertEquals(20000 + 20100, totalArea(), 1);
+
+        // Overlapping the first one's corner by a tenth of a pixel
+        Triangle c = add(199, 0, 260, -10, 260, 10, Colors.argb(100, 0, 0, 255));
+        assertTrue(arrangement.isValid());
+
+        int cellsOfA = 0;
+        for (int i = 0; i < arrangement.cells.size(); i++) {
+            Arrangement.Cell cell = arrangement.cells.get(i);
+            assertTrue(cell.area() >= Arrangement.MIN_AREA);
+            if ((cell.mask & bit(a)) != 0) {
+                cellsOfA++;
+                assertEquals(bit(a), cell.mask);
+            }
+        }
+        assertEquals(1, cellsOfA);
+        assertEquals(bit(b), maskAt(150, 150));
+        assertEquals(bit(c), maskAt(240, 0));
+    }
+
+    @Test
+    public void runningOutOfCellsInvalidatesUntilCleared() {
+        Random random = new Random(1);
+        int added = 0;
+        while (arrangement.isValid() && added < Arrangement.MAX_SLOTS) {
+            add(random.nextInt(320), random.nextInt(320), random.nextInt(320), random.nextInt(320),
+                    random.nextInt(320), random.nextInt(320), Colors.argb(100, 255, 0, 0));
+            added++;
+        }
+        assertFalse("pool never ran out", arrangement.isValid());
+        assertFalse(arrangement.add(order.get(0), order));
+
+        // All the cells are back, including the ones of the add() that failed
+        arrangement.clear();
+        assertTrue(arrangement.isValid());
+        for (int i = 0; i < 16; i++) assertTrue(arrangement.add(order.get(i), order));
+    }
+
+    @Test
+    public void slotsPastTheMaskInvalidate() {
+        while (board.triangleSlotCount < Arrangement.MAX_SLOTS) new Triangle(board);
+        Triangle t = triangle(0, 0, 10, 0, 0, 10, Colors.argb(100, 255, 0, 0));
+        order.add(t);
+        assertFalse(arrangement.add(t, order));
+        assertFalse(arrangement.isValid());
+    }
+
+    private static long bit(Triangle t) {
+        return 1L << t.slot;
+    }
+
+    private Triangle add(int x0, int y0, int x1, int y1, int x2, int y2, int color) {
+        Triangle t = triangle(x0, y0, x1, y1, x2, y2, color);
+        order.add(t);
+        arrangement.add(t, order);
+        return t;
+    }
+
+    private Triangle triangle(int x0, int y0, int x1, int y1, int x2, int y2, int color) {
+        Triangle t = new Triangle(board);
+        t.start.x = x0;
+        t.start.y = y0;
+        t.middle.x = x1;
+        t.middle.y = y1;
+        t.end.x = x2;
+        t.end.y = y2;
+        t.containsCornerBounce = false;
+        t.currentColor = color;
+        t.baked = true;
+        return t;
+    }
+
+    private long maskAt(float x, float y) {
+        Arrangement.Cell c = cellAt(x, y);
+        return c == null ? 0 : c.mask;
+    }
+
+    private int colorAt(float x, float y) {
+        return cellAt(x, y).color;
+    }
+
+    private Arrangement.Cell cellAt(float x, float y) {
+        for (int i = 0; i < arrangement.cells.size(); i++) {
+            Arrangement.Cell c = arrangement.cells.get(i);
+            boolean inside = true;
+            for (int k = 0, j = c.n - 1; k < c.n; j = k++) {
+                float side = (c.xs[k] - c.xs[j]) * (y - c.ys[j]) - (c.ys[k] - c.ys[j]) * (x - c.xs[j]);
+                if (side < 0) inside = false;
+            }
+            if (inside) return c;
+        }
+        return null;
+    }
+
+    private float totalArea() {
+        float area = 0;
+        for (int i = 0; i < arrangement.cells.size(); i++) area += arrangement.cells.get(i).area();
+        return area;
+    }
+
+    // Source over, unpremultiplied
+    private static int overColor(int under, int over) {
+        float ua = Colors.alpha(under) / 255f, oa = Colors.alpha(over) / 255f;
+        float a = oa + ua * (1 - oa);
+        return Colors.argb(Math.round(255 * a),
+                Math.round((Colors.red(over) * oa + Colors.red(under) * ua * (1 - oa)) / a),
+                Math.round((Colors.green(over) * oa + Colors.green(under) * ua * (1 - oa)) / a),
+                Math.round((Colors.blue(over) * oa + Colors.blue(under) * ua * (1 - oa)) / a));
+    }
+}
@@ -0,0 +1,94 @@
+package info.fathom.watchfaces.simulation.isaac;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BoardTest {
+
+    private Board board;
+
+    @Before
+    public void setUp() {
+        board = new Board();
+        board.initialize(320, 320);
+    }
+
+    @Test
+    public void movesTheNewestBounceToAContactNearIt() {
+        board.stepCount = 100;
+        board.addBounce(4, 320);
+        int triangles = board.triangles.size();
+
+        // Around the corner, a step later
+        board.stepCount = 101;
+        board.addBounce(0, 310);
+        assertEquals(triangles, board.triangles.size());
+        assertEquals(0, board.bounces[2].x);
+        assertEquals(310, board.bounces[2].y);
+
+        // The next triangle starts from the latest contact
+        board.stepCount = 110;
+        board.addBounce(320, 200);
+        assertEquals(triangles + 1, board.triangles.size());
+        Triangle t = board.triangles.get(board.triangles.size() - 1);
+        assertTrue(hasVertex(t, 0, 310));
+    }
+
+    @Test
+    public void keepsContactsFarApartInTheSameStep() {
+        board.stepCount = 100;
+        int triangles = board.triangles.size();
+        board.addBounce(160, 320);
+        board.addBounce(0, 160);
+        assertEquals(triangles + 2, board.triangles.size());
+    }
+
+    @Test
+    public void keepsContactsNearEachOtherFarApartInTime() {
+        board.stepCount = 100;
+        board.addBounce(4, 320);
+        int triangles = board.triangles.size();
+        board.stepCount = 100 + Board.BOUNCE_MERGE_STEPS;
+        board.addBounce(0, 310);
+        assertEquals(triangles + 1, board.triangles.size());
+    }
+
+    @Test
+    public void boundsTheWorkOfAShakenSquareBoard() {
+        shake();
+    }
+
+    @Test
+    public void boundsTheWorkOfAShakenRoundBoard() {
+        board.setRound(true);
+        shake();
+    }
+
+    // Strong random gravity: live triangles stay at the limit, and fading out ones at theirs
+    private void shake() {
+        Random random = new Random(1);
+        int maxTriangles = 0, maxUpdating = 0, maxDying = 0;
+        for (int i = 0; i < 100000; i++) {
+            if (i % 10 == 0) board.setGravity(40 * random.nextFloat() - 20, 40 * random.nextFloat() - 20);
+            board.update();
+            maxTriangles = Math.max(maxTriangles, board.triangles.size());
+            maxUpdating = Math.max(maxUpdating, board.triangleUpdateBuffer.size());
+            maxDying = Math.max(maxDying, board.dyingCount);
+        }
+        int limit = Board.MAX_TRIANGLE_COUNT + Board.MAX_DYING_TRIANGLES;
+        assertTrue("triangles " + maxTriangles, maxTriangles <= limit);
+        assertTrue("updating " + maxUpdating, maxUpdating <= limit);
+        assertTrue("dying " + maxDying, maxDying <= Board.MAX_DYING_TRIANGLES);
+    }
+
+    private static boolean hasVertex(Triangle t, int x, int y) {
+        return (t.start.x == x && t.start.y == y) ||
+                (t.middle.x == x && t.middle.y == y) ||
+                (t.end.x == x && t.end.y == y);
+    }
+}
@@ -0,0 +1,89 @@
+package info.fathom.watchfaces.simulation.isaac;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CursorTest {
+
+    private static final float EPSILON = 0.01f;  // px
+
+    private Board board;
+
+    @Before
+    public void setUp() {
+        board = new Board();
+        board.initialize(320, 320);
+    }
+
+    @Test
+    public void bouncesOffBothWallsOfACornerInOneStep() {
+        board.setGravity(0, 0);
+        board.stepCount = 90;
+        board.addBounce(160, 0);
+        int triangles = board.triangles.size();
+
+        // Right wall at (320, 200) a fifth into the step, bottom wall at (260, 320)
+        board.stepCount = 100;
+        board.cursor.moveTo(300, 160);
+        board.cursor.velX = 100;
+        board.cursor.velY = 200;
+        board.cursor.update();
+
+        assertEquals(triangles + 2, board.triangles.size());
+        assertEquals(320, board.bounces[1].x);
+        assertEquals(200, board.bounces[1].y);
+        assertEquals(260, board.bounces[2].x);
+        assertEquals(320, board.bounces[2].y);
+        assertEquals(-100, board.cursor.velX, 0);
+        assertEquals(-200, board.cursor.velY, 0);
+        assertEquals(240, board.cursor.x, EPSILON);
+        assertEquals(280, board.cursor.y, EPSILON);
+    }
+
+    @Test
+    public void staysOnASquareBoard() {
+        shake();
+    }
+
+    @Test
+    public void staysOnARoundBoard() {
+        board.setRound(true);
+        shake();
+    }
+
+    // Gravity up to 200 gets the cursor to tens of thousands of px per step, every one
+    // of them has to end on the board and bounce on its edge
+    private void shake() {
+        Random random = new Random(1);
+        Cursor cursor = board.cursor;
+        for (int i = 0; i < 200000; i++) {
+            if (i % 10 == 0) board.setGravity(400 * random.nextFloat() - 200, 400 * random.nextFloat() - 200);
+            int bounceStep = board.lastBounceStep;
+            board.update();
+
+            if (board.isRound) {
+                float dx = cursor.x - board.centerX, dy = cursor.y - board.centerY;
+                assertTrue("step " + i, Math.sqrt(dx * dx + dy * dy) <= board.radius + EPSILON);
+            } else {
+                assertTrue("step " + i, cursor.x >= 0 && cursor.x <= board.width);
+                assertTrue("step " + i, cursor.y >= 0 && cursor.y <= board.height);
+            }
+            if (board.lastBounceStep != bounceStep) assertOnEdge(board.bounces[2], i);
+        }
+    }
+
+    // Within the rounding of the bounce to whole pixels
+    private void assertOnEdge(Bounce b, int step) {
+        if (board.isRound) {
+            float dx = b.x - board.centerX, dy = b.y - board.centerY;
+            assertEquals("step " + step, board.radius, Math.sqrt(dx * dx + dy * dy), 1);
+        } else {
+            assertTrue("step " + step, b.x == 0 || b.x == board.width || b.y == 0 || b.y == board.height);
+        }
+    }
+}
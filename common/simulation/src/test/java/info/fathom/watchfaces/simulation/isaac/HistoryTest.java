@@ -0,0 +1,74 @@
+package info.fathom.watchfaces.simulation.isaac;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import info.fathom.watchfaces.simulation.RecordingRenderSink;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HistoryTest {
+
+    private static final long HOUR = 60 * 60 * 1000;
+    private static final long START = 1445000000000L;
+
+    private Board board;
+    private RecordingRenderSink sink;
+
+    @Before
+    public void setUp() {
+        board = new Board();
+        board.setHistoryMode(true);
+        board.initialize(320, 320);
+        sink = new RecordingRenderSink();
+
+        board.setTime(START);
+        board.render(sink, false);  // the layer starts out cleared
+    }
+
+    @Test
+    public void fadesWithTheClockWhileTheBoardStandsStill() {
+        board.setTime(START + 3 * HOUR);
+        board.render(sink, false);
+
+        int alpha = 255;
+        for (int i = 0; i < 3 * HOUR / Board.HISTORY_FADE_MILLIS; i++) {
+            alpha = alpha * Board.HISTORY_FADE_ALPHA / 255;
+        }
+        assertEquals(1, sink.fades.size());
+        assertEquals(alpha, (int) sink.fades.get(0));
+
+        // What was left over of the interval counts towards the next fade
+        board.setTime(START + 3 * HOUR + Board.HISTORY_FADE_MILLIS - 1);
+        board.render(sink, false);
+        assertEquals(1, sink.fades.size());
+        board.setTime(START + 3 * HOUR + Board.HISTORY_FADE_MILLIS);
+        board.render(sink, false);
+        assertEquals(2, sink.fades.size());
+    }
+
+    @Test
+    public void fadesOutAfterADay() {
+        board.setTime(START + 24 * HOUR);
+        board.render(sink, false);
+        assertEquals(0, (int) sink.fades.get(0));
+    }
+
+    @Test
+    public void startsOverOnReset() {
+        board.setTime(START + HOUR / 2);
+        board.reset();
+        board.setTime(START + HOUR);
+        board.render(sink, false);
+        assertTrue(sink.fades.isEmpty());
+    }
+
+    @Test
+    public void doesntFadeAcrossTheClockBeingSetBack() {
+        board.setTime(START - 5 * HOUR);
+        board.setTime(START - 5 * HOUR + Board.HISTORY_FADE_MILLIS - 1);
+        board.render(sink, false);
+        assertTrue(sink.fades.isEmpty());
+    }
+}
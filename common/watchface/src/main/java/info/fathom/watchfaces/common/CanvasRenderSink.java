@@ -0,0 +1,302 @@
+package info.fathom.watchfaces.common;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.LinearGradient;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.PorterDuff;
+import android.graphics.PorterDuffXfermode;
+import android.graphics.Rect;
+import android.graphics.Shader;
+
+import info.fathom.watchfaces.simulation.RenderLayer;
+import info.fathom.watchfaces.simulation.RenderSink;
+import info.fathom.watchfaces.simulation.VectorPath;
+
+/**
+ * Draws the simulations onto the Canvas handed to onDraw().
+ * Set the canvas at the start of every frame; faces can tune the text paint
+ * (typeface, alignment) once after creation.
+ */
+public class CanvasRenderSink implements RenderSink {
+
+    private Canvas canvas;
+    private Canvas screenCanvas;  // set while drawing into a layer
+    private final Canvas layerCanvas = new Canvas();
+    private final Paint paint;
+    private final Paint textPaint;
+    private final Rect textBounds = new Rect();
+    private final Rect layerSrc = new Rect(), layerDst = new Rect();
+    private final Paint clearPaint;
+    private final PorterDuffXfermode atopMode = new PorterDuffXfermode(PorterDuff.Mode.SRC_ATOP);
+    private final PorterDuffXfermode addMode = new PorterDuffXfermode(PorterDuff.Mode.ADD);
+
+    // Recently used gradients, most recent first. Each spans (0, 0) to (1, 0) and is
+    // moved onto the requested endpoints with its local matrix, so drawing the same
+    // colors again at a new position doesn't create a shader
+    private static final int GRADIENT_CACHE_SIZE = 8;
+    private final LinearGradient[] gradients = new LinearGradient[GRADIENT_CACHE_SIZE];
+    private final long[] gradientColors = new long[GRADIENT_CACHE_SIZE];
+    private final Matrix gradientMatrix = new Matrix();
+    private final float[] gradientValues = new float[9];
+
+    public CanvasRenderSink() {
+        paint = new Paint();
+        paint.setAntiAlias(true);
+        paint.setStyle(Paint.Style.FILL);
+
+        textPaint = new Paint();
+        textPaint.setAntiAlias(true);
+        textPaint.setTextAlign(Paint.Align.CENTER);
+
+        clearPaint = new Paint();
+        clearPaint.setXfermode(new PorterDuffXfermode(PorterDuff.Mode.CLEAR));
+    }
+
+    public void setCanvas(Canvas canvas_) {
+        canvas = canvas_;
+        screenCanvas = null;
+    }
+
+    public Paint getTextPaint() {
+        return textPaint;
+    }
+
+    @Override
+    public void setColor(int argb) {
+        paint.setColor(argb);
+    }
+
+    @Override
+    public void setAntiAlias(boolean antiAlias) {
+        paint.setAntiAlias(antiAlias);
+        textPaint.setAntiAlias(antiAlias);
+    }
+
+    @Override
+    public void setFillStyle() {
+        paint.setStyle(Paint.Style.FILL);
+    }
+
+    @Override
+    public void setStrokeStyle(float strokeWidth) {
+        paint.setStyle(Paint.Style.STROKE);
+        paint.setStrokeWidth(strokeWidth);
+    }
+
+    @Override
+    public void setLinearGradient(float x0, float y0, float x1, float y1, int color0, int color1) {
+        float dx = x1 - x0, dy = y1 - y0;
+        if (dx == 0 && dy == 0) {
+            // No direction to map onto, a CLAMP gradient shows its end color
+            paint.setShader(null);
+            paint.setColor(color1);
+            return;
+        }
+
+        // A fade of one color to nothing is the same unit gradient at any strength, scaled
+        // by the paint alpha, so it animates without a shader per frame
+        int alpha = 255;
+        int alpha0 = color0 >>> 24, alpha1 = color1 >>> 24;
+        if (((color0 ^ color1) & 0xFFFFFF) == 0 && (alpha0 == 0 || alpha1 == 0)) {
+            alpha = Math.max(alpha0, alpha1);
+            int opaque = color0 | 0xFF000000, clear = color0 & 0xFFFFFF;
+            color0 = alpha0 == 0 ? clear : opaque;
+            color1 = alpha0 == 0 ? opaque : clear;
+        }
+
+        LinearGradient gradient = getGradient(color0, color1);
+
+        // Unit x axis onto (x0, y0) -> (x1, y1), y axis perpendicular to it
+        float[] v = gradientValues;
+        v[0] = dx;  v[1] = -dy; v[2] = x0;
+        v[3] = dy;  v[4] = dx;  v[5] = y0;
+        v[6] = 0;   v[7] = 0;   v[8] = 1;
+        gradientMatrix.setValues(v);
+        gradient.setLocalMatrix(gradientMatrix);
+
+        paint.setShader(gradient);
+        paint.setAlpha(alpha);  // otherwise the gradient colors carry their own alpha
+    }
+
+    private LinearGradient getGradient(int color0, int color1) {
+        long key = (long) color0 << 32 | (color1 & 0xFFFFFFFFL);
+        int i = 0;
+        while (i < GRADIENT_CACHE_SIZE - 1 && gradients[i] != null && gradientColors[i] != key) i++;
+
+        LinearGradient gradient = gradients[i];
+        if (gradient == null || gradientColors[i] != key) {
+            gradient = new LinearGradient(0, 0, 1, 0, color0, color1, Shader.TileMode.CLAMP);
+        }
+
+        // Move to the front, dropping the last one on a miss
+        System.arraycopy(gradients, 0, gradients, 1, i);
+        System.arraycopy(gradientColors, 0, gradientColors, 1, i);
+        gradients[0] = gradient;
+        gradientColors[0] = key;
+        return gradient;
+    }
+
+    @Override
+    public void clearShader() {
+        paint.setShader(null);
+    }
+
+    @Override
+    public void setAtop(boolean atop) {
+        paint.setXfermode(atop ? atopMode : null);
+    }
+
+    @Override
+    public void setAdditive(boolean additive) {
+        paint.setXfermode(additive ? addMode : null);
+    }
+
+    @Override
+    public void drawPath(VectorPath path) {
+        canvas.drawPath(toPath(path), paint);
+    }
+
+    @Override
+    public void drawCircle(float cx, float cy, float radius) {
+        canvas.drawCircle(cx, cy, radius, paint);
+    }
+
+    // http://stackoverflow.com/a/24969713/1934487
+    @Override
+    public void drawText(String text, float cx, float cy, float textSize) {
+        textPaint.setColor(paint.getColor());
+        textPaint.setTextSize(textSize);
+        textPaint.getTextBounds(text, 0, text.length(), textBounds);
+        canvas.drawText(text, cx, cy - textBounds.exactCenterY(), textPaint);
+    }
+
+    @Override
+    public void save() {
+        canvas.save();
+    }
+
+    @Override
+    public void restore() {
+        canvas.restore();
+    }
+
+    @Override
+    public void translate(float dx, float dy) {
+        canvas.translate(dx, dy);
+    }
+
+    @Override
+    public void scale(float sx, float sy) {
+        canvas.scale(sx, sy);
+    }
+
+    @Override
+    public void clipPath(VectorPath path) {
+        canvas.clipPath(toPath(path));
+    }
+
+    @Override
+    public boolean beginLayer(RenderLayer layer, boolean clear) {
+        Bitmap bitmap = (Bitmap) layer.platformLayer;
+        int width = layer.width > 0 ? layer.width : canvas.getWidth();
+        int height = layer.height > 0 ? layer.height : canvas.getHeight();
+        boolean kept = bitmap != null && bitmap.getWidth() == width && bitmap.getHeight() == height;
+        if (!kept) {
+            if (bitmap != null) bitmap.recycle();
+            bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+            layer.platformLayer = bitmap;
+        } else if (clear) {
+            bitmap.eraseColor(0);
+        }
+
+        layerCanvas.setBitmap(bitmap);
+        screenCanvas = canvas;
+        canvas = layerCanvas;
+        return kept;
+    }
+
+    @Override
+    public void endLayer() {
+        canvas = screenCanvas;
+        screenCanvas = null;
+    }
+
+    @Override
+    public void drawLayer(RenderLayer layer) {
+        Bitmap bitmap = (Bitmap) layer.platformLayer;
+        if (bitmap != null) canvas.drawBitmap(bitmap, 0, 0, null);
+    }
+
+    @Override
+    public void drawLayer(RenderLayer layer, int srcX, int srcY, int width, int height, int dstX, int dstY) {
+        Bitmap bitmap = (Bitmap) layer.platformLayer;
+        if (bitmap == null) return;
+        layerSrc.set(srcX, srcY, srcX + width, srcY + height);
+        layerDst.set(dstX, dstY, dstX + width, dstY + height);
+        canvas.drawBitmap(bitmap, layerSrc, layerDst, null);
+    }
+
+    @Override
+    public void clearRect(int left, int top, int right, int bottom) {
+        canvas.drawRect(left, top, right, bottom, clearPaint);
+    }
+
+    @Override
+    public void fadeLayer(RenderLayer layer, int alpha) {
+        Bitmap bitmap = (Bitmap) layer.platformLayer;
+        if (bitmap == null) return;
+        // DST_IN keeps the pixels, times the alpha of the color
+        layerCanvas.setBitmap(bitmap);
+        layerCanvas.drawColor(alpha << 24, PorterDuff.Mode.DST_IN);
+    }
+
+    @Override
+    public void releaseLayer(RenderLayer layer) {
+        Bitmap bitmap = (Bitmap) layer.platformLayer;
+        if (bitmap != null) bitmap.recycle();
+        layer.platformLayer = null;
+    }
+
+    // Replays the path verbs only when the simulation changed them since last frame
+    private static Path toPath(VectorPath vp) {
+        Path path = (Path) vp.platformPath;
+        if (path == null) {
+            path = new Path();
+            vp.platformPath = path;
+        }
+        if (vp.platformVersion == vp.getVersion()) return path;
+
+        path.rewind();
+        float[] c = vp.getCoords();
+        int ci = 0;
+        for (int i = 0; i < vp.getVerbCount(); i++) {
+            switch (vp.getVerb(i)) {
+                case VectorPath.MOVE:
+                    path.moveTo(c[ci], c[ci + 1]);
+                    ci += 2;
+                    break;
+                case VectorPath.LINE:
+                    path.lineTo(c[ci], c[ci + 1]);
+                    ci += 2;
+                    break;
+                case VectorPath.QUAD:
+                    path.quadTo(c[ci], c[ci + 1], c[ci + 2], c[ci + 3]);
+                    ci += 4;
+                    break;
+                case VectorPath.CLOSE:
+                    path.close();
+                    break;
+                case VectorPath.CIRCLE:
+                    path.addCircle(c[ci], c[ci + 1], c[ci + 2], Path.Direction.CW);
+                    ci += 3;
+                    break;
+            }
+        }
+        path.setFillType(vp.isEvenOdd() ? Path.FillType.EVEN_ODD : Path.FillType.WINDING);
+        vp.platformVersion = vp.getVersion();
+        return path;
+    }
+}
@@ -0,0 +1,57 @@
+package info.fathom.watchfaces.common;
+
+/**
+ * The time (or date) string faces draw in the corner, rebuilt only when the minute
+ * or one of the display settings changes, so onDraw() doesn't format every frame.
+ */
+public class ClockText {
+
+    private static final int FLAG_24H = 1;
+    private static final int FLAG_SHOW_DATE = 2;
+    private static final int FLAG_DAY_BEFORE_MONTH = 4;
+
+    private final StringBuilder builder = new StringBuilder(8);
+    private long key = -1;
+    private String text = "";
+
+    /**
+     * Returns true if the text changed, month is 0-based like Time.month.
+     */
+    public boolean update(int year, int month, int monthDay, int hour, int minute,
+                          boolean twentyFourHour, boolean showDate, boolean dayBeforeMonth) {
+        int flags = (twentyFourHour ? FLAG_24H : 0) |
+                (showDate ? FLAG_SHOW_DATE : 0) |
+                (dayBeforeMonth ? FLAG_DAY_BEFORE_MONTH : 0);
+        long minuteKey = (((year * 12L + month) * 31 + monthDay) * 24 + hour) * 60 + minute;
+        long newKey = minuteKey << 3 | flags;
+        if (newKey == key) return false;
+        key = newKey;
+
+        builder.setLength(0);
+        if (showDate) {
+            if (dayBeforeMonth) {
+                builder.append(monthDay).append('/').append(month + 1);
+            } else {
+                builder.append(month + 1).append('/').append(monthDay);
+            }
+
+        } else {
+            // Support for 24-hour time
+            if (!twentyFourHour) {
+                hour = hour % 12;
+                if (hour == 0) {
+                    hour = 12;
+                }
+            }
+            builder.append(hour).append(':');
+            if (minute < 10) builder.append('0');
+            builder.append(minute);
+        }
+        text = builder.toString();
+        return true;
+    }
+
+    public String getText() {
+        return text;
+    }
+}
@@ -0,0 +1,78 @@
+package info.fathom.watchfaces.common;
+
+import java.text.DecimalFormatSymbols;
+
+/**
+ * A count that may change every frame while it rolls, like the step total. Formats with
+ * the locale's grouping separator into a reused char buffer, so a new value doesn't
+ * allocate a String: draw it with Canvas.drawText(getChars(), getStart(), getLength(), ...).
+ */
+public class CountText {
+
+    private final String suffix;
+    private final char groupingSeparator;
+    private char[] chars = new char[32];
+    private int start, length;
+
+    private long value;
+    private String text;  // shown instead of a count when set
+
+    public CountText(String suffix_) {
+        suffix = suffix_;
+        groupingSeparator = DecimalFormatSymbols.getInstance().getGroupingSeparator();
+        text = "";
+    }
+
+    /**
+     * Shows the value grouped by thousands plus the suffix, returns true if that changed.
+     */
+    public boolean update(long value_) {
+        if (text == null && value_ == value) return false;
+        text = null;
+        value = value_;
+
+        // Written backwards from the end of the buffer
+        int i = chars.length;
+        for (int s = suffix.length() - 1; s >= 0; s--) {
+            chars[--i] = suffix.charAt(s);
+        }
+        long rest = Math.abs(value);
+        int digits = 0;
+        do {
+            if (digits > 0 && digits % 3 == 0) chars[--i] = groupingSeparator;
+            chars[--i] = (char) ('0' + rest % 10);
+            rest /= 10;
+            digits++;
+        } while (rest > 0);
+        if (value < 0) chars[--i] = '-';
+
+        start = i;
+        length = chars.length - i;
+        return true;
+    }
+
+    /**
+     * Shows a fixed text instead of a count, returns true if that changed.
+     */
+    public boolean setText(String text_) {
+        if (text_.equals(text)) return false;
+        text = text_;
+        if (text.length() > chars.length) chars = new char[text.length()];
+        text.getChars(0, text.length(), chars, 0);
+        start = 0;
+        length = text.length();
+        return true;
+    }
+
+    public char[] getChars() {
+        return chars;
+    }
+
+    public int getStart() {
+        return start;
+    }
+
+    public int getLength() {
+        return length;
+    }
+}
@@ -0,0 +1,147 @@
+package info.fathom.watchfaces.common;
+
+import android.os.SystemClock;
+import android.view.Choreographer;
+
+/**
+ * Drives the interactive frames of a face off the display vsync, at one of the
+ * FPS_* rate tiers, and puts it to sleep while the simulation is settled. The face
+ * wakes it back up on whatever may unsettle it (a sensor delta, a step, a glance),
+ * or it wakes itself after the idle timeout the face asks for, e.g. when the next
+ * blink is due.
+ */
+public class FrameScheduler {
+
+    public interface Client {
+        /** Visible and interactive, same as the old timer check. */
+        boolean shouldTimerBeRunning();
+
+        /** True when another frame would draw exactly the same picture. */
+        boolean isSettled();
+
+        /** How long the timer may sleep once settled, -1 to sleep until woken up. */
+        long getIdleTimeoutMs();
+
+        /** Called on every drawn frame with the real time since the previous one. */
+        void onFrame(long frameDeltaNanos);
+
+        /** Called when the timer restarts after sleeping for idleMs. */
+        void onResume(long idleMs);
+    }
+
+    public static final int FPS_60 = 60;
+    public static final int FPS_30 = 30;
+    public static final int FPS_15 = 15;
+
+    // A vsync arriving this early still counts as on time, so 30fps doesn't slip to 20
+    private static final long VSYNC_SLACK_NANOS = 4000000L;
+
+    private final Client client;
+    private final Choreographer choreographer;
+    private long frameIntervalNanos;
+    private long lastFrameNanos;
+    private boolean running;
+    private boolean suspended;
+    private long suspendedAt;
+
+    private final Choreographer.FrameCallback frameCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            onVsync(frameTimeNanos);
+        }
+    };
+
+    private final Choreographer.FrameCallback wakeCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            wake();
+        }
+    };
+
+    public FrameScheduler(Client client_, int fps) {
+        client = client_;
+        choreographer = Choreographer.getInstance();
+        setFrameRate(fps);
+    }
+
+    /**
+     * One of FPS_60, FPS_30 or FPS_15, takes effect on the next frame.
+     */
+    public void setFrameRate(int fps) {
+        if (fps != FPS_60 && fps != FPS_30 && fps != FPS_15) {
+            throw new IllegalArgumentException("Unsupported frame rate: " + fps);
+        }
+        frameIntervalNanos = 1000000000L / fps;
+    }
+
+    /**
+     * Starts or stops the frames after a visibility or ambient change.
+     */
+    public void update() {
+        stop();
+        if (client.shouldTimerBeRunning()) {
+            start();
+        }
+    }
+
+    /**
+     * Restarts the frames if they were sleeping. Cheap to call on every event.
+     */
+    public void wake() {
+        if (!suspended) return;
+        suspended = false;
+        choreographer.removeFrameCallback(wakeCallback);
+        if (client.shouldTimerBeRunning()) {
+            client.onResume(SystemClock.uptimeMillis() - suspendedAt);
+            start();
+        }
+    }
+
+    public void stop() {
+        running = false;
+        suspended = false;
+        choreographer.removeFrameCallback(frameCallback);
+        choreographer.removeFrameCallback(wakeCallback);
+    }
+
+    public boolean isSuspended() {
+        return suspended;
+    }
+
+    private void start() {
+        running = true;
+        lastFrameNanos = 0;
+        choreographer.postFrameCallback(frameCallback);
+    }
+
+    private void onVsync(long frameTimeNanos) {
+        if (!running) return;
+
+        // Skip vsyncs until the tier's interval is up
+        if (lastFrameNanos != 0 &&
+                frameTimeNanos - lastFrameNanos < frameIntervalNanos - VSYNC_SLACK_NANOS) {
+            choreographer.postFrameCallback(frameCallback);
+            return;
+        }
+        long deltaNanos = lastFrameNanos == 0 ? frameIntervalNanos : frameTimeNanos - lastFrameNanos;
+        lastFrameNanos = frameTimeNanos;
+
+        client.onFrame(deltaNanos);
+        if (!client.shouldTimerBeRunning()) {
+            running = false;
+            return;
+        }
+
+        if (client.isSettled()) {
+            running = false;
+            suspended = true;
+            suspendedAt = SystemClock.uptimeMillis();
+            long timeoutMs = client.getIdleTimeoutMs();
+            if (timeoutMs >= 0) {
+                choreographer.postFrameCallbackDelayed(wakeCallback, timeoutMs);
+            }
+        } else {
+            choreographer.postFrameCallback(frameCallback);
+        }
+    }
+}
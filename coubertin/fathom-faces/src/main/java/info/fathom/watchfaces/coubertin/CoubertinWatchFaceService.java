@@ -8,7 +8,6 @@ import android.content.res.AssetManager;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
-import android.graphics.Path;
 import android.graphics.Rect;
 import android.graphics.Typeface;
 import android.hardware.Sensor;
@@ -16,29 +15,32 @@ import android.hardware.SensorEvent;
 import android.hardware.SensorEventListener;
 import android.hardware.SensorManager;
 import android.os.Bundle;
-import android.os.Handler;
-import android.os.Message;
 import android.support.wearable.watchface.CanvasWatchFaceService;
 import android.support.wearable.watchface.WatchFaceService;
 import android.support.wearable.watchface.WatchFaceStyle;
 import android.text.format.DateFormat;
-import android.text.format.Time;
 import android.util.Log;
 import android.view.SurfaceHolder;
 import android.view.WindowInsets;
 
+import info.fathom.watchfaces.common.CanvasRenderSink;
+import info.fathom.watchfaces.common.ClockText;
+import info.fathom.watchfaces.common.CountText;
+import info.fathom.watchfaces.common.FrameScheduler;
+import info.fathom.watchfaces.simulation.FrameProbes;
+import info.fathom.watchfaces.simulation.StepClock;
+import info.fathom.watchfaces.simulation.WallClock;
+import info.fathom.watchfaces.simulation.coubertin.BubbleManager;
+
 import java.text.DecimalFormat;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.TimeZone;
 import java.util.concurrent.TimeUnit;
 
 
 public class CoubertinWatchFaceService extends CanvasWatchFaceService implements SensorEventListener {
     private static final String TAG = "CoubertinWatchFS";
 
-    private static final float TAU = (float) (2 * Math.PI);
-
-    private static final long INTERACTIVE_UPDATE_RATE_MS = 33;
+    private static final int INTERACTIVE_FRAME_RATE = FrameScheduler.FPS_30;
 
     private static final int BACKGROUND_COLOR_INTERACTIVE = Color.BLACK;
     private static final int BACKGROUND_COLOR_AMBIENT = Color.BLACK;
@@ -70,10 +72,10 @@ public class CoubertinWatchFaceService extends CanvasWatchFaceService implements
     private static final boolean DEBUG_LOGS = true;
     private static final boolean GENERATE_FAKE_STEPS = false;
     private static final int     RANDOM_FAKE_STEPS = 3000;
-    private static final boolean SHOW_BUBBLE_VALUE_TAGS = false;
     private static final boolean RANDOM_TIME_PER_GLANCE = false;  // this will add an hour to the time at each glance
     private static final int     RANDOM_MINUTES_INC = 60;
     private static final boolean DEBUG_STEP_COUNTERS = false;
+    private static final boolean DEBUG_FRAME_PROBES = false;  // log per-glance frame timings when the screen goes off
 
     private static final boolean DEBUG_FAKE_NO_STEP_SENSOR = false;
 
@@ -103,63 +105,27 @@ public class CoubertinWatchFaceService extends CanvasWatchFaceService implements
     private int mDetectedSteps = 0;
 
 
-    /*
-    // prevent memory leaks caused by the handler hanging around
-    private static class WeakMainHandler extends Handler {
-        private WeakReference<CoubertinWatchFaceService.Engine> ref;
-
-        public WeakMainHandler(CoubertinWatchFaceService.Engine engine) {
-            this.ref = new WeakReference<>(engine);
-        }
+    private Engine mEngine;
 
-        @Override
-        public void handleMessage(Message message) {
-            //Log.v(TAG, "Handler tick");
-            CoubertinWatchFaceService.Engine engine = ref.get();
-            switch (message.what) {
-                case MSG_UPDATE_TIMER:
-                    engine.invalidate();
-                    if (engine.shouldTimerBeRunning()) {
-                        long timeMs = System.currentTimeMillis();
-                        long delayMs = INTERACTIVE_UPDATE_RATE_MS
-                                - (timeMs % INTERACTIVE_UPDATE_RATE_MS);
-                        sendEmptyMessageDelayed(MSG_UPDATE_TIMER, delayMs);
-                    }
-                    break;
-            }
-        }
+    // Debug fake times need a clock that only moves when told to
+    private static WallClock.TimeSource createTimeSource() {
+        boolean fake = RANDOM_TIME_PER_GLANCE || DEBUG_FAKE_START_TIME;
+        return fake ? new WallClock.ManualTimeSource(System.currentTimeMillis()) : WallClock.SYSTEM;
     }
-    */
-
-    private static final int MSG_UPDATE_TIMER = 0;
-
 
     @Override
     public Engine onCreateEngine() {
-        return new Engine();
+        mEngine = new Engine();
+        return mEngine;
     }
 
-    private class Engine extends CanvasWatchFaceService.Engine {
+    private class Engine extends CanvasWatchFaceService.Engine implements FrameScheduler.Client {
 
-        /* Handler to update the screen depending on the message */
-        //final WeakMainHandler mMainHandler = new WeakMainHandler(this);
-        final Handler mMainHandler = new Handler() {
-            @Override
-            public void handleMessage(Message message) {
-//                Log.v(TAG, "Handler tick");
-                switch (message.what) {
-                    case MSG_UPDATE_TIMER:
-                        invalidate();
-                        if (shouldTimerBeRunning()) {
-                            long timeMs = System.currentTimeMillis();
-                            long delayMs = INTERACTIVE_UPDATE_RATE_MS
-                                    - (timeMs % INTERACTIVE_UPDATE_RATE_MS);
-                            mMainHandler.sendEmptyMessageDelayed(MSG_UPDATE_TIMER, delayMs);
-                        }
-                        break;
-                }
-            }
-        };
+        /* Sleeps while bubbles, step text and splash screen are all settled */
+        final FrameScheduler mFrameScheduler = new FrameScheduler(this, INTERACTIVE_FRAME_RATE);
+        private long mFrameDeltaNanos;  // real time since the bubbles last moved
+        private final StepClock mTextClock = new StepClock();  // paces the step text and splash screen
+        private final FrameProbes mFrameProbes = new FrameProbes(TAG);
 
         private boolean mAmbient;
 
@@ -176,7 +142,6 @@ public class CoubertinWatchFaceService extends CanvasWatchFaceService implements
         private Paint mTextDigitsShadowPaintInteractive, mTextStepsShadowPaintInteractive;
         private Typeface mTextTypeface, mTextTypefaceMed, mTextTypefaceSemi;
         private DecimalFormat mTestStepFormatter = new DecimalFormat("##,###");
-        private final Rect textBounds = new Rect();
         private int mTextAlpha = 255;
 
         private int mInitialSteps = 0;
@@ -187,16 +152,17 @@ public class CoubertinWatchFaceService extends CanvasWatchFaceService implements
         private int mDebugScriptGlance = 0;
         private int mDebugScriptStage = 0;
 
-        private Paint mBubbleTextPaint;
-
         private int mWidth;
         private int mHeight;
         private float mCenterX, mCenterY;
         private boolean mIsRound;
         private boolean mShowDate;
+        private final ClockText mClockText = new ClockText();
+        private final CountText mStepText = new CountText("#");
 
         private BubbleManager bubbleManager;
         private SplashScreen splashScreen;
+        private CanvasRenderSink mRenderSink;
 
 
         @Override
@@ -255,14 +221,18 @@ public class CoubertinWatchFaceService extends CanvasWatchFaceService implements
             mTextStepsShadowPaintInteractive.setAntiAlias(false);
             mTextStepsShadowPaintInteractive.setTextAlign(Paint.Align.RIGHT);
 
-            mBubbleTextPaint = new Paint();
-            mBubbleTextPaint.setColor(TEXT_DIGITS_COLOR_INTERACTIVE);
-            mBubbleTextPaint.setTypeface(mTextTypeface);
-            mBubbleTextPaint.setAntiAlias(true);
-            mBubbleTextPaint.setTextAlign(Paint.Align.CENTER);
+            mRenderSink = new CanvasRenderSink();
+            mRenderSink.getTextPaint().setTypeface(mTextTypeface);
 
-            bubbleManager = new BubbleManager();
             splashScreen = new SplashScreen();
+            bubbleManager = new BubbleManager();
+            bubbleManager.setSensorValues(gravity, linear_acceleration);
+            bubbleManager.setMilestoneListener(new BubbleManager.MilestoneListener() {
+                @Override
+                public void onMilestone(int steps, int color) {
+                    splashScreen.trigger(steps, color);
+                }
+            });
 
             mTimeManager = new TimeManager() {
                 @Override
@@ -272,9 +242,7 @@ public class CoubertinWatchFaceService extends CanvasWatchFaceService implements
                     mPrevSteps = 0;
                     mCurrentSteps = 0;
                     mDetectedSteps = 0;
-                    bubbleManager.clearBubbles();
-                    bubbleManager.prevSteps = 0;
-                    bubbleManager.currentSteps = 0;
+                    bubbleManager.reset();
                 }
             };
             if (RESET_HOUR >= 0) {
@@ -303,7 +271,7 @@ public class CoubertinWatchFaceService extends CanvasWatchFaceService implements
         @Override
         public void onDestroy() {
             if (DEBUG_LOGS) Log.v(TAG, "onDestroy()");
-            mMainHandler.removeMessages(MSG_UPDATE_TIMER);
+            mFrameScheduler.stop();
             unregisterTimeZoneReceiver();
             unregisterScreenReceiver();
             if (mUseStepDetector) mSensorStepDetector.unregister();
@@ -434,6 +402,7 @@ public class CoubertinWatchFaceService extends CanvasWatchFaceService implements
                 //glances++;
 
                 bubbleManager.newGlance();
+                mFrameProbes.reset();
 
                 if (RANDOM_TIME_PER_GLANCE) {
                     mTimeManager.addRandomInc();
@@ -458,6 +427,7 @@ public class CoubertinWatchFaceService extends CanvasWatchFaceService implements
                 bubbleManager.resetMotion();
 
                 splashScreen.deactivate();
+                if (DEBUG_FRAME_PROBES) Log.v(TAG, mFrameProbes.toString());
             }
 
             /*
@@ -496,7 +466,7 @@ public class CoubertinWatchFaceService extends CanvasWatchFaceService implements
             mTextStepsShadowPaintInteractive.setTextSize(mTextStepsHeight);
 
 
-            bubbleManager.setScreenWidth(mWidth);
+            bubbleManager.setScreenSize(mWidth, mHeight);
         }
 
         @Override
@@ -511,41 +481,31 @@ public class CoubertinWatchFaceService extends CanvasWatchFaceService implements
         @Override
         public void onDraw(Canvas canvas, Rect bounds) {
 //            if (DEBUG_LOGS) Log.v(TAG, "Drawing canvas");
+            long t = mFrameProbes.start();
 
             mTimeManager.setToNow();  // if RANDOM_TIME_PER_GLANCE it won't update toNow
-            // Support for 24-hour time
-            int hour = mTimeManager.hour;
-            if (!mTwentyFourHourTime) {
-                hour = hour % 12;
-                if (hour == 0) {
-                    hour = 12;
-                }
-            }
-            String timeStr = String.format("%d:%02d", hour, mTimeManager.minute);
+            // Time or date, only reformatted when the minute or the settings change
+            mClockText.update(mTimeManager.year, mTimeManager.month, mTimeManager.monthDay,
+                    mTimeManager.hour, mTimeManager.minute,
+                    mTwentyFourHourTime, mShowDate, mDayBeforeMonth);
+            String timeStr = mClockText.getText();
 
-            if (mShowDate) {
-                //timeStr = mDateFormat.format(new Date());
-                if (mDayBeforeMonth) {
-                    timeStr = mTimeManager.monthDay + "/" + (mTimeManager.month + 1);
-                } else {
-                    timeStr = (mTimeManager.month + 1) + "/" + mTimeManager.monthDay;
-                }
-            }
-
-            String stepStr = !mStepCounterRegistered ? "No Step Sensor" :
-                mTestStepFormatter.format(mStepCountDisplay) + "#";
+            CountText stepText = getStepText();
+            t = mFrameProbes.lap(FrameProbes.TEXT, t);
 
             if (mAmbient) {
                 if (DEBUG_LOGS) Log.v(TAG, "Drawing ambient canvas");
 
                 canvas.drawColor(BACKGROUND_COLOR_AMBIENT);
 
-                bubbleManager.renderAmbient(canvas);
+                mRenderSink.setCanvas(canvas);
+                bubbleManager.renderAmbient(mRenderSink);
+                t = mFrameProbes.lap(FrameProbes.RENDER, t);
 
                 drawFakeShadowedText(canvas, timeStr,
                         mWidth - (int) mTextDigitsRightMargin, (int) mTextDigitsBaselineHeight,
                         TEXT_AMBIENT_SHADOW_RADIUS, mTextDigitsShadowPaintInteractive, mTextDigitsPaintAmbient);
-                drawFakeShadowedText(canvas, stepStr,
+                drawFakeShadowedText(canvas, stepText,
                         mWidth - (int) mTextStepsRightMargin, (int) mTextStepsBaselineHeight,
                         TEXT_AMBIENT_SHADOW_RADIUS, mTextStepsShadowPaintInteractive, mTextStepsPaintAmbient);
 
@@ -555,6 +515,7 @@ public class CoubertinWatchFaceService extends CanvasWatchFaceService implements
                     canvas.drawText(mInitialSteps + " B", 0.75f * mWidth,
                             0.85f * mHeight, mTextStepsPaintAmbient);
                 }
+                mFrameProbes.lap(FrameProbes.TEXT, t);
 
             } else {  // not ambient, do the full draw
                 if (mWasStepSensorUpdatedThisGlance && !mWereStepCountsUpdatedThisGlance) {
@@ -566,43 +527,21 @@ public class CoubertinWatchFaceService extends CanvasWatchFaceService implements
                 canvas.drawColor(BACKGROUND_COLOR_INTERACTIVE);
 
                 // draw bubbles
-                bubbleManager.update();
-                bubbleManager.render(canvas);
-
-                int comboSteps = mCurrentSteps + mDetectedSteps;
-                // Never tick backwards, it's just too weird for users.
-                if (comboSteps > mStepCountDisplay) {
-                    float diff = comboSteps - mStepCountDisplay;
-                    if (Math.abs(diff) > 1) {
-                        mStepCountDisplay += TEXT_STEPS_ROLL_EASE_SPEED * diff;
-                    } else {
-                        mStepCountDisplay = comboSteps;
-                    }
-                }
-                /*
-                if (mCurrentSteps != mStepCountDisplay) {
-//                    if (DEBUG_LOGS) Log.v(TAG, "Updating step counter: " + mStepCountDisplay + " -> " + mCurrentSteps);
-                    float diff = mCurrentSteps - mStepCountDisplay;
-                    if (Math.abs(diff) > 1) {
-                        mStepCountDisplay += TEXT_STEPS_ROLL_EASE_SPEED * diff;
-                    } else {
-                        mStepCountDisplay = mCurrentSteps;
-                    }
-                }
-                */
-
-                if (splashScreen.active) {
-                    mTextAlpha -= splashScreen.FADE_IN_SPEED;
-                    if (mTextAlpha < 0) mTextAlpha = 0;
-                    mTextDigitsPaintInteractive.setColor(Color.argb(mTextAlpha, 255, 255, 255));
-                    mTextStepsPaintInteractive.setColor(Color.argb(mTextAlpha, 255, 255, 255));
+                mRenderSink.setCanvas(canvas);
+                bubbleManager.advance(mFrameDeltaNanos);
+                for (int steps = mTextClock.advance(mFrameDeltaNanos); steps > 0; steps--) {
+                    updateTextAnimation();
                 }
+                mFrameDeltaNanos = 0;
+                t = mFrameProbes.lap(FrameProbes.UPDATE, t);
+                bubbleManager.render(mRenderSink);
+                t = mFrameProbes.lap(FrameProbes.RENDER, t);
 
                 canvas.drawText(timeStr, mWidth - mTextDigitsRightMargin,
                         mTextDigitsBaselineHeight, mTextDigitsPaintInteractive);
 
-                canvas.drawText(stepStr, mWidth - mTextStepsRightMargin,
-                        mTextStepsBaselineHeight, mTextStepsPaintInteractive);
+                canvas.drawText(stepText.getChars(), stepText.getStart(), stepText.getLength(),
+                        mWidth - mTextStepsRightMargin, mTextStepsBaselineHeight, mTextStepsPaintInteractive);
 
                 if (DEBUG_STEP_COUNTERS) {
                     canvas.drawText((int) mSensorStepCount.values[0] + " S", 0.75f * mWidth,
@@ -610,10 +549,56 @@ public class CoubertinWatchFaceService extends CanvasWatchFaceService implements
                     canvas.drawText(mInitialSteps + " B", 0.75f * mWidth,
                             0.85f * mHeight, mTextStepsPaintInteractive);
                 }
+                t = mFrameProbes.lap(FrameProbes.TEXT, t);
 
                 if (splashScreen.active) splashScreen.render(canvas);
+                mFrameProbes.lap(FrameProbes.RENDER, t);
 
             }
+            mFrameProbes.endFrame(mAmbient);
+        }
+
+        // The count rolls every frame while steps come in, formatted without allocating
+        private CountText getStepText() {
+            if (!mStepCounterRegistered) {
+                mStepText.setText("No Step Sensor");
+            } else {
+                mStepText.update((long) Math.rint(mStepCountDisplay));  // rounded like DecimalFormat
+            }
+            return mStepText;
+        }
+
+        // Step text roll and splash screen fade, one 30fps step at a time
+        private void updateTextAnimation() {
+            int comboSteps = mCurrentSteps + mDetectedSteps;
+            // Never tick backwards, it's just too weird for users.
+            if (comboSteps > mStepCountDisplay) {
+                float diff = comboSteps - mStepCountDisplay;
+                if (Math.abs(diff) > 1) {
+                    mStepCountDisplay += TEXT_STEPS_ROLL_EASE_SPEED * diff;
+                } else {
+                    mStepCountDisplay = comboSteps;
+                }
+            }
+            /*
+            if (mCurrentSteps != mStepCountDisplay) {
+//                if (DEBUG_LOGS) Log.v(TAG, "Updating step counter: " + mStepCountDisplay + " -> " + mCurrentSteps);
+                float diff = mCurrentSteps - mStepCountDisplay;
+                if (Math.abs(diff) > 1) {
+                    mStepCountDisplay += TEXT_STEPS_ROLL_EASE_SPEED * diff;
+                } else {
+                    mStepCountDisplay = mCurrentSteps;
+                }
+            }
+            */
+
+            if (splashScreen.active) {
+                mTextAlpha -= splashScreen.FADE_IN_SPEED;
+                if (mTextAlpha < 0) mTextAlpha = 0;
+                mTextDigitsPaintInteractive.setColor(Color.argb(mTextAlpha, 255, 255, 255));
+                mTextStepsPaintInteractive.setColor(Color.argb(mTextAlpha, 255, 255, 255));
+                splashScreen.update();
+            }
         }
 
 
@@ -672,21 +657,48 @@ public class CoubertinWatchFaceService extends CanvasWatchFaceService implements
 
 
         private void updateTimer() {
-            mMainHandler.removeMessages(MSG_UPDATE_TIMER);
-            if (shouldTimerBeRunning()) {
-                mMainHandler.sendEmptyMessage(MSG_UPDATE_TIMER);
-            }
+            mFrameScheduler.update();
         }
 
 
         /**
-         * Returns whether the {@link #mMainHandler} timer should be running. The timer
+         * Returns whether the {@link #mFrameScheduler} timer should be running. The timer
          * should only run when we're visible and in interactive mode.
          */
-        private boolean shouldTimerBeRunning() {
+        @Override
+        public boolean shouldTimerBeRunning() {
             return isVisible() && !isInAmbientMode();
         }
 
+        @Override
+        public boolean isSettled() {
+            if (bubbleManager == null) return true;
+            boolean stepsSettled = mStepCountDisplay >= mCurrentSteps + mDetectedSteps &&
+                    !(mWasStepSensorUpdatedThisGlance && !mWereStepCountsUpdatedThisGlance);
+            return stepsSettled &&
+                    (!splashScreen.active || splashScreen.isSettled()) &&
+                    bubbleManager.isSettled();
+        }
+
+        @Override
+        public long getIdleTimeoutMs() {
+            return -1;  // woken up by sensors, the clock text by onTimeTick()
+        }
+
+        @Override
+        public void onFrame(long frameDeltaNanos) {
+            mFrameDeltaNanos += frameDeltaNanos;
+            invalidate();
+        }
+
+        @Override
+        public void onResume(long idleMs) {}
+
+        void onSensorChanged(boolean steps) {
+            if (!mFrameScheduler.isSuspended()) return;
+            if (steps || bubbleManager.isDisturbed()) mFrameScheduler.wake();
+        }
+
         @Override
         public void onPeekCardPositionUpdate(Rect rect) {
             super.onPeekCardPositionUpdate(rect);
@@ -704,112 +716,49 @@ public class CoubertinWatchFaceService extends CanvasWatchFaceService implements
         // . . . . . . . . . . . . . . . . . . . . . . . . . . . . . . . . . . . . . . . . . . . .
 
 
-        private class TimeManager {
+        private class TimeManager extends WallClock {
 
             private static final boolean DEBUG_FAKE_TIME = RANDOM_TIME_PER_GLANCE;
             private final long DEBUG_FAKE_TIME_INC = TimeUnit.MINUTES.toMillis(RANDOM_MINUTES_INC);
-            private static final long DAY_IN_MILLIS = 86400000;
 
             private static final boolean FAKE_START_TIME = DEBUG_FAKE_START_TIME;
             private static final int     FAKE_START_HOUR = DEBUG_FAKE_START_HOUR;
             private static final int     FAKE_START_MINUTE = DEBUG_FAKE_START_MINUTE;
 
-
-
-            private Time currentTime;
-            public int year, month, monthDay, hour, minute, second;
-
-            private boolean overnightReset;
-            private int overnightResetHour;
-            private Time nextResetTime;
-
             TimeManager() {
-                overnightReset = false;
-                overnightResetHour = 0;
-
-                currentTime = new Time();
-                currentTime.setToNow();
+                super(createTimeSource(), TimeZone.getDefault());
 
                 if (FAKE_START_TIME) {
-                    currentTime.setToNow();
-                    currentTime.set(currentTime.second, FAKE_START_MINUTE, FAKE_START_HOUR,
-                            currentTime.monthDay, currentTime.month, currentTime.year);
-                    updateFields();
-                } else {
-                    setToNow();
-                }
-            }
-
-            public void setToNow() {
-                if (!DEBUG_FAKE_TIME) {
-                    currentTime.setToNow();
+                    setFakeTime(toMillis(year, month, monthDay, FAKE_START_HOUR, FAKE_START_MINUTE, second));
                 }
-
-                updateFields();
-                if (overnightReset) resetCheck();
             }
 
             public void setTimeZone(Intent intent) {
-                if (!DEBUG_FAKE_TIME) {
-                    currentTime.clear(intent.getStringExtra("time-zone"));
-                    currentTime.setToNow();
-                }
-
-                updateFields();
-                if (overnightReset) resetCheck();
+                String id = intent.getStringExtra("time-zone");
+                setTimeZone(id != null ? TimeZone.getTimeZone(id) : TimeZone.getDefault());
             }
 
             public void addRandomInc() {
                 long rInc = (long) (DEBUG_FAKE_TIME_INC * Math.random());
                 if (DEBUG_LOGS) Log.v(TAG, "Adding randomInc: " + rInc);
 
-                currentTime.set(currentTime.toMillis(false) + rInc);
-
-                updateFields();
-                if (overnightReset) resetCheck();
+                setFakeTime(toMillis() + rInc);
             }
 
-            public void resetCheck() {
-                if (currentTime.after(nextResetTime)) {
-                    nextResetTime = computeNextResetTime();
-                    if (DEBUG_LOGS) Log.v(TAG, "Reset check: true");
-                    onReset();
+            // Faked times only move when set, the real clock ignores this
+            private void setFakeTime(long millis) {
+                if (getTimeSource() instanceof ManualTimeSource) {
+                    ((ManualTimeSource) getTimeSource()).set(millis);
                 }
+                setToNow();
             }
 
+            @Override
             public void onReset() { Log.v(TAG, "onReset"); }
 
-            public void setOvernightResetHour(int hour_) {
-                overnightReset = true;
-                overnightResetHour = hour_;
-                nextResetTime = computeNextResetTime();
-            }
-
-            private Time computeNextResetTime() {
-                Time resetTime = new Time();
-                resetTime.set(0, 0, overnightResetHour, monthDay, month, year);  // Set to today's reset time
-
-                // If already past, add a day
-                if (currentTime.after(resetTime)) {
-                    resetTime.set(resetTime.toMillis(false) + DAY_IN_MILLIS);
-                }
-
-                if (DEBUG_LOGS) Log.v(TAG, "Next reset time: " + resetTime.format2445());
-
-                return resetTime;
-            }
-
-            private void updateFields() {
-                year = currentTime.year;
-                month = currentTime.month;
-                monthDay = currentTime.monthDay;
-                hour = currentTime.hour;
-                minute = currentTime.minute;
-                second = currentTime.second;
-            }
-
             public void toDebugLog() {
-                Log.v(TAG, "--> Curr time: " + currentTime.format2445());
+                Log.v(TAG, "--> Curr time: " + year + "-" + (month + 1) + "-" + monthDay + " "
+                        + hour + ":" + minute + ":" + second);
             }
         }
 
@@ -823,7 +772,7 @@ public class CoubertinWatchFaceService extends CanvasWatchFaceService implements
                 mInitialSteps = (int) mSensorStepCount.values[0];
                 mPrevSteps = 0;
                 mCurrentSteps = 0;
-                bubbleManager.updateSteps();
+                bubbleManager.updateSteps(mCurrentSteps + mDetectedSteps);
                 return;
             }
 
@@ -851,9 +800,7 @@ public class CoubertinWatchFaceService extends CanvasWatchFaceService implements
                         mInitialSteps = (int) mSensorStepCount.values[0];
                         mPrevSteps = 0;
                         mCurrentSteps = 0;
-                        bubbleManager.clearBubbles();
-                        bubbleManager.prevSteps = 0;
-                        bubbleManager.currentSteps = 0;
+                        bubbleManager.reset();
                         mDebugScriptStage = -1;
 
                     } else {
@@ -876,9 +823,9 @@ public class CoubertinWatchFaceService extends CanvasWatchFaceService implements
             if (DEBUG_LOGS) Log.v(TAG, stepInc + " new steps!");
 
             // tried moving this out to always cause an update
-            bubbleManager.updateSteps();
+            bubbleManager.updateSteps(mCurrentSteps + mDetectedSteps);
             if (stepInc > 0) {
-                //bubbleManager.updateSteps();
+                //bubbleManager.updateSteps(mCurrentSteps + mDetectedSteps);
 
             // Sometimes the sensor yields a repeated reading
             } else {
@@ -886,12 +833,6 @@ public class CoubertinWatchFaceService extends CanvasWatchFaceService implements
             }
         }
 
-        // http://stackoverflow.com/a/24969713/1934487
-        private void drawTextVerticallyCentered(Canvas canvas, Paint paint, String text, float cx, float cy) {
-            paint.getTextBounds(text, 0, text.length(), textBounds);
-            canvas.drawText(text, cx, cy - textBounds.exactCenterY(), paint);
-        }
-
         private void drawFakeShadowedText(Canvas canvas, String txt, int x, int y, int radius,
                                           Paint shadowPaint, Paint drawPaint) {
             for (int i = x - radius; i <= x + radius; i++) {
@@ -902,660 +843,15 @@ public class CoubertinWatchFaceService extends CanvasWatchFaceService implements
             canvas.drawText(txt, x, y, drawPaint);
         }
 
-
-        // . . . . . . . . . . . . . . . . . . . . . . . . . . . . . . . . . . . . . . . . . . . .
-
-
-        private class BubbleManager {
-            private final static float ANIMATION_RATE   = 0.25f;
-
-            private final static int STEP_RATIO_XBIG    = 10000;
-            private final static int STEP_RATIO_MBIG    = 5000;
-            private final static int STEP_RATIO_BIG     = 1000;     // a BIG bubble represents this many steps
-            private final static int STEP_RATIO_MEDIUM  = 100;
-            private final static int STEP_RATIO_SMALL   = 10;
-            private final static int STEP_RATIO_XSMALL  = 1;
-
-            // Radii as a factor of screen width
-            private final static float RADIUS_XBIG    = 0.37500f;
-            private final static float RADIUS_MBIG    = 0.25000f;
-            private final static float RADIUS_BIG     = 0.12500f;
-            private final static float RADIUS_MEDIUM  = 0.06250f;
-            private final static float RADIUS_SMALL   = 0.03125f;
-            private final static float RADIUS_XSMALL  = 0.01562f;
-
-            private final static float WEIGHT_XBIG      = 2;
-            private final static float WEIGHT_MBIG      = 2;
-            private final static float WEIGHT_BIG       = 2;
-            private final static float WEIGHT_MEDIUM    = 3;
-            private final static float WEIGHT_SMALL     = 3;
-            private final static float WEIGHT_XSMALL    = 3;
-
-            public final int[] GROUP_COLORS = {
-                    Color.argb(204, 255, 255, 0),  // XBIG
-                    Color.argb(204, 237, 41, 122),  // MBIG
-                    Color.argb(204, 140, 199, 64),  // BIG
-                    Color.argb(204, 0, 173, 240),  // MEDIUM
-                    Color.argb(204, 242, 102, 33),  // SMALL
-                    Color.argb(204, 128, 130, 133)   // XSMALL
-            };
-
-            private final int GROUP_COUNT = GROUP_COLORS.length;
-
-            private final static float INNER_RING_RADIUS_FACTOR_XBIG   = 0.82f;
-            private final static float INNER_RING_RADIUS_FACTOR_MBIG   = 0.80f;
-            private final static float INNER_RING_RADIUS_FACTOR_BIG    = 0.78f;
-            private final static float INNER_RING_RADIUS_FACTOR_MEDIUM = 0.75f;
-            private final static float INNER_RING_RADIUS_FACTOR_SMALL  = 0.70f;
-            private final static float INNER_RING_RADIUS_FACTOR_XSMALL = 0.65f;
-
-
-            private BubbleCollection bubblesXBig, bubblesBig, bubblesMBig,
-                    bubblesMedium, bubblesSmall, bubblesXSmall;
-
-            private Bubble lastBubble;  // last created bubble with the greatest value
-
-            private int prevSteps, currentSteps;
-            private int updateKeyframe;  // @TODO add explanation here
-
-//            private float currentFriction;
-
-            private Paint bubblePaintAmbient;
-
-            List<Bubble> toDefeatureBuffer = new ArrayList<>();
-
-            BubbleManager() {
-                bubblesXBig = new BubbleCollection(this, STEP_RATIO_XBIG, RADIUS_XBIG,
-                        WEIGHT_XBIG, GROUP_COLORS[0], INNER_RING_RADIUS_FACTOR_XBIG, true);
-                bubblesMBig = new BubbleCollection(this, STEP_RATIO_MBIG, RADIUS_MBIG,
-                        WEIGHT_MBIG, GROUP_COLORS[1], INNER_RING_RADIUS_FACTOR_MBIG, false);
-                bubblesBig = new BubbleCollection(this, STEP_RATIO_BIG, RADIUS_BIG,
-                        WEIGHT_BIG, GROUP_COLORS[2], INNER_RING_RADIUS_FACTOR_BIG, false);
-                bubblesMedium = new BubbleCollection(this, STEP_RATIO_MEDIUM, RADIUS_MEDIUM,
-                        WEIGHT_MEDIUM, GROUP_COLORS[3], INNER_RING_RADIUS_FACTOR_MEDIUM, false);
-                bubblesSmall = new BubbleCollection(this, STEP_RATIO_SMALL, RADIUS_SMALL,
-                        WEIGHT_SMALL, GROUP_COLORS[4], INNER_RING_RADIUS_FACTOR_SMALL, false);
-                bubblesXSmall = new BubbleCollection(this, STEP_RATIO_XSMALL, RADIUS_XSMALL,
-                        WEIGHT_XSMALL, GROUP_COLORS[5], INNER_RING_RADIUS_FACTOR_XSMALL, false);
-
-                prevSteps = 0;
-                currentSteps = 0;
-
-                updateKeyframe = 0;  // do not update
-
-//                currentFriction = FRICTION_START;
-
-                bubblePaintAmbient = new Paint();
-                bubblePaintAmbient.setColor(TEXT_DIGITS_COLOR_AMBIENT);
-                bubblePaintAmbient.setAntiAlias(false);
-                bubblePaintAmbient.setStyle(Paint.Style.STROKE);
-            }
-
-            public void render(Canvas canvas) {
-                bubblesXSmall.render(canvas);
-                bubblesSmall.render(canvas);
-                bubblesMedium.render(canvas);
-                bubblesBig.render(canvas);
-                bubblesMBig.render(canvas);
-                bubblesXBig.render(canvas);
-            }
-
-            public void renderAmbient(Canvas canvas) {
-                if (lastBubble != null) lastBubble.renderAmbient(canvas, bubblePaintAmbient);
-            }
-
-            public void update() {
-
-                switch (updateKeyframe) {
-                    // @TODO verify if bubble count is working on the long run
-                    case 1:
-                        bubblesXSmall.add((currentSteps % STEP_RATIO_SMALL) - bubblesXSmall.bubbles.size(), false, false, 0);
-                        int stepInc = currentSteps - prevSteps;
-                        currentSteps -= stepInc % STEP_RATIO_SMALL;  // account for the remainder of the division
-                        bubblesSmall.add(stepInc / STEP_RATIO_SMALL, false, false, 0);
-                        updateKeyframe++;
-                        break;
-                    case 2:
-                        boolean continueUpdating1 = bubblesXSmall.update() && bubblesSmall.update();
-                        if (!continueUpdating1) updateKeyframe++;
-                        break;
-                    case 3:
-                        int scaleRatioMS = STEP_RATIO_MEDIUM / STEP_RATIO_SMALL;
-                        int smallBubbleCount = bubblesSmall.bubbles.size();
-                        int newMediumBubbleCount = smallBubbleCount / scaleRatioMS;
-                        bubblesSmall.remove(newMediumBubbleCount * scaleRatioMS);
-                        bubblesMedium.add(newMediumBubbleCount, false, false, 0);
-                        updateKeyframe++;
-                        break;
-                    case 4:
-                        bubblesSmall.update();
-                        bubblesMedium.update();
-                        boolean continueUpdating3 =
-                                bubblesSmall.needsUpdate || bubblesMedium.needsUpdate;
-                        if (!continueUpdating3) updateKeyframe++;
-                        break;
-                    case 5:
-                        int scaleRatioBM = STEP_RATIO_BIG / STEP_RATIO_MEDIUM;
-                        int mediumBubbleCount = bubblesMedium.bubbles.size();
-                        int newBigBubbleCount = mediumBubbleCount / scaleRatioBM;
-                        bubblesMedium.remove(newBigBubbleCount * scaleRatioBM);
-                        bubblesBig.add(newBigBubbleCount, SHOW_BUBBLE_VALUE_TAGS,
-                                mPrevSteps < STEP_RATIO_BIG && currentSteps >= STEP_RATIO_BIG, 0);
-                        updateKeyframe++;
-                        break;
-                    case 6:
-                        bubblesMedium.update();
-                        bubblesBig.update();
-                        boolean continueUpdating5 =
-                                bubblesMedium.needsUpdate || bubblesBig.needsUpdate;
-                        if (!continueUpdating5) updateKeyframe++;
-                        break;
-                    case 7:
-                        int scaleRatioBMB = STEP_RATIO_MBIG / STEP_RATIO_BIG;
-                        int bigBubbleCount = bubblesBig.bubbles.size();
-                        int newMBigBubbleCount = bigBubbleCount / scaleRatioBMB;
-                        bubblesBig.remove(newMBigBubbleCount * scaleRatioBMB);
-                        bubblesMBig.add(newMBigBubbleCount, SHOW_BUBBLE_VALUE_TAGS,
-                                mPrevSteps < STEP_RATIO_MBIG && currentSteps >= STEP_RATIO_MBIG, 0);
-                        updateKeyframe++;
-                        break;
-                    case 8:
-                        bubblesBig.update();
-                        bubblesMBig.update();
-                        boolean continueUpdating6 =
-                                bubblesBig.needsUpdate || bubblesMBig.needsUpdate;
-                        if (!continueUpdating6) updateKeyframe++;  // stop animation transition
-                        break;
-                    case 9:
-                        int scaleRatioMBXB = STEP_RATIO_XBIG / STEP_RATIO_MBIG;
-                        int mBigBubbleCount = bubblesMBig.bubbles.size();
-                        int newXBigBubbleCount = mBigBubbleCount / scaleRatioMBXB;
-                        bubblesMBig.remove(newXBigBubbleCount * scaleRatioMBXB);
-                        bubblesXBig.add(newXBigBubbleCount, SHOW_BUBBLE_VALUE_TAGS,
-                                (mPrevSteps < STEP_RATIO_XBIG && currentSteps >= STEP_RATIO_XBIG) ||  // 10k
-                                (mPrevSteps < 2 * STEP_RATIO_XBIG && currentSteps >= 2 * STEP_RATIO_XBIG),  // 20k
-                                0);
-                        updateKeyframe++;
-                        break;
-                    case 10:
-                        bubblesMBig.update();
-                        bubblesXBig.update();
-                        boolean continueUpdating7 =
-                                bubblesMBig.needsUpdate || bubblesXBig.needsUpdate;
-                        if (!continueUpdating7) updateKeyframe = 0;  // stop animation transition
-                        break;
-
-                    // Nuke everything
-                    case 20:
-                        bubblesXSmall.remove(bubblesXSmall.bubbles.size());
-                        bubblesSmall.remove(bubblesSmall.bubbles.size());
-                        bubblesMedium.remove(bubblesMedium.bubbles.size());
-                        bubblesBig.remove(bubblesBig.bubbles.size());
-                        bubblesMBig.remove(bubblesMBig.bubbles.size());
-                        bubblesXBig.remove(bubblesXBig.bubbles.size());
-                        updateKeyframe++;
-                        break;
-                    case 21:
-                        bubblesXBig.update();
-                        bubblesMBig.update();
-                        bubblesBig.update();
-                        bubblesMedium.update();
-                        bubblesSmall.update();
-                        bubblesXSmall.update();
-                        boolean continueUpdating21 =
-                                bubblesXBig.needsUpdate ||
-                                bubblesMBig.needsUpdate ||
-                                bubblesBig.needsUpdate ||
-                                bubblesMedium.needsUpdate ||
-                                bubblesSmall.needsUpdate ||
-                                bubblesXSmall.needsUpdate;
-                        if (continueUpdating21) updateKeyframe = 1;  // add any buffered remaining bubbles
-                        break;
-
-                    default:
-                        break;
-                }
-
-                updatePositions();
-            }
-
-            public void updateSteps() {  //int currentSteps_) {
-                prevSteps = currentSteps;
-                currentSteps = mCurrentSteps + mDetectedSteps;  //currentSteps_;
-                updateKeyframe = 1;  // trigger size update chain
-            }
-
-            public void updatePositions() {
-                bubblesXBig.updatePositions();
-                bubblesMBig.updatePositions();
-                bubblesBig.updatePositions();
-                bubblesMedium.updatePositions();
-                bubblesSmall.updatePositions();
-                bubblesXSmall.updatePositions();
-            }
-
-            public void resetMotion() {
-                bubblesXBig.resetMotion();
-                bubblesMBig.resetMotion();
-                bubblesBig.resetMotion();
-                bubblesMedium.resetMotion();
-                bubblesSmall.resetMotion();
-                bubblesXSmall.resetMotion();
-            }
-
-            public void newGlance() {
-//                currentFriction = FRICTION_START;
-            }
-
-            public void byeGlance() {
-                for (Bubble bubble : toDefeatureBuffer) {
-                    if (--bubble.featuredGlanceDuration <= 0) {
-                        bubble.isFeatured = false;
-                    }
-                }
-                for (int i = toDefeatureBuffer.size() - 1; i >= 0; i--) {
-                    if (!toDefeatureBuffer.get(i).isFeatured) toDefeatureBuffer.remove(i);
-                }
-            }
-
-            public void updateLatestBubble() {
-                lastBubble = getLatestBubble();
-                if (lastBubble != null && DEBUG_LOGS) {
-                    Log.v(TAG, "lastBubble.value: " + lastBubble.value);
-                }
-            }
-
-            private Bubble getLatestBubble() {
-                if (bubblesXBig.bubbles.size() != 0)
-                    return bubblesXBig.bubbles.get(bubblesXBig.bubbles.size() - 1);
-                if (bubblesMBig.bubbles.size() != 0)
-                    return bubblesMBig.bubbles.get(bubblesMBig.bubbles.size() - 1);
-                if (bubblesBig.bubbles.size() != 0)
-                    return bubblesBig.bubbles.get(bubblesBig.bubbles.size() - 1);
-                if (bubblesMedium.bubbles.size() != 0)
-                    return bubblesMedium.bubbles.get(bubblesMedium.bubbles.size() - 1);
-                if (bubblesSmall.bubbles.size() != 0)
-                    return bubblesSmall.bubbles.get(bubblesSmall.bubbles.size() - 1);
-                if (bubblesXSmall.bubbles.size() != 0)
-                    return bubblesXSmall.bubbles.get(bubblesXSmall.bubbles.size() - 1);
-
-                return null;
-            }
-
-            public void setScreenWidth(float width_) {
-                bubblesXBig.setScreenWidth(width_);
-                bubblesMBig.setScreenWidth(width_);
-                bubblesBig.setScreenWidth(width_);
-                bubblesMedium.setScreenWidth(width_);
-                bubblesSmall.setScreenWidth(width_);
-                bubblesXSmall.setScreenWidth(width_);
-            }
-
-            public void clearBubbles() {
-                bubblesXBig.bubbles.clear();
-                bubblesMBig.bubbles.clear();
-                bubblesBig.bubbles.clear();
-                bubblesMedium.bubbles.clear();
-                bubblesSmall.bubbles.clear();
-                bubblesXSmall.bubbles.clear();
-            }
-        }
-
-
-        // . . . . . . . . . . . . . . . . . . . . . . . . . . . . . . . . . . . . . . . . . . . .
-
-
-        private class BubbleCollection {
-            private static final float COLOR_INTERPOLATION_RATE = 0.15f;
-
-            BubbleManager parent;
-            List<Bubble> bubbles;
-            List<Bubble> killQueue;
-            int stepSize;
-            float radius;
-            float weight;
-            float innerRingFactor;
-            boolean needsUpdate;
-            boolean isEmpty;
-
-            int color;
-            Paint paint;
-            boolean animatedColor;
-            int currentColor, targetColor;
-
-            BubbleCollection(BubbleManager parent_, int stepSize_, float radius_, float weight_,
-                             int color_, float innerRingFactor_, boolean animatedColor_) {
-                stepSize = stepSize_;
-                parent = parent_;
-                radius = radius_;
-                weight = weight_;
-                innerRingFactor = innerRingFactor_;
-                bubbles = new ArrayList<>();
-                killQueue = new ArrayList<>();
-                isEmpty = true;
-
-                color = color_;
-                paint = new Paint();
-                paint.setColor(color);
-                paint.setAntiAlias(true);
-                paint.setStyle(Paint.Style.FILL_AND_STROKE);
-                animatedColor = animatedColor_;
-                currentColor = color;
-                targetColor = color;
-            }
-
-            public void render(Canvas canvas) {
-                if (animatedColor && !isEmpty) {
-                    int prevColor = currentColor;
-                    currentColor = interpolateColor(currentColor, targetColor, COLOR_INTERPOLATION_RATE);
-                    if (currentColor == prevColor) {
-                        targetColor = bubbleManager.GROUP_COLORS[(int) ((bubbleManager.GROUP_COUNT - 1) * Math.random())];  // avoid using the smallest bubble's color
-                    }
-                    paint.setColor(currentColor);
-                }
-                for (Bubble bub : bubbles) {
-                    bub.render(canvas);
-                }
-            }
-
-            public boolean update() {
-                needsUpdate = false;
-                for (Bubble bub : bubbles) {
-                    if (bub.needsSizeUpdate) needsUpdate |= bub.updateSize();
-                }
-
-                // Must kill remainder objects in independent loop to about iterator errors
-                for (int i = killQueue.size() - 1; i >= 0; i--) {
-                    bubbles.remove(killQueue.get(i));
-                }
-
-                return needsUpdate;
-            }
-
-            public void updatePositions() {
-                for (Bubble bub : bubbles) {
-                    bub.updatePosition();
-                }
-            }
-
-            private void add(int count_, boolean shouldFeature, boolean showSplashScreen, int glanceDuration_) {
-                if (count_ < 0) {
-                    remove(-count_);
-                    return;
-                }
-
-                int bubbleCount = bubbles.size();
-                for (int i = 0; i < count_; i++) {
-                    int newVal = ++bubbleCount * stepSize;
-                    Bubble b = new Bubble(this, newVal, radius, weight, innerRingFactor,
-                            shouldFeature && i == count_ - 1, glanceDuration_, paint);  // @JAMES: Only the last bubble in the group gets featured
-                    b.grow();
-                    bubbles.add(b);
-                    isEmpty = false;
-                }
-
-                if (showSplashScreen) {
-                    splashScreen.trigger(stepSize, color);
-                }
-            }
-
-            private void remove(int count_) {
-                for (int i = 0; i < count_; i++) {
-                    bubbles.get(i).kill();
-                }
-                isEmpty = bubbles.size() == 0;
-            }
-
-            private void resetMotion() {
-                for (Bubble bub : bubbles) {
-                    bub.resetMotion();
-                }
-            }
-
-            public void setScreenWidth(float width_) {
-                for (Bubble bub : bubbles) {
-                    bub.setScreenWidth(width_);
-                }
-            }
-
-            public void reset() {
-                for (Bubble bub : bubbles) {
-                    bub.kill();
-                }
-            }
-
-            private int interpolateColor(int sourceColor, int targetColor, float parameter) {
-                int sA = (sourceColor >> 24) & 0xFF;
-                int sR = (sourceColor >> 16) & 0xFF;
-                int sG = (sourceColor >> 8) & 0xFF;
-                int sB = (sourceColor) & 0xFF;
-
-                int tA = (targetColor >> 24) & 0xFF;
-                int tR = (targetColor >> 16) & 0xFF;
-                int tG = (targetColor >> 8) & 0xFF;
-                int tB = (targetColor) & 0xFF;
-
-                int currA = sA + Math.round(parameter * (tA - sA));
-                int currR = sR + Math.round(parameter * (tR - sR));
-                int currG = sG + Math.round(parameter * (tG - sG));
-                int currB = sB + Math.round(parameter * (tB - sB));
-
-                return Color.argb(currA, currR, currG, currB);
-            }
-        }
-
-
-        // . . . . . . . . . . . . . . . . . . . . . . . . . . . . . . . . . . . . . . . . . . . .
-
-
-        private class Bubble {
-
-            private static final boolean BOUNCE_FROM_BORDER     = true;
-            private static final boolean DEPTH_BOUNCING         = true;
-
-            // Originals
-//            private static final float FRICTION                 = 0.95f;
-//            private static final float PLANE_ACCEL_FACTOR       = 0.25f;
-//            private static final float GRAVITY_FACTOR           = 1.00f;
-//            private static final float ANCHOR_SPRING_FACTOR     = 0.03f;
-//
-//            private static final float DEPTH_ACCEL_FACTOR       = 0.50f;
-//            private static final float DEPTH_SPRING_FACTOR      = 0.20f;
-//
-//            private static final float RANDOM_WEIGHT_FACTOR     = 0.20f;
-
-            private static final float FRICTION_IN_PLANE        = 0.99f; // 0 - 1, 0 is total friction
-            private static final float FRICTION_DEPTH           = 0.95f; // 0 - 1, 0 is total friction
-            private static final float PLANE_ACCEL_FACTOR       = 0.25f; // when level, how much shake?
-            private static final float GRAVITY_FACTOR           = 0.80f; // how much does gravity weight in global forces
-            private static final float ANCHOR_SPRING_FACTOR     = 0.02f; // how much spring from lock position
-            private static final float DEPTH_ACCEL_FACTOR       = 0.40f;
-            private static final float DEPTH_SPRING_FACTOR      = 0.10f;
-            private static final float RANDOM_WEIGHT_FACTOR     = 0.75f; // how much variation between balls in the same category
-            private static final float TEXT_HEIGHT_FACTOR       = 0.20f; // as a factor of bubble radius
-            private static final float INNER_RING_OFFSET_FACTOR = 0.10f;
-
-            BubbleCollection parent;
-
-            int value;
-            String valueStr;
-            float anchorX, anchorY;
-            float x, y;
-            float gapAngle;
-            float velX, velY;
-
-            float accX, accY;
-            float screenW, relRadius;
-            float radius, weight, innerRingFactor;
-            float velR, accR;
-
-            boolean needsSizeUpdate = false;
-            float currentRadius = 0;
-            float targetRadius = 0;
-
-            boolean mustDie = false;
-            boolean isFeatured = false;
-            int featuredGlanceDuration;  // for how many glances is this bubble featured?
-
-            Paint paint;
-            Path path;
-
-            Bubble(BubbleCollection parent_, int value_, float radius_, float weight_,
-                   float innerRingFactor_, boolean isFeatured_, int glanceDuration_,
-                   Paint paint_) {
-                value = value_;
-                valueStr = mTestStepFormatter.format(value);
-                parent = parent_;
-                anchorX = (float) (mWidth * Math.random());
-                anchorY = (float) (mHeight * Math.random());
-                x = mCenterX;
-                y = mCenterY;
-//                radius = radius_;
-                screenW = mWidth;  // this may have been initialized already, or be zero...
-                relRadius = radius_;
-                radius = screenW * relRadius;
-                weight = weight_ + (float) (weight_ * RANDOM_WEIGHT_FACTOR * Math.random());  // slight random weight variation
-                innerRingFactor = innerRingFactor_;
-                paint = paint_;
-                velX = velY = accX = accY = 0;
-                velR = accR = 0;
-
-                gapAngle = TAU * (float) Math.random();
-
-                isFeatured = isFeatured_;
-                if (isFeatured) parent.parent.toDefeatureBuffer.add(this);
-                featuredGlanceDuration = glanceDuration_;
-
-                path = new Path();
-                path.addCircle(0, 0, 1.0f, Path.Direction.CW);
-                path.close();
-                path.addCircle(INNER_RING_OFFSET_FACTOR * (float) Math.cos(gapAngle),
-                        INNER_RING_OFFSET_FACTOR * (float) Math.sin(gapAngle),
-                        innerRingFactor, Path.Direction.CW);
-                path.close();
-                path.setFillType(Path.FillType.EVEN_ODD);
-            }
-
-            public void render(Canvas canvas) {
-                canvas.save();
-                canvas.translate(x, y);
-                canvas.scale(currentRadius, currentRadius);
-                if (isFeatured) canvas.drawCircle(0, 0, 1.0f, paint);
-                canvas.drawPath(path, paint);
-                canvas.restore();
-
-                // Doing this outside the transform to avoid weirdness with tiny heighted text
-                if (isFeatured) {
-                    mBubbleTextPaint.setTextSize(2 * TEXT_HEIGHT_FACTOR * currentRadius);  // bubble size might be animated
-                    drawTextVerticallyCentered(canvas, mBubbleTextPaint, valueStr, x, y);
-                }
-            }
-
-            public void renderAmbient(Canvas canvas, Paint paint_) {
-                canvas.save();
-                canvas.translate(x, y);
-                canvas.scale(currentRadius, currentRadius);
-                canvas.drawPath(path, paint_);
-                canvas.restore();
-            }
-
-            public boolean updateSize() {
-                currentRadius += (targetRadius - currentRadius) * BubbleManager.ANIMATION_RATE;
-                if (Math.abs(targetRadius - currentRadius) < 1) {
-                    needsSizeUpdate = false;
-                    if (mustDie) {
-                        parent.killQueue.add(this);
-                    }
-                }
-                return needsSizeUpdate;
-            }
-
-            public void updatePosition() {
-
-                accX = (PLANE_ACCEL_FACTOR * -linear_acceleration[0] * linear_acceleration[0]
-                        - GRAVITY_FACTOR * gravity[0] + ANCHOR_SPRING_FACTOR * (anchorX - x)) / weight;
-                accY = (PLANE_ACCEL_FACTOR *  linear_acceleration[1] * linear_acceleration[1]
-                        + GRAVITY_FACTOR * gravity[1] + ANCHOR_SPRING_FACTOR * (anchorY - y)) / weight;
-
-                velX += accX;
-                velY += accY;
-                velX *= FRICTION_IN_PLANE;
-                velY *= FRICTION_IN_PLANE;
-//                velX *= bubbleManager.currentFriction;
-//                velY *= bubbleManager.currentFriction;
-                x += velX;
-                y += velY;
-
-                if (DEPTH_BOUNCING && !needsSizeUpdate) {
-//                    accR = (DEPTH_ACCEL_FACTOR * linear_acceleration[2] + DEPTH_SPRING_FACTOR * (radius - currentRadius)) / weight;
-                    accR = (DEPTH_ACCEL_FACTOR * linear_acceleration[2] + DEPTH_SPRING_FACTOR * (radius - currentRadius)) / 3;  // Z movement is equally weighted
-                    velR += accR;
-//                    velR *= FRICTION;
-//                    velR *= bubbleManager.currentFriction;
-                    velR *= FRICTION_DEPTH;
-                    currentRadius += velR;
-                }
-
-                if (BOUNCE_FROM_BORDER) {
-                    if (x + radius > mWidth) {
-                        x = 2 * mWidth - 2 * radius - x;
-                        velX *= -1;
-                    } else if (x < radius) {
-                        x = 2 * radius - x;
-                        velX *= -1;
-                    }
-
-                    if (y + radius > mHeight) {
-                        y = 2 * mHeight - 2 * radius - y;
-                        velY *= -1;
-                    } else if (y < radius) {
-                        y = 2 * radius - y;
-                        velY *= -1;
-                    }
-
-                } else {
-                    if (x > mWidth) {
-                        x = mWidth - (x - mWidth);
-                        velX *= -1;
-                    } else if (x < 0) {
-                        x = -x;
-                        velX *= -1;
-                    }
-
-                    if (y > mHeight) {
-                        y = mHeight - (y - mHeight);
-                        velY *= -1;
-                    } else if (y < 0) {
-                        y = -y;
-                        velY *= -1;
-                    }
+        private void drawFakeShadowedText(Canvas canvas, CountText txt, int x, int y, int radius,
+                                          Paint shadowPaint, Paint drawPaint) {
+            char[] chars = txt.getChars();
+            for (int i = x - radius; i <= x + radius; i++) {
+                for (int j = y - radius; j <= y + radius; j++) {
+                    canvas.drawText(chars, txt.getStart(), txt.getLength(), i, j, shadowPaint);
                 }
             }
-
-            public void grow() {
-                targetRadius = radius;
-                needsSizeUpdate = true;
-            }
-
-            public void kill() {
-                targetRadius = 0;
-                anchorX = mCenterX;
-                anchorY = mCenterY;
-                mustDie = true;
-                needsSizeUpdate = true;
-            }
-
-            public void resetMotion() {
-                velX = velY = accX = accY = velR = accR = 0;
-            }
-
-            public void setScreenWidth(float width_) {
-                if (DEBUG_LOGS) Log.v(TAG, "Setting swidth = for bubble " + value);
-                screenW = width_;
-                radius = screenW * relRadius;
-                grow();
-                if (DEBUG_LOGS) Log.v(TAG, "set relRadius: " + relRadius + ", radius: " + radius);
-            }
+            canvas.drawText(chars, txt.getStart(), txt.getLength(), x, y, drawPaint);
         }
 
 
@@ -1637,7 +933,9 @@ public class CoubertinWatchFaceService extends CanvasWatchFaceService implements
                 canvas.drawColor(Color.argb(alpha, r, g, b));
                 canvas.drawText(text, textX, textDigitsY, digitsPaint);
                 canvas.drawText("steps", textX, textStepsY, stepsPaint);
+            }
 
+            public void update() {
                 if (alpha < MAX_ALPHA) {
                     alpha += FADE_IN_SPEED;
                     if (value == 10000 || value == 20000) {
@@ -1646,7 +944,7 @@ public class CoubertinWatchFaceService extends CanvasWatchFaceService implements
                 } else {
                     alpha = MAX_ALPHA;
                     if (value == 10000 || value == 20000) {
-                        setColor(bubbleManager.GROUP_COLORS[0]);
+                        setColor(BubbleManager.GROUP_COLORS[0]);
                     }
                 }
 
@@ -1654,6 +952,12 @@ public class CoubertinWatchFaceService extends CanvasWatchFaceService implements
                 textStepsY -= TEXT_SPEED * (textStepsY- mTextStepsBaselineHeight);
             }
 
+            boolean isSettled() {
+                return alpha >= MAX_ALPHA && mTextAlpha == 0 &&
+                        Math.abs(textDigitsY - mTextDigitsBaselineHeight) < 0.5f &&
+                        Math.abs(textStepsY - mTextStepsBaselineHeight) < 0.5f;
+            }
+
             private void setColor(int color_) {
                 bgColor = color_;
                 r = Color.red(bgColor);
@@ -1662,9 +966,9 @@ public class CoubertinWatchFaceService extends CanvasWatchFaceService implements
             }
 
             private void cycleBGColor() {
-                int newColor = bubbleManager.GROUP_COLORS[bgColorIterator];
+                int newColor = BubbleManager.GROUP_COLORS[bgColorIterator];
                 setColor(newColor);
-                if (++bgColorIterator >= bubbleManager.GROUP_COUNT) bgColorIterator = 0;
+                if (++bgColorIterator >= BubbleManager.GROUP_COUNT) bgColorIterator = 0;
             }
         }
 
@@ -1695,6 +999,7 @@ public class CoubertinWatchFaceService extends CanvasWatchFaceService implements
             case Sensor.TYPE_ACCELEROMETER:
                 mSensorAccelerometer.update(event);
                 updateGravity(event);
+                if (mEngine != null) mEngine.onSensorChanged(false);
                 break;
             case Sensor.TYPE_STEP_DETECTOR:
                 if (mUseStepDetector) {
@@ -1707,6 +1012,7 @@ public class CoubertinWatchFaceService extends CanvasWatchFaceService implements
                             Log.i(TAG, "  sensor + detected = " + mCurrentSteps + " + " + mDetectedSteps);
                         }
                         mWasStepSensorUpdatedThisGlance = true;
+                        if (mEngine != null) mEngine.onSensorChanged(true);
                     }
                 }
                 break;
@@ -1721,6 +1027,7 @@ public class CoubertinWatchFaceService extends CanvasWatchFaceService implements
                     mSensorStepCount.update(event);
                     // queue an update on next draw
                     mWasStepSensorUpdatedThisGlance = true;
+                    if (mEngine != null) mEngine.onSensorChanged(true);
 //                }
                 break;
         }
@@ -7,12 +7,9 @@ import android.content.IntentFilter;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
-import android.graphics.Path;
 import android.graphics.Rect;
 import android.graphics.Typeface;
 import android.os.Bundle;
-import android.os.Handler;
-import android.os.Message;
 import android.support.wearable.watchface.CanvasWatchFaceService;
 import android.support.wearable.watchface.WatchFaceService;
 import android.support.wearable.watchface.WatchFaceStyle;
@@ -22,16 +19,22 @@ import android.util.Log;
 import android.view.SurfaceHolder;
 import android.view.WindowInsets;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Arrays;
+import info.fathom.watchfaces.common.CanvasRenderSink;
+import info.fathom.watchfaces.common.ClockText;
+import info.fathom.watchfaces.common.FrameScheduler;
+import info.fathom.watchfaces.simulation.FrameProbes;
+import info.fathom.watchfaces.simulation.StepClock;
+import info.fathom.watchfaces.simulation.WallClock;
+import info.fathom.watchfaces.simulation.gaze.EyeMosaic;
+
+import java.util.TimeZone;
 import java.util.concurrent.TimeUnit;
 
 
 public class GazeWatchFaceService extends CanvasWatchFaceService {
     private static final String TAG = "GazeWatchFaceService";
 
-    private static final long  INTERACTIVE_UPDATE_RATE_MS = 33;
+    private static final int   INTERACTIVE_FRAME_RATE = FrameScheduler.FPS_30;
 
     private static final int   BACKGROUND_COLOR_INTERACTIVE = Color.BLACK;
     private static final int   BACKGROUND_COLOR_AMBIENT = Color.BLACK;
@@ -50,28 +53,7 @@ public class GazeWatchFaceService extends CanvasWatchFaceService {
 
     private static final String RALEWAY_TYPEFACE_PATH = "fonts/raleway-regular-enhanced.ttf";
 
-    private static final int[] EYE_COLORS = {
-            Color.rgb(255, 102, 51),
-            Color.rgb(0, 153, 255),
-            Color.rgb(125, 114, 163),
-            Color.rgb(114, 41, 255),
-            Color.rgb(238, 42, 123),
-            Color.rgb(0, 167, 157),
-            Color.rgb(117, 76, 41),
-            Color.rgb(141, 198, 63),
-            Color.rgb(196, 154, 108),
-            Color.rgb(128, 130, 133)
-    };
-    private static final int   EYE_COLOR_COUNT = EYE_COLORS.length;
-
-//    private static final int   GLANCES_NEEDED_PER_NEW_EYE = 1;
-    private static final float BLINK_TO_GLANCE_CHANCE_RATIO = 0.50f;                                // percent possibility of a blink event happening as compared to amount of glances
-
-    private static final long  EYE_POPOUT_BASE_THRESHOLD = TimeUnit.MINUTES.toMillis(5);            // baseline threshold over which eyes will start popping out
-    private static final long  EYE_POPOUT_PERIOD = TimeUnit.MINUTES.toMillis(3);                    // beyond baseline, an eye will pop out every N millis
-
     private static final long  CONSECUTIVE_GLANCE_THRESHOLD = TimeUnit.SECONDS.toMillis(30);        // max time between glances to be considered consecutive
-    private static final int   EYES_WIDE_OPEN_GLANCE_TRIGGER = 3;                                   // how many consecutive glances are needed to trigger all eyes wide open
 
     private static final int   RESET_HOUR = 4;                                                      // at which hour will watch face reset [0...23], -1 to deactivate
 
@@ -81,6 +63,7 @@ public class GazeWatchFaceService extends CanvasWatchFaceService {
     private static final int     DEBUG_ACCELERATE_RATE = 2;  // each glance has xN times the effect
 
     private static final boolean DEBUG_SHOW_GLANCE_COUNTER = false;
+    private static final boolean DEBUG_FRAME_PROBES = false;  // log per-glance frame timings when the screen goes off
 
     private static final boolean RANDOM_TIME_PER_GLANCE = false;  // this will add fake extra time per glance
     private static final int     RANDOM_MINUTES_INC = 60;
@@ -106,32 +89,23 @@ public class GazeWatchFaceService extends CanvasWatchFaceService {
 
 
 
+    // Debug fake times need a clock that only moves when told to
+    private static WallClock.TimeSource createTimeSource() {
+        boolean fake = RANDOM_TIME_PER_GLANCE || DEBUG_FAKE_START_TIME;
+        return fake ? new WallClock.ManualTimeSource(System.currentTimeMillis()) : WallClock.SYSTEM;
+    }
+
     @Override
     public Engine onCreateEngine() {
         return new Engine();
     }
 
-    private class Engine extends CanvasWatchFaceService.Engine {
-
-        private static final int MSG_UPDATE_TIMER = 0;
+    private class Engine extends CanvasWatchFaceService.Engine implements FrameScheduler.Client {
 
-        /* Handler to updateSize the screen depending on the message */
-        final Handler mMainHandler = new Handler() {
-            @Override
-            public void handleMessage(Message message) {
-                switch (message.what) {
-                    case MSG_UPDATE_TIMER:
-                        invalidate();
-                        if (shouldTimerBeRunning()) {
-                            long timeMs = System.currentTimeMillis();
-                            long delayMs = INTERACTIVE_UPDATE_RATE_MS
-                                    - (timeMs % INTERACTIVE_UPDATE_RATE_MS);
-                            mMainHandler.sendEmptyMessageDelayed(MSG_UPDATE_TIMER, delayMs);
-                        }
-                        break;
-                }
-            }
-        };
+        /* Sleeps between blinks while no eye is moving */
+        final FrameScheduler mFrameScheduler = new FrameScheduler(this, INTERACTIVE_FRAME_RATE);
+        private long mFrameDeltaNanos;  // real time since the eyes last moved
+        private final FrameProbes mFrameProbes = new FrameProbes(TAG);
 
         private boolean mTwentyFourHourTime;
         //        static final private String dateFormatStr =
@@ -164,6 +138,7 @@ public class GazeWatchFaceService extends CanvasWatchFaceService {
         private boolean mIsRound;
 //        private float mRadius;
         private boolean mShowDate;
+        private final ClockText mClockText = new ClockText();
 
         private int glances = 0;                // how many times did the watch go from ambient to interactive?
         private int consecutiveGlances = 0;     // amount of last consecutive glances
@@ -171,6 +146,7 @@ public class GazeWatchFaceService extends CanvasWatchFaceService {
         private long mPrevGlance;
 
         private EyeMosaic eyeMosaic;
+        private CanvasRenderSink mRenderSink;
         private boolean mEyesPopulated = false;
 
 
@@ -214,6 +190,8 @@ public class GazeWatchFaceService extends CanvasWatchFaceService {
             mTextGlancesPaintAmbient.setTextAlign(Paint.Align.RIGHT);
 
             eyeMosaic = new EyeMosaic();
+            if (DEBUG_ACCELERATE_INTERACTION) eyeMosaic.setAccelerateRate(DEBUG_ACCELERATE_RATE);
+            mRenderSink = new CanvasRenderSink();
 
 //            mTime  = new Time();
             mTimeManager = new TimeManager() {
@@ -238,7 +216,7 @@ public class GazeWatchFaceService extends CanvasWatchFaceService {
         @Override
         public void onDestroy() {
             if (DEBUG_LOGS) Log.v(TAG, "onDestroy()");
-            mMainHandler.removeMessages(MSG_UPDATE_TIMER);
+            mFrameScheduler.stop();
             unregisterTimeZoneReceiver();
             unregisterScreenReceiver();
             super.onDestroy();
@@ -386,14 +364,19 @@ public class GazeWatchFaceService extends CanvasWatchFaceService {
                         consecutiveGlances + 1 : 1;
                 if (DEBUG_LOGS) Log.v(TAG, "consecutiveGlances: " + consecutiveGlances);
 
-                eyeMosaic.updateTiredness();
-                eyeMosaic.newGlance(glanceInc, glanceDiff);
+                eyeMosaic.updateTiredness(mTimeManager.hour, mTimeManager.minute);
+                if (eyeMosaic.newGlance(glanceInc, glanceDiff, consecutiveGlances,
+                        mTimeManager.hour, mTimeManager.minute)) {
+                    consecutiveGlances = 0;  // @TERRENCE: do wide open once and reset
+                }
+                mFrameProbes.reset();
 
             } else {
                 unregisterTimeZoneReceiver();
 
                 mCurrentGlance.setToNow();
                 mPrevGlance = mCurrentGlance.toMillis(false);
+                if (DEBUG_FRAME_PROBES) Log.v(TAG, mFrameProbes.toString());
 
             }
 
@@ -428,6 +411,7 @@ public class GazeWatchFaceService extends CanvasWatchFaceService {
             mTextGlancesPaintAmbient.setTextSize(mTextGlancesHeight);
 
             if (!mEyesPopulated) {
+                eyeMosaic.setScreenSize(mWidth, mHeight);
                 eyeMosaic.addEye(39, 21, 49);
                 eyeMosaic.addEye(39, 73, 49);
                 eyeMosaic.addEye(82, 45, 49);
@@ -459,7 +443,8 @@ public class GazeWatchFaceService extends CanvasWatchFaceService {
                     mDebugScriptGlance = DEBUG_FAKE_SCRIPTED_EYES_INACTIVE_GLANCES;
                 }
                 glances += glanceInc;
-                eyeMosaic.newGlance(glanceInc, 0);
+                eyeMosaic.newGlance(glanceInc, 0, consecutiveGlances,
+                        mTimeManager.hour, mTimeManager.minute);
 
             }
         }
@@ -476,33 +461,24 @@ public class GazeWatchFaceService extends CanvasWatchFaceService {
         @Override
         public void onDraw(Canvas canvas, Rect bounds) {
 //            if (DEBUG_LOGS) Log.v(TAG, "Drawing canvas");
+            long t = mFrameProbes.start();
 
             mTimeManager.setToNow();  // if RANDOM_TIME_PER_GLANCE it won't update toNow
-            // Support for 24-hour time
-            int hour = mTimeManager.hour;
-            if (!mTwentyFourHourTime) {
-                hour = hour % 12;
-                if (hour == 0) {
-                    hour = 12;
-                }
-            }
-            String timeStr = String.format("%d:%02d", hour, mTimeManager.minute);
-
-            if (mShowDate) {
-                //timeStr = mDateFormat.format(new Date());
-                if (mDayBeforeMonth) {
-                    timeStr = mTimeManager.monthDay + "/" + (mTimeManager.month + 1);
-                } else {
-                    timeStr = (mTimeManager.month + 1) + "/" + mTimeManager.monthDay;
-                }
-            }
+            // Time or date, only reformatted when the minute or the settings change
+            mClockText.update(mTimeManager.year, mTimeManager.month, mTimeManager.monthDay,
+                    mTimeManager.hour, mTimeManager.minute,
+                    mTwentyFourHourTime, mShowDate, mDayBeforeMonth);
+            String timeStr = mClockText.getText();
+            t = mFrameProbes.lap(FrameProbes.TEXT, t);
 
             if (mAmbient) {
                 canvas.drawColor(BACKGROUND_COLOR_AMBIENT);
 
+                mRenderSink.setCanvas(canvas);
                 canvas.save();
-                eyeMosaic.renderAmbient(canvas);
+                eyeMosaic.renderAmbient(mRenderSink);
                 canvas.restore();
+                t = mFrameProbes.lap(FrameProbes.RENDER, t);
 
                 canvas.drawText(timeStr, mWidth - mTextDigitsRightMargin,
                         mTextDigitsBaselineHeight, mTextDigitsPaintAmbient);
@@ -510,14 +486,20 @@ public class GazeWatchFaceService extends CanvasWatchFaceService {
                     canvas.drawText(Integer.toString(glances), mWidth - mTextGlancesRightMargin,
                             mTextGlancesBaselineHeight, mTextGlancesPaintAmbient);
                 }
+                mFrameProbes.lap(FrameProbes.TEXT, t);
 
             } else {
                 canvas.drawColor(BACKGROUND_COLOR_INTERACTIVE);
 
+                mRenderSink.setCanvas(canvas);
                 canvas.save();
-                eyeMosaic.update();
-                eyeMosaic.render(canvas);
+                t = mFrameProbes.lap(FrameProbes.RENDER, t);
+                eyeMosaic.advance(mFrameDeltaNanos);
+                mFrameDeltaNanos = 0;
+                t = mFrameProbes.lap(FrameProbes.UPDATE, t);
+                eyeMosaic.render(mRenderSink);
                 canvas.restore();
+                t = mFrameProbes.lap(FrameProbes.RENDER, t);
 
                 canvas.drawText(timeStr, mWidth - mTextDigitsRightMargin,
                         mTextDigitsBaselineHeight, mTextDigitsPaintInteractive);
@@ -525,7 +507,9 @@ public class GazeWatchFaceService extends CanvasWatchFaceService {
                     canvas.drawText(Integer.toString(glances), mWidth - mTextGlancesRightMargin,
                             mTextGlancesBaselineHeight, mTextGlancesPaintInteractive);
                 }
+                mFrameProbes.lap(FrameProbes.TEXT, t);
             }
+            mFrameProbes.endFrame(mAmbient);
         }
 
         @Override
@@ -578,20 +562,41 @@ public class GazeWatchFaceService extends CanvasWatchFaceService {
         }
 
         private void updateTimer() {
-            mMainHandler.removeMessages(MSG_UPDATE_TIMER);
-            if (shouldTimerBeRunning()) {
-                mMainHandler.sendEmptyMessage(MSG_UPDATE_TIMER);
-            }
+            mFrameScheduler.update();
         }
 
         /**
-         * Returns whether the {@link #mMainHandler} timer should be running. The timer
+         * Returns whether the {@link #mFrameScheduler} timer should be running. The timer
          * should only run when we're visible and in interactive mode.
          */
-        private boolean shouldTimerBeRunning() {
+        @Override
+        public boolean shouldTimerBeRunning() {
             return isVisible() && !isInAmbientMode();
         }
 
+        @Override
+        public boolean isSettled() {
+            return eyeMosaic == null || eyeMosaic.isSettled();
+        }
+
+        @Override
+        public long getIdleTimeoutMs() {
+            if (eyeMosaic == null) return -1;
+            int frames = eyeMosaic.getFramesToNextAction();
+            return frames == Integer.MAX_VALUE ? -1 : StepClock.toMillis(frames);
+        }
+
+        @Override
+        public void onFrame(long frameDeltaNanos) {
+            mFrameDeltaNanos += frameDeltaNanos;
+            invalidate();
+        }
+
+        @Override
+        public void onResume(long idleMs) {
+            if (eyeMosaic != null) eyeMosaic.skipFrames(StepClock.toSteps(idleMs));
+        }
+
         @Override
         public void onPeekCardPositionUpdate(Rect rect) {
             super.onPeekCardPositionUpdate(rect);
@@ -605,781 +610,65 @@ public class GazeWatchFaceService extends CanvasWatchFaceService {
 //            mBurnInProtection = properties.getBoolean(PROPERTY_BURN_IN_PROTECTION, false);
         }
 
-        private class TimeManager {
+        private class TimeManager extends WallClock {
 
             private static final boolean DEBUG_FAKE_TIME = RANDOM_TIME_PER_GLANCE;
             private final long DEBUG_FAKE_TIME_INC = TimeUnit.MINUTES.toMillis(RANDOM_MINUTES_INC);
-            private static final long DAY_IN_MILLIS = 86400000;
 
             private static final boolean FAKE_START_TIME = DEBUG_FAKE_START_TIME;
             private static final int     FAKE_START_HOUR = DEBUG_FAKE_START_HOUR;
             private static final int     FAKE_START_MINUTE = DEBUG_FAKE_START_MINUTE;
 
-
-
-            private Time currentTime;
-            public int year, month, monthDay, hour, minute, second;
-
-            private boolean overnightReset;
-            private int overnightResetHour;
-            private Time nextResetTime;
-
             TimeManager() {
-                overnightReset = false;
-                overnightResetHour = 0;
-
-                currentTime = new Time();
-                currentTime.setToNow();
+                super(createTimeSource(), TimeZone.getDefault());
 
                 if (FAKE_START_TIME) {
-                    currentTime.setToNow();
-                    currentTime.set(currentTime.second, FAKE_START_MINUTE, FAKE_START_HOUR,
-                            currentTime.monthDay, currentTime.month, currentTime.year);
-                    updateFields();
-                } else {
-                    setToNow();
-                }
-            }
-
-            public void setToNow() {
-                if (!DEBUG_FAKE_TIME) {
-                    currentTime.setToNow();
+                    setFakeTime(toMillis(year, month, monthDay, FAKE_START_HOUR, FAKE_START_MINUTE, second));
                 }
-
-                updateFields();
-                if (overnightReset) resetCheck();
             }
 
             public void setTimeZone(Intent intent) {
-                if (!DEBUG_FAKE_TIME) {
-                    currentTime.clear(intent.getStringExtra("time-zone"));
-                    currentTime.setToNow();
-                }
-
-                updateFields();
-                if (overnightReset) resetCheck();
+                String id = intent.getStringExtra("time-zone");
+                setTimeZone(id != null ? TimeZone.getTimeZone(id) : TimeZone.getDefault());
             }
 
             public void addRandomInc() {
                 long rInc = (long) (DEBUG_FAKE_TIME_INC * Math.random());
                 if (DEBUG_LOGS) Log.v(TAG, "Adding randomInc: " + rInc);
 
-                currentTime.set(currentTime.toMillis(false) + rInc);
+                int prevYear = year, prevMonth = month, prevMonthDay = monthDay;
+                int prevHour = hour, prevMinute = minute;
+                setFakeTime(toMillis() + rInc);
 
                 // SPECIAL TEST SNAPS
-                if (hour < 11 && currentTime.hour >= 11) {  // SPECIAL WISH TIME DEBUG TEST
-                    currentTime.set(0, 11, 11, monthDay, month, year);
-                    updateFields();
-
-                } else if (hour < 23 && currentTime.hour >= 23) {  // SPECIAL WISH TIME DEBUG TEST
-                    currentTime.set(0, 11, 23, monthDay, month, year);
-                    updateFields();
-
-                } else if (minute > currentTime.minute) {  // SPECIAL CUCKOO DEBUG TEST
-                    updateFields();
-                    currentTime.set(second, 0, hour, monthDay, month, year);
-                    updateFields();
-                }
+                if (prevHour < 11 && hour >= 11) {  // SPECIAL WISH TIME DEBUG TEST
+                    setFakeTime(toMillis(prevYear, prevMonth, prevMonthDay, 11, 11, 0));
 
-                updateFields();
-
-                if (overnightReset) resetCheck();
-            }
+                } else if (prevHour < 23 && hour >= 23) {  // SPECIAL WISH TIME DEBUG TEST
+                    setFakeTime(toMillis(prevYear, prevMonth, prevMonthDay, 23, 11, 0));
 
-            public void resetCheck() {
-                if (currentTime.after(nextResetTime)) {
-                    nextResetTime = computeNextResetTime();
-                    if (DEBUG_LOGS) Log.v(TAG, "Reset check: true");
-                    onReset();
+                } else if (prevMinute > minute) {  // SPECIAL CUCKOO DEBUG TEST
+                    setFakeTime(toMillis(year, month, monthDay, hour, 0, second));
                 }
             }
 
-            public void onReset() { Log.v(TAG, "onReset"); }
-
-            public void setOvernightResetHour(int hour_) {
-                overnightReset = true;
-                overnightResetHour = hour_;
-                nextResetTime = computeNextResetTime();
-            }
-
-            private Time computeNextResetTime() {
-                Time resetTime = new Time();
-                resetTime.set(0, 0, overnightResetHour, monthDay, month, year);  // Set to today's reset time
-
-                // If already past, add a day
-                if (currentTime.after(resetTime)) {
-                    resetTime.set(resetTime.toMillis(false) + DAY_IN_MILLIS);
+            // Faked times only move when set, the real clock ignores this
+            private void setFakeTime(long millis) {
+                if (getTimeSource() instanceof ManualTimeSource) {
+                    ((ManualTimeSource) getTimeSource()).set(millis);
                 }
-
-                if (DEBUG_LOGS) Log.v(TAG, "Next reset time: " + resetTime.format2445());
-
-                return resetTime;
+                setToNow();
             }
 
-            private void updateFields() {
-                year = currentTime.year;
-                month = currentTime.month;
-                monthDay = currentTime.monthDay;
-                hour = currentTime.hour;
-                minute = currentTime.minute;
-                second = currentTime.second;
-            }
+            @Override
+            public void onReset() { Log.v(TAG, "onReset"); }
 
             public void toDebugLog() {
-                Log.v(TAG, "--> Curr time: " + currentTime.format2445());
+                Log.v(TAG, "--> Curr time: " + year + "-" + (month + 1) + "-" + monthDay + " "
+                        + hour + ":" + minute + ":" + second);
             }
-
         }
 
-
-
-
-
-
-
-        class EyeMosaic {
-
-            private static final int BLINK_CHANCE_FACTOR = 5;
-            private static final float MAX_TIRED_RATIO          = 0.50f;            // how much it closes when max tired
-            private static final int   TIRED_HOUR_START         = 21;
-            private static final int   TIRED_HOUR_END           = 23;               // Note: must be before midnight
-            private static final int   WAKEUP_HOUR_START        = 7;                // Note: must be after midnight
-            private static final int   WAKEUP_HOUR_END          = 9;
-
-            float blinkChance;
-
-            Eye[] eyes;
-            int eyeCount;
-
-            int activeEyesCount;
-            List<Eye> activeEyes = new ArrayList<>();
-            List<Eye> inactiveEyes = new ArrayList<>();
-            List<Eye> updateList = new ArrayList<>();
-
-            Eye lastEye;  // last eye that was activated
-
-            boolean areWideOpen;
-            boolean areCuckooing;
-            boolean areStaringAtTarget;
-
-            float tirednessFactor;
-
-            Paint eyesAmbientPaint;
-
-            EyeMosaic() {
-                eyes = new Eye[8];
-                eyeCount = 0;
-                activeEyesCount = 0;
-                blinkChance = 0;
-                areCuckooing = false;
-                lastEye = null;
-
-                eyesAmbientPaint = new Paint();
-                eyesAmbientPaint.setColor(TEXT_DIGITS_COLOR_AMBIENT);
-                eyesAmbientPaint.setAntiAlias(false);
-                eyesAmbientPaint.setStrokeWidth(1f);
-                eyesAmbientPaint.setStyle(Paint.Style.STROKE);
-
-                tirednessFactor = 1;
-            }
-
-            void update() {
-                // trigger a random eye to blink
-                if (activeEyesCount > 0) {
-                    if (Math.random() < blinkChance / (eyeCount * BLINK_CHANCE_FACTOR)) {
-                        int id = (int) (activeEyesCount * Math.random());
-                        Eye eye = activeEyes.get(id);
-//                        if (!eye.isWideOpen) eye.blink();  // may affect an already blinking eye but not a wide open one
-
-                        // Random actions
-                        if (!eye.isWideOpen && !eye.cuckooing && !eye.isStaringAtTarget) {
-                            double r = Math.random();
-                            if (r < 0.17) {
-                                eye.lookLeft();
-                            } else if (r < 0.33) {
-                                eye.lookCenterHorizontal();
-                            } else if (r < 0.50) {
-                                eye.lookRight();
-                            } else {
-                                eye.blink();  // may affect an already blinking eye but not a wide open one
-                            }
-
-                            r = Math.random();
-                            if (r < 0.17) {
-                                eye.lookUp();
-                            } else if (r < 0.33) {
-                                eye.lookCenterVertical();
-                            } else if (r < 0.50) {
-                                eye.lookDown();
-                            }
-
-                        }
-                    }
-                }
-
-                for (Eye eye : updateList) {
-                    eye.update();
-                }
-
-                // Unregister them from update list externally, to avoid iterator problems
-                for (int i = updateList.size() - 1; i >= 0; i--) {
-                    if (!updateList.get(i).needsUpdate) updateList.remove(updateList.get(i));
-                }
-
-            }
-
-            void render(Canvas canvas) {
-                for (Eye eye : activeEyes) {
-                    eye.render(canvas);
-                }
-            }
-
-            void renderAmbient(Canvas canvas) {
-                if (lastEye != null) lastEye.renderAmbient(canvas);
-            }
-
-            void newGlance(int glanceInc, long glanceDiff) {
-                // Reset wide open state from prev newGlance
-                if (areWideOpen) {
-                    for (Eye eye : activeEyes) {
-                        eye.isWideOpen = false;
-                        eye.open();
-                    }
-                    areWideOpen = false;
-                }
-
-                // Add/drop eyes  @TODO rely on glanceInc for these computations
-                // Must eyes start popping out?
-                if (glanceDiff > EYE_POPOUT_BASE_THRESHOLD) {
-                    int popoutCount = (int) ((glanceDiff - EYE_POPOUT_BASE_THRESHOLD) / EYE_POPOUT_PERIOD);
-
-                    if (DEBUG_ACCELERATE_INTERACTION) {
-                        eyeMosaic.deactivateRandomEye(popoutCount * DEBUG_ACCELERATE_RATE);
-                        eyeMosaic.increaseBlinkChance(-BLINK_TO_GLANCE_CHANCE_RATIO * DEBUG_ACCELERATE_RATE);
-                    } else {
-                        eyeMosaic.deactivateRandomEye(popoutCount);
-                        eyeMosaic.increaseBlinkChance(-BLINK_TO_GLANCE_CHANCE_RATIO);
-                    }
-
-                // Or should they be added
-                } else {
-                    if (DEBUG_ACCELERATE_INTERACTION) {
-                        eyeMosaic.activateRandomEye(DEBUG_ACCELERATE_RATE);
-                        eyeMosaic.increaseBlinkChance(BLINK_TO_GLANCE_CHANCE_RATIO * DEBUG_ACCELERATE_RATE);
-                    } else {
-                        eyeMosaic.activateRandomEye(glanceInc);
-                        eyeMosaic.increaseBlinkChance(BLINK_TO_GLANCE_CHANCE_RATIO * glanceInc);
-                    }
-                }
-
-                // Stop cuckooing?
-                if (areCuckooing) {
-                    if (mTimeManager.minute != 0) {
-                        for (Eye eye : activeEyes) {
-                            eye.stopCuckooing();
-                        }
-                        areCuckooing = false;
-                    }
-
-                // Should cuckoo?
-                } else if (mTimeManager.minute == 0 && !areStaringAtTarget) {  // trigger cuckooing on the hour
-                    areCuckooing = true;
-                    for (Eye eye : activeEyes) {
-                        eye.lookCenter();
-                        eye.startCuckooing();
-                    }
-                }
-
-                boolean makeAWish = (mTimeManager.hour == 11 || mTimeManager.hour == 23) && mTimeManager.minute == 11;
-
-                // Trigger eyes wide open?
-                if (!areCuckooing && !areStaringAtTarget && !makeAWish &&
-                        consecutiveGlances >= EYES_WIDE_OPEN_GLANCE_TRIGGER) {
-                    if (DEBUG_LOGS) Log.v(TAG, "Start OPENWIDE! consecutiveGlances: " + consecutiveGlances);
-                    for (Eye eye : activeEyes) {
-                        eye.lookCenter();
-                        eye.openWide();
-                    }
-                    areWideOpen = true;
-                    consecutiveGlances = 0;  // @TERRENCE: do wide open once and reset
-                }
-
-                // Reset staring
-                if (areStaringAtTarget) {
-                    for (Eye eye : activeEyes) {
-                        eye.isStaringAtTarget = false;
-                        eye.lookCenter();
-                    }
-                    areStaringAtTarget = false;
-                }
-
-                // Should stare?
-                if (makeAWish) {
-                    if (DEBUG_LOGS) Log.v(TAG, "MAKE A WISH!");
-                    lookAtScreenTarget(0.706f, 0.378f);
-                }
-
-            }
-
-            // Creates inactive eyes to be activated later
-            void addEye(float x_, float y_, float width_) {
-                eyes[eyeCount] = new Eye(this, eyeCount, x_, y_, width_);
-                inactiveEyes.add(eyes[eyeCount]);
-                eyeCount++;
-
-                // double the array size if necessary
-                if (eyeCount == eyes.length) {
-                    eyes = Arrays.copyOf(eyes, 2 * eyes.length);
-                }
-            }
-
-            void activateRandomEye(int count) {
-                for (int i = 0; i < count; i++) {
-                    if (activeEyesCount >= eyeCount) return; // if no more inactive eyes in the list
-                    Eye eye = inactiveEyes.get((int) (inactiveEyes.size() * Math.random()));
-                    eye.activate();
-                    activeEyes.add(eye);
-                    inactiveEyes.remove(eye);
-                    activeEyesCount++;
-                    lastEye = eye;
-                }
-
-            }
-
-            void deactivateRandomEye(int count) {
-                for (int i = 0; i < count; i++) {
-                    if (activeEyesCount <= 0) return;
-                    Eye eye = activeEyes.get((int) (activeEyes.size() * Math.random()));
-                    eye.deactivate();
-                    inactiveEyes.add(eye);
-                    activeEyes.remove(eye);
-                    activeEyesCount--;
-                    lastEye = activeEyes.size() > 0 ? activeEyes.get(activeEyes.size() - 1) : null;
-                }
-            }
-
-
-            void increaseBlinkChance(float increment) {
-                blinkChance += increment;
-                if (blinkChance < 0) blinkChance = 0;
-            }
-
-
-            void reset() {
-                for (Eye eye : activeEyes) {
-                    eye.deactivate();
-                    inactiveEyes.add(eye);
-                }
-                activeEyesCount = 0;
-                blinkChance = 0;
-//                inactiveEyes.clear();   // @TODO WAS THIS RIGHT???
-                activeEyes.clear();
-                updateList.clear();
-                lastEye = null;
-            }
-
-            void updateTiredness() {
-                tirednessFactor = 1;
-
-                // Closing
-                if (mTimeManager.hour >= TIRED_HOUR_START && mTimeManager.hour < TIRED_HOUR_END) {
-                    tirednessFactor = 1 - (mTimeManager.hour + mTimeManager.minute / 60f - TIRED_HOUR_START)
-                            * (1 - MAX_TIRED_RATIO) / (TIRED_HOUR_END - TIRED_HOUR_START);
-
-                // Closed
-                } else if (mTimeManager.hour >= TIRED_HOUR_END || mTimeManager.hour < WAKEUP_HOUR_START) {
-                    tirednessFactor = MAX_TIRED_RATIO;
-
-                // Opening
-                } else if (mTimeManager.hour >= WAKEUP_HOUR_START && mTimeManager.hour < WAKEUP_HOUR_END) {
-                    tirednessFactor = MAX_TIRED_RATIO + (mTimeManager.hour + mTimeManager.minute / 60f - WAKEUP_HOUR_START)
-                            * (1 - MAX_TIRED_RATIO) / (WAKEUP_HOUR_END - WAKEUP_HOUR_START);
-                }
-
-                if (DEBUG_LOGS) Log.v(TAG, " New tiredness factor: " + mTimeManager.hour + ":" + mTimeManager.minute + " -> " + tirednessFactor);
-
-                for (Eye eye : activeEyes) {
-                    eye.updateTiredness(tirednessFactor);
-                }
-            }
-
-            void lookAtScreenTarget(float normX, float normY) {  // normalized screen coordinates
-                areStaringAtTarget = true;
-                float targetX = normX * mWidth;
-                float targetY = normY * mHeight;
-                for (Eye eye : activeEyes) {
-                    eye.stareAtScreenPoint(targetX, targetY);
-                }
-            }
-
-        }
-
-
-        class Eye {
-
-            // Constants
-
-            final int          EYE_COLOR                = Color.rgb(252,245,245);
-            static final int   EYELID_COLOR             = Color.BLACK;
-            static final int   PUPIL_COLOR              = Color.BLACK;
-            static final float BLINK_SPEED              = 0.40f;
-            static final int   ANIM_END_THRESHOLD       = 1;                // pixel distance to stop animation
-            static final float HEIGHT_RATIO             = 0.50f;            // height/width ratio
-            static final float IRIS_RATIO               = 0.40f;            // irisDiameter/width ratio
-            static final float PUPIL_RATIO              = 0.22f;            // pupilDiameter/width ratio
-            static final float WIDE_OPEN_RATIO          = 0.65f;
-            static final float HORIZONTAL_LOOK_RATIO    = 0.45f;            // how far the pupil will travel laterally in relation to width/2
-            static final float VERTICAL_LOOK_RATIO      = 0.30f;            // idem
-            static final float PUPIL_SPEED_HORIZONTAL   = 0.50f;
-            static final float PUPIL_SPEED_RADIUS       = 0.15f;
-            static final float PUPIL_DILATION_SIZE      = 1.20f;
-            static final float PUPIL_CONTRACTION_SIZE   = 0.80f;
-            static final float IRIS_OFFSET_RATIO        = 0.058f;
-
-            static final int   SIDE_LOOK_DURATION       = 50;               // in frames
-            static final int   SIDE_LOOK_RANDOM_VAR_ADD = 20;               // on top of the base, in frames
-
-
-            EyeMosaic parent;
-
-            int id;
-            float x, y;
-            float width, height;
-            float irisRadius, irisOffset;
-            float pupilRadius;
-            float currentPupilRadius, targetPupilRadius;
-            float currentAperture, targetAperture;
-            float currentTirednessFactor;
-
-            int pupilPositionH;   // 0 = left, 1 = center, 2 = right
-            float currentPupilX, targetPupilX;  // in relative coordinates
-            int pupilPositionV;   // 0 = up, 1 = center, 2 = bottom
-            float currentPupilY, targetPupilY;
-
-            int irisColor;
-            Path eyelid;
-            Paint eyelidPaint, irisPaint, pupilPaint;
-            Paint eyeLinerPaint;  // @TODO make parent static or something
-
-            boolean isActive;
-            boolean blinking, lookingSideways, cuckooing, isStaringAtTarget;
-            boolean needsUpdate;
-            boolean isWideOpen;
-            int lookingSidewaysCounter;
-
-            Eye(EyeMosaic parent_, int id_, float x_, float y_, float width_) {
-                parent = parent_;
-
-                id = id_;
-                x = x_ * mWidth / 320;
-                y = y_ * mHeight / 320;
-                width = width_;
-                height = HEIGHT_RATIO * width;
-                irisRadius = 0.5f * IRIS_RATIO * width;
-                targetPupilRadius = currentPupilRadius = pupilRadius = 0.5f * PUPIL_RATIO * width;
-                irisColor = randomColor();
-
-                // calculate the offset of the iris one time per new eye
-                irisOffset = irisRadius * IRIS_OFFSET_RATIO;
-
-                currentAperture = 0;
-                targetAperture = height;  // @TODO should this be 0?
-
-                currentTirednessFactor = parent.tirednessFactor;
-
-                pupilPositionH = 1;
-                currentPupilX = targetPupilX = 0;
-                pupilPositionV = 1;
-                currentPupilY = targetPupilY = 0;
-
-                isActive = false;
-                needsUpdate = false;
-                blinking = false;
-                lookingSideways = false;
-                lookingSidewaysCounter = 0;
-                isStaringAtTarget = false;
-
-                eyelidPaint = new Paint();
-                eyelidPaint.setColor(EYE_COLOR);
-                eyelidPaint.setAntiAlias(true);
-
-                irisPaint = new Paint();
-                irisPaint.setColor(irisColor);
-                irisPaint.setAntiAlias(true);
-
-                pupilPaint = new Paint();
-                pupilPaint.setColor(PUPIL_COLOR);
-                pupilPaint.setAntiAlias(true);
-
-                eyeLinerPaint = new Paint();
-                eyeLinerPaint.setColor(EYELID_COLOR);
-                eyeLinerPaint.setStyle(Paint.Style.STROKE);
-                eyeLinerPaint.setStrokeWidth(2.0f);
-                eyeLinerPaint.setAntiAlias(true);
-
-                eyelid = new Path();
-                rewindEyelid();
-            }
-
-            void render(Canvas canvas) {
-                canvas.save();
-                canvas.translate(x, y);
-                canvas.save();
-                canvas.clipPath(eyelid);
-                canvas.drawCircle(0, 0, 0.5f * width, eyelidPaint);
-                canvas.drawCircle(currentPupilX, currentPupilY - irisOffset, irisRadius, irisPaint);
-                canvas.drawCircle(currentPupilX, currentPupilY - irisOffset, currentPupilRadius, pupilPaint);
-                canvas.restore();
-                canvas.drawPath(eyelid, eyeLinerPaint);
-                canvas.restore();
-            }
-
-            void renderAmbient(Canvas canvas) {
-                canvas.save();
-                canvas.translate(x, y);
-                canvas.save();
-                canvas.clipPath(eyelid);
-                canvas.drawCircle(0, 0, 0.5f * width, parent.eyesAmbientPaint);
-                canvas.drawCircle(currentPupilX, currentPupilY - irisOffset, irisRadius, parent.eyesAmbientPaint);
-                canvas.drawCircle(currentPupilX, currentPupilY - irisOffset, currentPupilRadius, parent.eyesAmbientPaint);
-                canvas.restore();
-                canvas.drawPath(eyelid, parent.eyesAmbientPaint);
-                canvas.restore();
-            }
-
-
-            boolean update() {
-                float diffH = targetAperture - currentAperture;
-                currentAperture = Math.abs(diffH) < ANIM_END_THRESHOLD ?
-                        targetAperture :
-                        currentAperture + BLINK_SPEED * currentTirednessFactor * (diffH);
-
-                float diffPX = targetPupilX - currentPupilX;
-                currentPupilX = Math.abs(diffPX) < ANIM_END_THRESHOLD ?
-                        targetPupilX :
-                        currentPupilX + PUPIL_SPEED_HORIZONTAL * currentTirednessFactor * (diffPX);
-
-                float diffPY = targetPupilY - currentPupilY;
-                currentPupilY = Math.abs(diffPY) < ANIM_END_THRESHOLD ?
-                        targetPupilY :
-                        currentPupilY + PUPIL_SPEED_HORIZONTAL * currentTirednessFactor * (diffPY);
-
-                float diffPR = targetPupilRadius - currentPupilRadius;
-                currentPupilRadius = Math.abs(diffPR) < ANIM_END_THRESHOLD ?
-                        targetPupilRadius :
-                        currentPupilRadius + PUPIL_SPEED_RADIUS * currentTirednessFactor * (diffPR);
-                rewindEyelid();
-
-                lookingSidewaysCounter--;
-
-                // If completed an animation
-                if (currentAperture == targetAperture &&
-                        currentPupilX == targetPupilX &&
-                        currentPupilY == targetPupilY &&
-                        currentPupilRadius == targetPupilRadius) {
-
-                    unregisterUpdate();
-
-                    if (blinking) {
-                        if (targetAperture == 0) {
-                            open();  // restart animation (and blinking remains true)
-                        } else {
-                            blinking = false;
-                        }
-                    }
-
-                    if (lookingSideways && !cuckooing) {
-                        if (lookingSidewaysCounter > 0) {
-                            registerUpdate();
-
-                        } else {
-//                            if (DEBUG_LOGS) Log.v(TAG, "Deactivating lookingSideways");
-                            lookCenter();
-                            lookingSideways = false;
-                        }
-                    }
-
-                    if (cuckooing) {
-                        if (pupilPositionH == 0) lookRight();
-                        else if (pupilPositionH == 2) lookLeft();
-                    }
-
-                }
-
-                return needsUpdate;
-            }
-
-            void rewindEyelid() {
-                eyelid.rewind();
-                eyelid.moveTo(-0.5f * width, 0);
-                eyelid.quadTo(0, -currentAperture, 0.5f * width, 0);
-                eyelid.quadTo(0,  currentAperture, -0.5f * width, 0);
-                eyelid.close();
-            }
-
-            void activate() {
-                currentTirednessFactor = parent.tirednessFactor;
-                isActive = true;
-                newIrisColor();
-                open();
-            }
-
-            // hard deactivate with no transition
-            void deactivate() {
-                isActive = false;
-                needsUpdate = false;
-                blinking = false;
-                lookingSideways = false;
-                isWideOpen = false;
-                currentAperture = 0;
-                targetAperture = height;  // @TODO should this be 0?
-                pupilPositionH = 1;
-                currentPupilX = 0;
-                targetPupilX = 0;
-                currentTirednessFactor = 1;
-            }
-
-            // hard reset with no transition
-            void reset() {
-                deactivate();
-                isActive = true;
-                currentAperture = height;
-                rewindEyelid();
-            }
-
-            void open() {
-                targetAperture = height * currentTirednessFactor;
-                targetPupilRadius = pupilRadius;
-                registerUpdate();
-            }
-
-            void close() {
-                targetAperture = 0;
-                targetPupilRadius = PUPIL_DILATION_SIZE * pupilRadius;
-                registerUpdate();
-            }
-
-            void blink() {
-                close();
-                blinking = true;
-            }
-
-            void openWide() {
-                targetAperture = WIDE_OPEN_RATIO * width * currentTirednessFactor;
-                targetPupilRadius = PUPIL_CONTRACTION_SIZE * pupilRadius;
-                isWideOpen = true;
-                registerUpdate();
-            }
-
-            void lookCenter() {
-                lookCenterHorizontal();
-                lookCenterVertical();
-            }
-
-            void sideLookTrigger() {
-                if (!cuckooing) {
-                    lookingSideways = true;
-                    lookingSidewaysCounter = SIDE_LOOK_DURATION + (int) (SIDE_LOOK_RANDOM_VAR_ADD * Math.random());
-                }
-            }
-
-            void lookLeft() {
-                targetPupilX = -HORIZONTAL_LOOK_RATIO * width / 2;
-                pupilPositionH = 0;
-                sideLookTrigger();
-                registerUpdate();
-            }
-
-            void lookCenterHorizontal() {
-                targetPupilX = 0;
-                pupilPositionH = 1;
-                registerUpdate();
-            }
-
-            void lookRight() {
-                targetPupilX = HORIZONTAL_LOOK_RATIO * width / 2;
-                pupilPositionH = 2;
-                sideLookTrigger();
-                registerUpdate();
-            }
-
-            void lookUp() {
-                targetPupilY = - VERTICAL_LOOK_RATIO * height / 2;
-                pupilPositionV = 0;
-                sideLookTrigger();
-                registerUpdate();
-            }
-
-            void lookCenterVertical() {
-                targetPupilY = 0;
-                pupilPositionV = 0;
-                registerUpdate();
-            }
-
-            void lookDown() {
-                targetPupilY = VERTICAL_LOOK_RATIO * height / 2;
-                pupilPositionV = 0;
-                sideLookTrigger();
-                registerUpdate();
-            }
-
-            boolean stareAtScreenPoint(float screenX, float screenY) {  // Absolute pixel coordinates
-                if (DEBUG_LOGS) Log.v(TAG, "targeting screen " + screenX + "," + screenY);
-
-                float angle = (float) Math.atan2(screenY - y, screenX - x);
-                float dx = 0.5f * HORIZONTAL_LOOK_RATIO * width * (float) Math.cos(angle);
-                float dy = 0.5f * VERTICAL_LOOK_RATIO * height * (float) Math.sin(angle);
-                stareAt(dx, dy);
-
-                return true;
-            }
-
-            void stareAt(float targetPupilX_, float targetPupilY_) {
-                targetPupilX = targetPupilX_;
-                targetPupilY = targetPupilY_;
-                isStaringAtTarget = true;
-                if (DEBUG_LOGS) Log.v(TAG, "from xy " + x + "," + y + " to targetXY " + targetPupilX + "," + targetPupilY);
-                sideLookTrigger();
-                registerUpdate();
-            }
-
-            void startCuckooing() {
-                cuckooing = true;
-                if (Math.random() < 0.5) lookLeft();
-                else lookRight();
-            }
-
-            void stopCuckooing() {
-                cuckooing = false;
-                lookCenter();
-            }
-
-            void newIrisColor() {
-                irisColor = randomColor();
-                irisPaint.setColor(irisColor);
-            }
-
-            int randomColor() {
-                return EYE_COLORS[(int) (EYE_COLOR_COUNT * Math.random())];
-            }
-
-            void registerUpdate() {
-                if (!parent.updateList.contains(this)) {
-                    parent.updateList.add(this);
-                }
-                needsUpdate = true;
-            }
-
-            void unregisterUpdate() {
-                needsUpdate = false;
-            }
-
-            void updateTiredness(float value_) {
-                currentTirednessFactor = value_;
-            }
-        }
     }
 
-
-
 }
@@ -6,19 +6,14 @@ import android.content.Intent;
 import android.content.IntentFilter;
 import android.graphics.Canvas;
 import android.graphics.Color;
-import android.graphics.LinearGradient;
 import android.graphics.Paint;
-import android.graphics.Path;
 import android.graphics.Rect;
-import android.graphics.Shader;
 import android.graphics.Typeface;
 import android.hardware.Sensor;
 import android.hardware.SensorEvent;
 import android.hardware.SensorEventListener;
 import android.hardware.SensorManager;
 import android.os.Bundle;
-import android.os.Handler;
-import android.os.Message;
 import android.support.wearable.watchface.CanvasWatchFaceService;
 import android.support.wearable.watchface.WatchFaceStyle;
 import android.text.format.DateFormat;
@@ -27,24 +22,27 @@ import android.util.Log;
 import android.view.SurfaceHolder;
 import android.view.WindowInsets;
 
+import info.fathom.watchfaces.common.CanvasRenderSink;
+import info.fathom.watchfaces.common.ClockText;
+import info.fathom.watchfaces.common.FrameScheduler;
+import info.fathom.watchfaces.simulation.FrameProbes;
+import info.fathom.watchfaces.simulation.WallClock;
+import info.fathom.watchfaces.simulation.isaac.Board;
+
 import java.text.SimpleDateFormat;
-import java.util.ArrayList;
 import java.util.Date;
-import java.util.List;
 import java.util.Locale;
+import java.util.TimeZone;
 import java.util.concurrent.TimeUnit;
 
 public class IsaacWatchFaceService extends CanvasWatchFaceService implements SensorEventListener {
 
     private static final String  TAG = "TriangularWFService";
 
-    private static final long    INTERACTIVE_UPDATE_RATE_MS = 33;
+    private static final int     INTERACTIVE_FRAME_RATE = FrameScheduler.FPS_30;
 
     private static final int     BACKGROUND_COLOR_AMBIENT = Color.BLACK;
     private final static int     BACKGROUND_COLORS_COUNT = 24;
-    private final static int     COLOR_TRIANGLE_ALPHA = 100;
-    private final static int     CURSOR_TIP_ALPHA = 200;
-    private final static int     RANGE_HUE = 165;
 
     private static final String  RALEWAY_TYPEFACE_PATH = "fonts/raleway-regular-enhanced.ttf";
     private static final int     TEXT_DIGITS_COLOR_INTERACTIVE = Color.WHITE;
@@ -59,6 +57,7 @@ public class IsaacWatchFaceService extends CanvasWatchFaceService implements Sen
 
     private static final int     RESET_HOUR = 4;  // at which hour will watch face reset [0...23], -1 to deactivate
     private static final long    INACTIVITY_RESET_TIME = TimeUnit.HOURS.toMillis(1);
+    private static final boolean HISTORY_MODE = false;  // keep the day's triangles on screen, fading with age, until the reset
 
     // DEBUG
     private static final boolean DEBUG_LOGS = false;
@@ -66,37 +65,34 @@ public class IsaacWatchFaceService extends CanvasWatchFaceService implements Sen
     private static final boolean RANDOM_TIME_PER_GLANCE = false;  // this will add an hour to the time at each glance
     private static final int     RANDOM_MINUTES_INC = 60;
     private static final boolean DEBUG_FAKE_ROUND = false;
+    private static final boolean DEBUG_FRAME_PROBES = false;  // log per-glance frame timings when the screen goes off
+
+
+    // Debug fake times need a clock that only moves when told to
+    private static WallClock.TimeSource createTimeSource() {
+        boolean fake = RANDOM_TIME_PER_GLANCE;
+        return fake ? new WallClock.ManualTimeSource(System.currentTimeMillis()) : WallClock.SYSTEM;
+    }
 
+    private Engine mEngine;
 
     @Override
     public Engine onCreateEngine() {
-        return new Engine();
+        mEngine = new Engine();
+        return mEngine;
     }
 
-    private class Engine extends CanvasWatchFaceService.Engine {
+    private class Engine extends CanvasWatchFaceService.Engine implements FrameScheduler.Client {
 
-        private static final int MSG_UPDATE_TIMER = 0;
-
-        /* Handler to updateSize the screen depending on the message */
-        final Handler mMainHandler = new Handler() {
-            @Override
-            public void handleMessage(Message message) {
-                switch (message.what) {
-                    case MSG_UPDATE_TIMER:
-                        invalidate();
-                        if (shouldTimerBeRunning()) {
-                            long timeMs = System.currentTimeMillis();
-                            long delayMs = INTERACTIVE_UPDATE_RATE_MS
-                                    - (timeMs % INTERACTIVE_UPDATE_RATE_MS);
-                            mMainHandler.sendEmptyMessageDelayed(MSG_UPDATE_TIMER, delayMs);
-                        }
-                        break;
-                }
-            }
-        };
+        /* Sleeps while the board is settled, woken up by gravity changes */
+        final FrameScheduler mFrameScheduler = new FrameScheduler(this, INTERACTIVE_FRAME_RATE);
+        private long mFrameDeltaNanos;  // real time since the board last moved
+        private final FrameProbes mFrameProbes = new FrameProbes(TAG);
 
         private boolean mTwentyFourHourTime;
         private SimpleDateFormat mDateFormat;
+        private final ClockText mClockText = new ClockText();
+        private String mDateStr;
 
         private boolean mRegisteredTimeZoneReceiver = false;
         private boolean mAmbient;
@@ -119,17 +115,12 @@ public class IsaacWatchFaceService extends CanvasWatchFaceService implements Sen
 
         private int mWidth;
         private int mHeight;
-        private float mCenterX;
-        private float mCenterY;
         private boolean mIsRound;
-        private float mRadius;
 
         private Board board;
+        private CanvasRenderSink mRenderSink;
         private int glances = 0;  // how many times did the watch go from ambient to interactive?
 
-        private int currentR, currentG, currentB;
-        private int triangleColorNew;
-
 
         @Override
         public void onCreate(SurfaceHolder holder) {
@@ -176,6 +167,7 @@ public class IsaacWatchFaceService extends CanvasWatchFaceService implements Sen
             mGridPaint.setStyle(Paint.Style.STROKE);
 
             board = new Board();
+            mRenderSink = new CanvasRenderSink();
 
             String pattern = DateFormat.getBestDateTimePattern(Locale.getDefault(), "MMM dd");
             mDateFormat = new SimpleDateFormat(pattern);
@@ -190,6 +182,7 @@ public class IsaacWatchFaceService extends CanvasWatchFaceService implements Sen
             if (RESET_HOUR >= 0) {
                 mTimeManager.setOvernightResetHour(RESET_HOUR);
             }
+            board.setMinute(mTimeManager.minute);  // new triangle colors depend on the minute
             mCurrentGlance = new Time();
             mCurrentGlance.setToNow();
             mPrevGlance = mCurrentGlance.toMillis(false);
@@ -226,14 +219,12 @@ public class IsaacWatchFaceService extends CanvasWatchFaceService implements Sen
             backgroundColors[21] = Color.HSVToColor(new float[]{ 175.0f, 1.0f, 1.0f});
             backgroundColors[22] = Color.HSVToColor(new float[]{ 160.0f, 1.0f, 1.0f});
             backgroundColors[23] = Color.HSVToColor(new float[]{ 145.0f, 1.0f, 1.0f});
-
-            triangleColorNew = generateTriangleColor();
         }
 
         @Override
         public void onDestroy() {
             if (DEBUG_LOGS) Log.v(TAG, "onDestroy()");
-            mMainHandler.removeMessages(MSG_UPDATE_TIMER);
+            mFrameScheduler.stop();
             unregisterTimeZoneReceiver();
             unregisterScreenReceiver();
             mSensorAccelerometer.unregister();
@@ -334,6 +325,7 @@ public class IsaacWatchFaceService extends CanvasWatchFaceService implements Sen
 
                 glances++;
                 if (shouldReset()) board.reset();
+                mFrameProbes.reset();
 
             } else {
                 if (timelyReset()) {
@@ -343,6 +335,7 @@ public class IsaacWatchFaceService extends CanvasWatchFaceService implements Sen
 
                 unregisterTimeZoneReceiver();
                 mSensorAccelerometer.unregister();
+                if (DEBUG_FRAME_PROBES) Log.v(TAG, mFrameProbes.toString());
             }
 
             /*
@@ -359,10 +352,8 @@ public class IsaacWatchFaceService extends CanvasWatchFaceService implements Sen
 
             mWidth   = width;
             mHeight  = height;
-            mCenterX = mWidth / 2;
-            mCenterY = mHeight / 2;
-            mRadius  = mWidth / 2;
 
+            board.setHistoryMode(HISTORY_MODE);
             board.initialize(mWidth, mHeight);
 
             mTextDigitsHeight = TEXT_DIGITS_HEIGHT * mHeight;
@@ -384,46 +375,60 @@ public class IsaacWatchFaceService extends CanvasWatchFaceService implements Sen
             super.onApplyWindowInsets(insets);
 
             mIsRound = DEBUG_FAKE_ROUND || insets.isRound();
+            board.setRound(mIsRound);
             if (DEBUG_LOGS) Log.v(TAG, "mIsRound? " + mIsRound);
         }
 
         @Override
         public void onDraw(Canvas canvas, Rect bounds) {
 //            if (DEBUG_LOGS) Log.v(TAG, "Drawing canvas " + mFrameCount++);
+            long t = mFrameProbes.start();
 
             mTimeManager.setToNow();
 //            mTimeStr = (mTimeManager.hour % 12 == 0 ? 12 : mTimeManager.hour % 12) + ":"
 //                    + String.format("%02d", mTimeManager.minute);
-            // Support for 24-hour time
-            int hour = mTimeManager.hour;
-            if (!mTwentyFourHourTime) {
-                hour = hour % 12;
-                if (hour == 0) {
-                    hour = 12;
-                }
+            // Only reformat when the minute changes
+            if (mClockText.update(mTimeManager.year, mTimeManager.month, mTimeManager.monthDay,
+                    mTimeManager.hour, mTimeManager.minute, mTwentyFourHourTime, false, false)) {
+                mDateStr = mDateFormat.format(new Date());
             }
-            String timeStr = String.format("%d:%02d", hour, mTimeManager.minute);
-            String dateStr = mDateFormat.format(new Date());
+            String timeStr = mClockText.getText();
+            String dateStr = mDateStr;
+            t = mFrameProbes.lap(FrameProbes.TEXT, t);
+
+            board.setMinute(mTimeManager.minute);
+            board.setTime(mTimeManager.toMillis());  // the history fades with the clock
+            board.setGravity(gravity[0], gravity[1]);
+            mRenderSink.setCanvas(canvas);
 
             if (mAmbient) {
                 canvas.drawColor(BACKGROUND_COLOR_AMBIENT); // background
 
-                board.render(canvas, true);
+                board.render(mRenderSink, true);
 //                renderGrid(canvas, 1, 1);
+                t = mFrameProbes.lap(FrameProbes.RENDER, t);
                 canvas.drawText(timeStr, mWidth - mTextDigitsRightMargin,
                         mTextDigitsBaselineHeight, mTextDigitsPaintAmbient);
                 canvas.drawText(dateStr, mWidth - mDateRightMargin,
                         mDateBaselineHeight, mDatePaintAmbient);
+                mFrameProbes.lap(FrameProbes.TEXT, t);
 
             } else {
                 canvas.drawColor(backgroundColors[mTimeManager.hour]);
+                t = mFrameProbes.lap(FrameProbes.RENDER, t);
 
-                board.render(canvas, false);
+                board.advance(mFrameDeltaNanos);
+                mFrameDeltaNanos = 0;
+                t = mFrameProbes.lap(FrameProbes.UPDATE, t);
+                board.render(mRenderSink, false);
+                t = mFrameProbes.lap(FrameProbes.RENDER, t);
                 canvas.drawText(timeStr, mWidth - mTextDigitsRightMargin,
                         mTextDigitsBaselineHeight, mTextDigitsPaintInteractive);
                 canvas.drawText(dateStr, mWidth - mDateRightMargin,
                         mDateBaselineHeight, mDatePaintInteractive);
+                mFrameProbes.lap(FrameProbes.TEXT, t);
             }
+            mFrameProbes.endFrame(mAmbient);
         }
 
         private void renderGrid(Canvas canvas, int gapWidth, int lineWidth) {
@@ -464,20 +469,43 @@ public class IsaacWatchFaceService extends CanvasWatchFaceService implements Sen
         }
 
         private void updateTimer() {
-            mMainHandler.removeMessages(MSG_UPDATE_TIMER);
-            if (shouldTimerBeRunning()) {
-                mMainHandler.sendEmptyMessage(MSG_UPDATE_TIMER);
-            }
+            mFrameScheduler.update();
         }
 
         /**
-         * Returns whether the {@link #mMainHandler} timer should be running. The timer
+         * Returns whether the {@link #mFrameScheduler} timer should be running. The timer
          * should only run when we're visible and in interactive mode.
          */
-        private boolean shouldTimerBeRunning() {
+        @Override
+        public boolean shouldTimerBeRunning() {
             return isVisible() && !isInAmbientMode();
         }
 
+        @Override
+        public boolean isSettled() {
+            return board == null || board.isSettled();
+        }
+
+        @Override
+        public long getIdleTimeoutMs() {
+            return -1;  // the clock text is taken care of by onTimeTick()
+        }
+
+        @Override
+        public void onFrame(long frameDeltaNanos) {
+            mFrameDeltaNanos += frameDeltaNanos;
+            invalidate();
+        }
+
+        @Override
+        public void onResume(long idleMs) {}
+
+        void onGravityChanged() {
+            if (!mFrameScheduler.isSuspended() || board == null) return;
+            board.setGravity(gravity[0], gravity[1]);
+            if (!board.isSettled()) mFrameScheduler.wake();
+        }
+
         @Override
         public void onPeekCardPositionUpdate(Rect rect) {
             super.onPeekCardPositionUpdate(rect);
@@ -513,680 +541,42 @@ public class IsaacWatchFaceService extends CanvasWatchFaceService implements Sen
         }
 
 
-
-
-
-
-
-        class Cursor {
-            private static final int COLOR = Color.WHITE;
-
-            private static final float FRICTION = 1.0f;
-            private static final float ACCEL_FACTOR = 0.40f;
-//            private static final float FRICTION = 0.80f;
-//            private static final float ACCEL_FACTOR = 0.45f;
-
-            Board parent;
-            float x, y;
-            float velX, velY;
-            Paint paint;
-
-            Cursor(Board parent_) {
-                parent = parent_;
-
-                x = 0.50f * parent.width;
-                y = 0.01f * parent.height;
-                velX = velY = 0;
-
-                paint = new Paint();
-                paint.setColor(COLOR);
-                paint.setAntiAlias(true);
-            }
-
-            void update() {
-                velX += ACCEL_FACTOR * -gravity[0];
-                velY += ACCEL_FACTOR * gravity[1];
-                velX *= FRICTION;
-                velY *= FRICTION;
-                x += velX;
-                y += velY;
-
-                // @TODO fix case where cursor is out of two bounds simultaneously (bounce coords override)
-                // @TODO in general, make this check more programmatic
-                boolean bounce = false;
-                int bounceX = 0, bounceY = 0;
-
-                if (mIsRound) {
-                    double drx = x - mCenterX;
-                    double dry = y - mCenterY;
-                    double r = Math.sqrt(drx * drx + dry * dry);
-
-                    if (r > mRadius) {
-                        double dcx = drx - velX;
-                        double dcy = dry - velY;
-                        double a = velX * velX + velY * velY;
-                        double b = 2 * (velX * dcx + velY * dcy);
-                        double c = (dcx * dcx + dcy * dcy) - mRadius * mRadius;
-                        double disc = b * b - 4 * a * c;
-
-                        if (disc < 0) {
-                            if (DEBUG_LOGS) Log.v(TAG, "No intersection, disc: " + disc);
-
-                        } else {
-                            double sq = Math.sqrt(disc);
-                            double t1 = (-b + sq) / (2 * a);
-
-                            double xt1 = x - velX + t1 * velX;
-                            double yt1 = y - velY + t1 * velY;
-
-                            bounce = true;
-                            bounceX = Math.round((float) xt1);
-                            bounceY = Math.round((float) yt1);
-
-                            double tangentAngle = Math.atan2(yt1 - mCenterY, xt1 - mCenterX) + 0.50f * Math.PI;
-                            double tx = Math.cos(tangentAngle);
-                            double ty = Math.sin(tangentAngle);
-                            double dVelX = x - xt1;
-                            double dVelY = y - yt1;
-                            double dVelDotT = dVelX * tx + dVelY * ty;
-                            double refDVelX = 2 * dVelDotT * tx - dVelX;
-                            double refDVelY = 2 * dVelDotT * ty - dVelY;
-
-                            x = (float) (xt1 + refDVelX);
-                            y = (float) (yt1 + refDVelY);
-
-                            double velDotT = velX * tx + velY * ty;
-                            velX = (float) (2 * velDotT * tx - velX);
-                            velY = (float) (2 * velDotT * ty - velY);
-                        }
-                    }
-
-                } else {
-                    if (x > parent.width) {
-                        bounce = true;
-                        bounceX = parent.width;
-                        bounceY = Math.round(y - velY + velY * x / parent.width);  // proportional height at bounce
-                        x = parent.width - (x - parent.width);
-                        velX = -velX;
-
-                    } else if (x < 0) {
-                        bounce = true;
-                        bounceX = 0;
-                        bounceY = Math.round(y - velY + velY * x / parent.width);  // proportional height at bounce
-                        x = -x;
-                        velX = -velX;
-                    }
-
-                    if (y > mHeight) {
-                        bounce = true;
-                        bounceX = Math.round(x - velX + velX * y / parent.height);  // proportional height at bounce
-                        bounceY = parent.height;
-                        y = mHeight - (y - mHeight);
-                        velY = -velY;
-
-                    } else if (y < 0) {
-                        bounce = true;
-                        bounceX = Math.round(x - velX + velX * y / parent.height);  // proportional height at bounce
-                        bounceY = 0;
-                        y = -y;
-                        velY = -velY;
-                    }
-                }
-
-                if (bounce) parent.addBounce(bounceX, bounceY);
-
-            }
-
-        }
-
-
-        private class TimeManager {
+        private class TimeManager extends WallClock {
 
             private static final boolean DEBUG_FAKE_TIME = RANDOM_TIME_PER_GLANCE;
             private final long DEBUG_FAKE_TIME_INC = TimeUnit.MINUTES.toMillis(RANDOM_MINUTES_INC);
-            private static final long DAY_IN_MILLIS = 86400000;
-
-            private Time currentTime;
-            public int year, month, monthDay, hour, minute, second;
-
-            private boolean overnightReset;
-            private int overnightResetHour;
-            private Time nextResetTime;
 
             TimeManager() {
-                overnightReset = false;
-                overnightResetHour = 0;
-
-                currentTime = new Time();
-                currentTime.setToNow();
-
-                setToNow();
-            }
-
-            public void setToNow() {
-                if (!DEBUG_FAKE_TIME) {
-                    currentTime.setToNow();
-                }
-
-                updateFields();
-                if (overnightReset) resetCheck();
+                super(createTimeSource(), TimeZone.getDefault());
             }
 
             public void setTimeZone(Intent intent) {
-                if (!DEBUG_FAKE_TIME) {
-                    currentTime.clear(intent.getStringExtra("time-zone"));
-                    currentTime.setToNow();
-                }
-
-                updateFields();
-                if (overnightReset) resetCheck();
+                String id = intent.getStringExtra("time-zone");
+                setTimeZone(id != null ? TimeZone.getTimeZone(id) : TimeZone.getDefault());
             }
 
             public void addRandomInc() {
                 long rInc = (long) (DEBUG_FAKE_TIME_INC * Math.random());
                 if (DEBUG_LOGS) Log.v(TAG, "Adding randomInc: " + rInc);
 
-                currentTime.set(currentTime.toMillis(false) + rInc);
-
-                updateFields();
-                if (overnightReset) resetCheck();
+                setFakeTime(toMillis() + rInc);
             }
 
-            public void resetCheck() {
-                if (currentTime.after(nextResetTime)) {
-                    nextResetTime = computeNextResetTime();
-                    if (DEBUG_LOGS) Log.v(TAG, "Reset check: true");
-                    onReset();
+            // Faked times only move when set, the real clock ignores this
+            private void setFakeTime(long millis) {
+                if (getTimeSource() instanceof ManualTimeSource) {
+                    ((ManualTimeSource) getTimeSource()).set(millis);
                 }
+                setToNow();
             }
 
+            @Override
             public void onReset() { Log.v(TAG, "onReset"); }
 
-            public void setOvernightResetHour(int hour_) {
-                overnightReset = true;
-                overnightResetHour = hour_;
-                nextResetTime = computeNextResetTime();
-            }
-
-            private Time computeNextResetTime() {
-                Time resetTime = new Time();
-                resetTime.set(0, 0, overnightResetHour, monthDay, month, year);  // Set to today's reset time
-
-                // If already past, add a day
-                if (currentTime.after(resetTime)) {
-                    resetTime.set(resetTime.toMillis(false) + DAY_IN_MILLIS);
-                }
-
-                if (DEBUG_LOGS) Log.v(TAG, "Next reset time: " + resetTime.format2445());
-
-                return resetTime;
-            }
-
-            private void updateFields() {
-                year = currentTime.year;
-                month = currentTime.month;
-                monthDay = currentTime.monthDay;
-                hour = currentTime.hour;
-                minute = currentTime.minute;
-                second = currentTime.second;
-            }
-
             public void toDebugLog() {
-                Log.v(TAG, "--> Curr time: " + currentTime.format2445());
-            }
-
-
-        }
-
-
-
-        class Board {
-
-            static final int     MAX_TRIANGLE_COUNT = 15;
-
-            int width, height;
-            Cursor cursor;
-            float cursorProjectionX, cursorProjectionY;  // for gradient fills
-
-            List<Bounce> bounces = new ArrayList<>();  // last three bounces
-            List<Triangle> triangles = new ArrayList<>();
-            List<Triangle> triangleUpdateBuffer = new ArrayList<>();
-            List<Triangle> triangleStopUpdatingBuffer = new ArrayList<>();
-
-            Paint linePaint;
-            Paint dottedPaint;  // WIP
-
-            Path cursorPath;
-            Paint cursorPaint;
-
-            Board() {}
-
-            void initialize(int screenW, int  screenH) {
-                width = screenW;
-                height = screenH;
-                cursor = new Cursor(this);
-
-                linePaint = new Paint();
-                linePaint.setColor(Color.GRAY);
-                linePaint.setStyle(Paint.Style.STROKE);
-                linePaint.setStrokeWidth(1.0f);
-                linePaint.setAntiAlias(false);
-
-                // WIP
-                dottedPaint = new Paint();
-                dottedPaint.setColor(Color.WHITE);
-                dottedPaint.setStyle(Paint.Style.STROKE);
-                dottedPaint.setStrokeWidth(0);  // for pixel perfect dots
-
-                cursorPath = new Path();
-
-                cursorPaint = new Paint();
-                cursorPaint.setColor(Color.WHITE);
-                cursorPaint.setStyle(Paint.Style.FILL);
-                cursorPaint.setAntiAlias(true);
-
-                reset();
-            }
-
-            void reset() {
-
-                cursor.x = 0.50f * mWidth;
-                cursor.y = 0.01f * mHeight;
-
-                triangles.clear();
-                triangleUpdateBuffer.clear();
-
-                // Initialize three bounces for an initial triangle cursor
-                bounces.clear();
-                addBounce(0, 0);  // bogus initialization bounce
-                addBounce(1, 0);
-                addBounce(mWidth, 1);  // the 1's are a small trick to avoid closed outline
-            }
-
-            void update() {
-                cursor.update();
-
-                for (Triangle t : triangleUpdateBuffer) {
-                    t.update();
-                }
-
-                for (Triangle t : triangleStopUpdatingBuffer) {
-                    triangleUpdateBuffer.remove(t);
-                }
-                triangleStopUpdatingBuffer.clear();
-            }
-
-            void render(Canvas canvas, boolean ambientMode) {
-                // @TODO background is drawn before this call, change this at some point
-
-                if (ambientMode) {
-                    for (Triangle t : triangles) {
-                        t.renderOutline(canvas, linePaint);
-                    }
-
-                } else {
-                    update();
-
-                    for (Triangle t : triangles) {
-                        t.render(canvas);
-                    }
-
-                    renderTriangleCursor(canvas);
-                }
-
-            }
-
-            void renderTriangleCursor(Canvas canvas) {
-
-                Bounce a = bounces.get(1);
-                Bounce b = bounces.get(2);
-
-                cursorPath.rewind();
-                cursorPath.moveTo(a.x, a.y);
-                cursorPath.lineTo(cursor.x, cursor.y);
-                cursorPath.lineTo(b.x, b.y);
-
-                // gradient fill on projection
-                double dx = b.x - a.x;
-                double dy = b.y - a.y;
-                double dpx = cursor.x - a.x;
-                double dpy = cursor.y - a.y;
-                double xylen = Math.sqrt(dx * dx + dy * dy);
-                double pl = (dx * dpx + dy * dpy) / xylen;
-                cursorProjectionX = (float) (a.x + pl * dx / xylen);
-                cursorProjectionY = (float) (a.y + pl * dy / xylen);
-                cursorPaint.setShader(new LinearGradient(cursor.x, cursor.y,
-                        cursorProjectionX, cursorProjectionY,
-                        Color.argb(CURSOR_TIP_ALPHA, currentR, currentG, currentB),
-                        Color.argb(COLOR_TRIANGLE_ALPHA, currentR, currentG, currentB),
-                        Shader.TileMode.CLAMP));
-                canvas.drawPath(cursorPath, cursorPaint);
-                cursorPaint.setShader(null);
-            }
-
-            void addBounce(int xpos, int ypos) {
-                Bounce bounce = new Bounce(xpos, ypos);
-
-                int bounceCount = bounces.size();
-
-                if (bounceCount > 2) {
-                    if (bounce.side == bounces.get(2).side) return;
-                }
-
-                // Otherwise, add it to the array
-                bounces.add(bounce);
-                bounceCount++;
-                if (bounceCount > 3) {
-                    bounces.remove(0);  // keep it down to three elements
-                    bounceCount--;
-                }
-
-                if (bounceCount > 2) {
-                    Triangle t = new Triangle(this, bounces.get(0), bounces.get(1), bounces.get(2),
-                            cursorProjectionX, cursorProjectionY);
-                    triangles.add(t);
-//                    triangleUpdateBuffer.add(t);  // added to Triangle.constructor
-
-                    if (triangles.size() > MAX_TRIANGLE_COUNT) {
-                        // Remove however many triangles above the limit
-                        int criminals = triangles.size() - MAX_TRIANGLE_COUNT;
-                        for (int i = 0; i < criminals; i++) {
-                            Triangle condemned = triangles.get(i);
-                            if (!condemned.mustDie) {
-                                condemned.kill();  // if it wasn't flagged before
-                                triangleUpdateBuffer.add(condemned);
-                            }
-                        }
-                    }
-
-                    // After triangle was created with current color, generate a new one
-                    triangleColorNew = generateTriangleColor();
-                }
-            }
-        }
-
-
-
-
-        private int triangleCounter = 0;
-
-        class Triangle {
-
-            private final static float VERTICES_ANIM_SPEED = 0.25f;
-            private final static int   VERTICES_ANIM_END_THRESHOLD = 5;
-            private final static float COLOR_ANIM_SPEED = 0.10f;
-
-            int id;
-            Board parent;
-
-            Bounce start, middle, end, corner;
-            Path pathFull, pathOutline;
-            boolean animateVertices, animateColor;
-            boolean needsUpdate;
-            boolean containsCornerBounce = false;
-            float cornerX, cornerY;
-
-            int baseColor, currentColor, targetColor;
-            int currA, currR, currG, currB;
-            int currentTipAlpha;
-            Paint paint;
-
-            float gradEndX, gradEndY;  // gradient target passed by Cursor
-            boolean animateGradient;
-
-            boolean mustDie;
-
-            Triangle(Board parent_, Bounce start_, Bounce middle_, Bounce end_,
-                     float gradEndX_, float gradEndY_) {
-
-                id = triangleCounter++;
-                parent = parent_;
-
-                if (start_.side == 0 && middle_.side == 3) {
-                    start = middle_;
-                    middle = start_;
-                } else if (start_.side < middle_.side) {
-                    start = start_;
-                    middle = middle_;
-                } else if (start_.side == 3 && middle_.side == 0) {
-                    start = start_;
-                    middle = middle_;
-                } else {
-                    start = middle_;
-                    middle = start_;
-                }
-                end = end_;
-
-                if (middle.side - start.side != 2) {
-                    containsCornerBounce = true;
-                    corner = generateCornerBounce();
-                }
-
-                if (containsCornerBounce) {
-                    animateVertices = true;
-                    cornerX = Math.min(start.x, middle.x) + 0.5f * Math.abs(start.x - middle.x);
-                    cornerY = Math.min(start.y, middle.y) + 0.5f * Math.abs(start.y - middle.y);
-                }
-
-                if (DEBUG_LOGS) Log.v(TAG, "Created triangle: " +
-                        "start[" + start.x + "," + start.y + "," + start.side + "] " +
-                        (containsCornerBounce ? "corner[" + corner.x + "," + corner.y + "," + corner.side + "] " : "(nocorner) ") +
-                        "middle[" + middle.x + "," + middle.y + "," + middle.side + "] " +
-                        "end[" + end.x + "," + end.y + "," + end.side + "]");
-
-                pathFull = new Path();
-                pathFull.moveTo(start.x, start.y);
-                if (containsCornerBounce) pathFull.lineTo(cornerX, cornerY);
-                pathFull.lineTo(middle.x, middle.y);
-                pathFull.lineTo(end.x, end.y);
-
-                pathOutline = new Path();
-                pathOutline.moveTo(start.x, start.y);
-                pathOutline.lineTo(end.x, end.y);
-                pathOutline.lineTo(middle.x, middle.y);
-                if (!containsCornerBounce) pathOutline.close();
-
-                baseColor = triangleColorNew;
-                currentColor = targetColor = baseColor;
-                animateColor = false;
-                interpolateColor(currentColor, targetColor, 1);  // initialize currentARGBs
-
-                gradEndX = gradEndX_;
-                gradEndY = gradEndY_;
-                currentTipAlpha = CURSOR_TIP_ALPHA;
-                animateGradient = true;  // kick off transition from the beginning
-
-                paint = new Paint();
-                paint.setColor(Color.WHITE);
-                paint.setStyle(Paint.Style.FILL);
-                paint.setAntiAlias(true);
-                // start off a gradient fill
-                paint.setShader(new LinearGradient(end.x, end.y,
-                        gradEndX, gradEndY,
-                        Color.argb(currentTipAlpha, currR, currG, currB),
-                        Color.argb(COLOR_TRIANGLE_ALPHA, currR, currG, currB),
-                        Shader.TileMode.CLAMP));
-
-                needsUpdate = true;
-                parent.triangleUpdateBuffer.add(this);
-            }
-
-            public boolean update() {
-
-                if (animateVertices) {
-                    float diffX = corner.x - cornerX,
-                            diffY = corner.y - cornerY;
-
-                    if (Math.abs(diffX) < VERTICES_ANIM_END_THRESHOLD && Math.abs(diffY) < VERTICES_ANIM_END_THRESHOLD) {
-                        cornerX = corner.x;
-                        cornerY = corner.y;
-                        animateVertices = false;
-
-                    } else {
-                        cornerX += VERTICES_ANIM_SPEED * diffX;
-                        cornerY += VERTICES_ANIM_SPEED * diffY;
-                    }
-
-                    pathFull.rewind();
-                    pathFull.moveTo(start.x, start.y);
-                    if (containsCornerBounce) pathFull.lineTo(cornerX, cornerY);
-                    pathFull.lineTo(middle.x, middle.y);
-                    pathFull.lineTo(end.x, end.y);
-                }
-
-                if (animateColor) {
-                    int prevColor = currentColor;
-                    currentColor = interpolateColor(currentColor, targetColor, COLOR_ANIM_SPEED);
-
-                    if (prevColor == currentColor) {
-                        animateColor = false;
-                        if (mustDie) {
-                            parent.triangles.remove(this);
-                        }
-                    }
-
-                    paint.setColor(currentColor);
-                }
-
-                if (animateGradient) {
-                    paint.setShader(null);  // reset gradient fill
-                    int prevAlpha = currentTipAlpha;
-                    currentTipAlpha += COLOR_ANIM_SPEED * (COLOR_TRIANGLE_ALPHA - currentTipAlpha);
-
-                    if (prevAlpha == currentTipAlpha) {
-                        animateGradient = false;
-                        paint.setColor(currentColor);
-
-                    } else {
-                        paint.setShader(new LinearGradient(end.x, end.y,
-                                gradEndX, gradEndY,
-                                Color.argb(currentTipAlpha, currR, currG, currB),
-                                Color.argb(COLOR_TRIANGLE_ALPHA, currR, currG, currB),
-                                Shader.TileMode.CLAMP));
-                    }
-                }
-
-                needsUpdate = animateVertices || animateColor || animateGradient;
-//                if (DEBUG_LOGS) Log.v(TAG, "  needsUpdate: " + needsUpdate);
-                if (!needsUpdate) parent.triangleStopUpdatingBuffer.add(this);
-                return needsUpdate;
+                Log.v(TAG, "--> Curr time: " + year + "-" + (month + 1) + "-" + monthDay + " "
+                        + hour + ":" + minute + ":" + second);
             }
-
-            public void render(Canvas canvas) {
-                canvas.drawPath(pathFull, paint);
-
-            }
-
-            public void renderOutline(Canvas canvas, Paint paint) {
-                canvas.drawPath(pathOutline, paint);
-            }
-
-            public void kill() {
-                mustDie = true;
-                targetColor = Color.argb(0, currR, currG, currB);
-                animateColor = true;
-                needsUpdate = true;
-            }
-
-            private int interpolateColor(int sourceColor, int targetColor, float parameter) {
-                int sA = (sourceColor >> 24) & 0xFF;
-                int sR = (sourceColor >> 16) & 0xFF;
-                int sG = (sourceColor >> 8) & 0xFF;
-                int sB = (sourceColor) & 0xFF;
-
-                int tA = (targetColor >> 24) & 0xFF;
-                int tR = (targetColor >> 16) & 0xFF;
-                int tG = (targetColor >> 8) & 0xFF;
-                int tB = (targetColor) & 0xFF;
-
-                currA = sA + (int) (parameter * (tA - sA));
-                currR = sR + (int) (parameter * (tR - sR));
-                currG = sG + (int) (parameter * (tG - sG));
-                currB = sB + (int) (parameter * (tB - sB));
-
-                return Color.argb(currA, currR, currG, currB);
-            }
-
-            private Bounce generateCornerBounce() {
-                switch (start.side) {
-                    case 0:
-                        return new Bounce(mWidth, 0);
-                    case 1:
-                        return new Bounce(mWidth, mHeight);
-                    case 2:
-                        return new Bounce(0, mHeight);
-                    case 3:
-                    default:
-                        return new Bounce(0, 0);
-                }
-            }
-
-        }
-
-
-
-        class Bounce {
-
-            final static double TAU_MINUS_3_8 = -0.75 * Math.PI;
-            final static double TAU_MINUS_1_8 = -0.25 * Math.PI;
-            final static double TAU_PLUS_1_8 = 0.25 * Math.PI;
-            final static double TAU_PLUS_3_8 = 0.75 * Math.PI;
-
-            int x, y;
-            int side;  // 0 for top... 3 for left (clockwise)
-            int color;
-
-            Bounce(int x_, int y_) {
-                x = x_;
-                y = y_;
-
-                if (mIsRound) {
-                    double angle = Math.atan2(y - mCenterY, x - mCenterX);
-                    if (angle > TAU_MINUS_3_8 && angle <= TAU_MINUS_1_8) side = 0;
-                    else if (angle > TAU_MINUS_1_8 && angle <= TAU_PLUS_1_8) side = 1;
-                    else if (angle > TAU_PLUS_1_8 && angle <= TAU_PLUS_3_8) side = 2;
-                    else side = 3;
-
-                } else {
-                    if (x == 0)            side = 3;
-                    else if (x == mWidth)  side = 1;
-                    else if (y == 0)       side = 0;
-                    else if (y == mHeight) side = 2;
-                }
-
-                color = triangleColorNew;
-            }
-
-        }
-
-        int generateTriangleColor() {
-            // start range at the minute of the hour mapped to the total hue, minus half the range
-            int totalHue = 360;
-            int startHue = (mTimeManager.minute * 6) - (RANGE_HUE / 2);
-            int endHue   = startHue + RANGE_HUE;
-
-            // find random number between the range
-            int randomHue = randomRange(startHue, endHue);
-
-            // adjust the random number
-            if (randomHue < 0) {
-                randomHue += totalHue;
-            } else if (randomHue > totalHue) {
-                randomHue -= totalHue;
-            }
-
-//            int currentTriangleColor = Color.HSVToColor(randomRange(COLOR_TRIANGLE_ALPHA - 25, COLOR_TRIANGLE_ALPHA + 25), new float[]{ (float) randomHue, 1.0f, 1.0f } );
-            int currentTriangleColor = Color.HSVToColor(COLOR_TRIANGLE_ALPHA, new float[]{ (float) randomHue, 1.0f, 1.0f } );
-            currentR = Color.red(currentTriangleColor);
-            currentG = Color.green(currentTriangleColor);
-            currentB = Color.blue(currentTriangleColor);
-
-            return currentTriangleColor;
-        }
-
-        int randomRange(int min, int max) {
-            int range = (max - min) + 1;
-            return (int)(Math.random() * range) + min;
         }
 
     }
@@ -1209,6 +599,7 @@ public class IsaacWatchFaceService extends CanvasWatchFaceService implements Sen
             case Sensor.TYPE_ACCELEROMETER:
                 mSensorAccelerometer.update(event);
                 updateGravity(event);
+                if (mEngine != null) mEngine.onGravityChanged();
                 break;
         }
     }